@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.installer
+
+import android.net.Uri
+import ru.solrudev.ackpine.installer.parameters.ApkDigests
+import ru.solrudev.ackpine.installer.parameters.InstallParameters
+import ru.solrudev.ackpine.installer.parameters.InstallerType
+
+/**
+ * Denotes that install session computes [APK digests][InstallParameters.digests] while writing APKs.
+ *
+ * Install sessions with [InstallerType.SESSION_BASED] installer type implement this interface.
+ */
+public interface ApkDigestsAware {
+
+	/**
+	 * Digests of APKs computed while writing them, keyed by APK [URI][Uri] and represented as lowercase hex strings.
+	 * Digests are computed using [ApkDigests.algorithm].
+	 *
+	 * Contains only APKs which were already written. Empty if [InstallParameters.digests] is `null`.
+	 */
+	public val stagedDigests: Map<Uri, String>
+}
\ No newline at end of file
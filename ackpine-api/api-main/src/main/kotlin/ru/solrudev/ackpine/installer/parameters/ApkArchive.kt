@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.installer.parameters
+
+import android.net.Uri
+
+/**
+ * ZIP archive containing APKs, such as APKS or XAPK, from which selected [entries][entryNames] are installed.
+ *
+ * The archive is opened once for all of its entries, and entries are written to an install session straight from
+ * the archive, without extracting them first. Stored entries are transferred without copying them through the app
+ * when possible, and deflated entries are inflated on the fly. Other compression methods are not supported.
+ *
+ * Archives are installed only with [InstallerType.SESSION_BASED] installer type.
+ */
+public class ApkArchive private constructor(
+
+	/**
+	 * [URI][Uri] of the archive.
+	 */
+	public val uri: Uri,
+
+	/**
+	 * Names of the archive entries to install.
+	 */
+	public val entryNames: List<String>
+) {
+
+	/**
+	 * Returns an [URI][Uri] which identifies the archive entry with [entryName]. These URIs are used as
+	 * [InstallParameters.apks] of sessions installing the archive, and as keys of [ApkDigests.expectedDigests].
+	 *
+	 * Returned URI can't be opened with `ContentResolver`.
+	 */
+	public fun getEntryUri(entryName: String): Uri {
+		return uri.buildUpon().fragment(entryName).build()
+	}
+
+	override fun equals(other: Any?): Boolean {
+		if (this === other) return true
+		if (javaClass != other?.javaClass) return false
+		other as ApkArchive
+		if (uri != other.uri) return false
+		if (entryNames != other.entryNames) return false
+		return true
+	}
+
+	override fun hashCode(): Int {
+		var result = uri.hashCode()
+		result = 31 * result + entryNames.hashCode()
+		return result
+	}
+
+	override fun toString(): String {
+		return "ApkArchive(" +
+				"uri=$uri, " +
+				"entryNames=$entryNames" +
+				")"
+	}
+
+	/**
+	 * Builder for [ApkArchive].
+	 */
+	public class Builder(private val uri: Uri) {
+
+		private val _entryNames = mutableListOf<String>()
+
+		/**
+		 * Names of the archive entries to install.
+		 */
+		public val entryNames: List<String>
+			get() = _entryNames.toList()
+
+		/**
+		 * Adds [entryName] to [ApkArchive.entryNames].
+		 */
+		public fun addEntry(entryName: String): Builder = apply {
+			require(entryName.isNotEmpty()) { "Entry name is empty" }
+			_entryNames += entryName
+		}
+
+		/**
+		 * Adds [entryNames] to [ApkArchive.entryNames].
+		 */
+		public fun addEntries(entryNames: Iterable<String>): Builder = apply {
+			for (entryName in entryNames) {
+				addEntry(entryName)
+			}
+		}
+
+		/**
+		 * Constructs a new instance of [ApkArchive].
+		 */
+		public fun build(): ApkArchive {
+			require(_entryNames.isNotEmpty()) {
+				"No entries provided. It's required to have at least one base APK to create a session."
+			}
+			return ApkArchive(uri, _entryNames.toList())
+		}
+	}
+}
\ No newline at end of file
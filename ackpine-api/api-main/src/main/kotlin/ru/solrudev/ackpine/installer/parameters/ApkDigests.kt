@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.installer.parameters
+
+import android.content.pm.PackageInstaller
+import android.net.Uri
+import android.os.Build
+import ru.solrudev.ackpine.installer.InstallFailure
+
+/**
+ * Configuration of APK digests which are computed inline while APKs are being written to an install session, without
+ * reading them for the second time.
+ *
+ * Takes effect only with [InstallerType.SESSION_BASED] installer type. If [expected digest][expectedDigests] of an APK
+ * doesn't match the computed one, the session fails with [InstallFailure.Invalid] as soon as the APK is written.
+ *
+ * On API level >= [31][Build.VERSION_CODES.S] computed digests are also passed to the system as installer-provided
+ * checksums.
+ *
+ * @see [PackageInstaller.Session.setChecksums]
+ */
+public class ApkDigests private constructor(
+
+	/**
+	 * Algorithm of the computed digests.
+	 */
+	public val algorithm: Algorithm,
+
+	/**
+	 * Expected digests of APKs, keyed by APK [URI][Uri] and represented as lowercase hex strings.
+	 */
+	public val expectedDigests: Map<Uri, String>
+) {
+
+	override fun equals(other: Any?): Boolean {
+		if (this === other) return true
+		if (javaClass != other?.javaClass) return false
+		other as ApkDigests
+		if (algorithm != other.algorithm) return false
+		if (expectedDigests != other.expectedDigests) return false
+		return true
+	}
+
+	override fun hashCode(): Int {
+		var result = algorithm.hashCode()
+		result = 31 * result + expectedDigests.hashCode()
+		return result
+	}
+
+	override fun toString(): String {
+		return "ApkDigests(" +
+				"algorithm=$algorithm, " +
+				"expectedDigests=$expectedDigests" +
+				")"
+	}
+
+	/**
+	 * Digest algorithm.
+	 */
+	public enum class Algorithm {
+
+		/**
+		 * SHA-256 digest of the whole APK file.
+		 */
+		SHA256,
+
+		/**
+		 * SHA-512 digest of the whole APK file.
+		 */
+		SHA512
+	}
+
+	/**
+	 * Builder for [ApkDigests].
+	 */
+	public class Builder(private val algorithm: Algorithm) {
+
+		private val _expectedDigests = mutableMapOf<Uri, String>()
+
+		/**
+		 * Expected digests of APKs, keyed by APK [URI][Uri] and represented as lowercase hex strings.
+		 */
+		public val expectedDigests: Map<Uri, String>
+			get() = _expectedDigests.toMap()
+
+		/**
+		 * Adds expected [digest] of [apk] to [ApkDigests.expectedDigests]. The digest is represented as a hex string.
+		 */
+		public fun setExpectedDigest(apk: Uri, digest: String): Builder = apply {
+			require(digest.isNotEmpty() && digest.all { char -> Character.digit(char, 16) != -1 }) {
+				"Digest is not a hex string: $digest"
+			}
+			_expectedDigests[apk] = digest.lowercase()
+		}
+
+		/**
+		 * Constructs a new instance of [ApkDigests].
+		 */
+		public fun build(): ApkDigests {
+			return ApkDigests(algorithm, _expectedDigests.toMap())
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.installer.parameters
+
+import android.content.pm.PackageInstaller
+
+/**
+ * Policy of flushing APKs written to an install session to storage before the session is committed.
+ *
+ * * [PER_FILE] &mdash; each APK is synced as soon as it's written.
+ * * [DEFERRED] &mdash; all APKs are synced together right before the session is ready to be committed.
+ * * [NONE] &mdash; APKs are not synced explicitly.
+ *
+ * @see [PackageInstaller.Session.fsync]
+ */
+public enum class DurabilityPolicy {
+
+	/**
+	 * Each APK is synced to storage as soon as it's written, before the next one starts.
+	 *
+	 * This is the default policy.
+	 */
+	PER_FILE,
+
+	/**
+	 * All APKs are synced to storage in a single barrier after the last one is written, so that writing APKs isn't
+	 * stalled by waiting for storage. Guarantees the same durability as [PER_FILE] by the time the session is
+	 * committed. If many APKs are written, the earliest of them may be synced before the barrier, so that too many
+	 * files are not kept open at once.
+	 *
+	 * With [InstallerType.INTENT_BASED] installer type this is the same as [PER_FILE].
+	 */
+	DEFERRED,
+
+	/**
+	 * APKs are not synced explicitly, and data is left to be flushed by the system. Suitable for ephemeral sessions
+	 * which don't need to survive a device crash or a reboot during staging. APKs written through a pipe rather than
+	 * directly to a file are still synced, as otherwise their data is not guaranteed to reach the file at all.
+	 *
+	 * Staging progress of large APKs is not persisted with this policy, so interrupted staging is not resumed.
+	 */
+	NONE
+}
\ No newline at end of file
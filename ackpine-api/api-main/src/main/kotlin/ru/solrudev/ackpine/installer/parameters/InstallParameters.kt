@@ -138,6 +138,37 @@ public class InstallParameters private constructor(
 	 */
 	public val packageSource: PackageSource,
 
+	/**
+	 * Configuration of APK digests computed while APKs are being written to an install session. Takes effect only
+	 * with [InstallerType.SESSION_BASED] installer type.
+	 *
+	 * Default value is `null`, which means that digests are not computed.
+	 */
+	public val digests: ApkDigests?,
+
+	/**
+	 * Storage bandwidth available for writing APKs into an install session. Takes effect only with
+	 * [InstallerType.SESSION_BASED] installer type.
+	 *
+	 * Default value is `null`, which means that the global default set with `Ackpine.setStagingBandwidth()` is used.
+	 */
+	public val stagingBandwidth: StagingBandwidth?,
+
+	/**
+	 * Policy of syncing APKs written to an install session to storage.
+	 *
+	 * Default value is [DurabilityPolicy.PER_FILE].
+	 */
+	public val durabilityPolicy: DurabilityPolicy,
+
+	/**
+	 * ZIP archive from which APKs are written to an install session directly. When set, [apks] contain
+	 * [entry URIs][ApkArchive.getEntryUri] of the archive.
+	 *
+	 * Default value is `null`.
+	 */
+	public val archive: ApkArchive?,
+
 	/**
 	 * [Plugins][AckpinePlugin] applied to the install session.
 	 */
@@ -159,6 +190,10 @@ public class InstallParameters private constructor(
 		if (preapproval != other.preapproval) return false
 		if (constraints != other.constraints) return false
 		if (packageSource != other.packageSource) return false
+		if (digests != other.digests) return false
+		if (stagingBandwidth != other.stagingBandwidth) return false
+		if (durabilityPolicy != other.durabilityPolicy) return false
+		if (archive != other.archive) return false
 		if (pluginContainer != other.pluginContainer) return false
 		return true
 	}
@@ -175,6 +210,10 @@ public class InstallParameters private constructor(
 		result = 31 * result + preapproval.hashCode()
 		result = 31 * result + constraints.hashCode()
 		result = 31 * result + packageSource.hashCode()
+		result = 31 * result + digests.hashCode()
+		result = 31 * result + stagingBandwidth.hashCode()
+		result = 31 * result + durabilityPolicy.hashCode()
+		result = 31 * result + archive.hashCode()
 		result = 31 * result + pluginContainer.hashCode()
 		return result
 	}
@@ -192,6 +231,10 @@ public class InstallParameters private constructor(
 				"constraints=$constraints, " +
 				"requestUpdateOwnership=$requestUpdateOwnership, " +
 				"packageSource=$packageSource, " +
+				"digests=$digests, " +
+				"stagingBandwidth=$stagingBandwidth, " +
+				"durabilityPolicy=$durabilityPolicy, " +
+				"archive=$archive, " +
 				"pluginContainer=$pluginContainer" +
 				")"
 	}
@@ -213,9 +256,21 @@ public class InstallParameters private constructor(
 			pluginScope = InstallPluginScope.create()
 		}
 
-		private constructor(apks: RealMutableApkList, scope: InstallPluginScope) {
+		/**
+		 * Creates a builder for installing selected entries of the [archive]. [apks] of such builder contain
+		 * [entry URIs][ApkArchive.getEntryUri] of the archive and can't be amended.
+		 */
+		@RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+		public constructor(archive: ApkArchive) {
+			_apks = RealMutableApkList(archive.entryNames.map(archive::getEntryUri), isAmendable = false)
+			pluginScope = InstallPluginScope.create()
+			this.archive = archive
+		}
+
+		private constructor(apks: RealMutableApkList, scope: InstallPluginScope, archive: ApkArchive?) {
 			_apks = apks
 			pluginScope = scope
+			this.archive = archive
 		}
 
 		private val _apks: RealMutableApkList
@@ -237,8 +292,8 @@ public class InstallParameters private constructor(
 		 * When getting/setting the value of this property, the following invariants are maintained:
 		 * * When on API level < 21, [InstallerType.INTENT_BASED] is always returned/set regardless of the
 		 * current/provided value;
-		 * * When on API level >= 21 and [apks] contain more than one entry, [InstallerType.SESSION_BASED] is always
-		 * returned/set regardless of the current/provided value.
+		 * * When on API level >= 21 and [apks] contain more than one entry or [archive] is set,
+		 * [InstallerType.SESSION_BASED] is always returned/set regardless of the current/provided value.
 		 */
 		public var installerType: InstallerType
 			get() = pluginScope.normalizeInstallerType()
@@ -352,6 +407,42 @@ public class InstallParameters private constructor(
 		public var packageSource: PackageSource = PackageSource.Unspecified
 			private set
 
+		/**
+		 * Configuration of APK digests computed while APKs are being written to an install session. Takes effect only
+		 * with [InstallerType.SESSION_BASED] installer type.
+		 *
+		 * Default value is `null`, which means that digests are not computed.
+		 */
+		public var digests: ApkDigests? = null
+			private set
+
+		/**
+		 * Storage bandwidth available for writing APKs into an install session. Takes effect only with
+		 * [InstallerType.SESSION_BASED] installer type.
+		 *
+		 * Default value is `null`, which means that the global default set with `Ackpine.setStagingBandwidth()` is
+		 * used.
+		 */
+		public var stagingBandwidth: StagingBandwidth? = null
+			private set
+
+		/**
+		 * Policy of syncing APKs written to an install session to storage.
+		 *
+		 * Default value is [DurabilityPolicy.PER_FILE].
+		 */
+		public var durabilityPolicy: DurabilityPolicy = DurabilityPolicy.PER_FILE
+			private set
+
+		/**
+		 * ZIP archive from which APKs are written to an install session directly. When set, [apks] contain
+		 * [entry URIs][ApkArchive.getEntryUri] of the archive.
+		 *
+		 * Default value is `null`.
+		 */
+		public var archive: ApkArchive? = null
+			private set
+
 		/**
 		 * Adds [apk] to [InstallParameters.apks].
 		 */
@@ -371,8 +462,8 @@ public class InstallParameters private constructor(
 		/**
 		 * Sets [InstallParameters.installerType], maintaining the following invariants:
 		 * * When on API level < 21, [InstallerType.INTENT_BASED] is always set regardless of the provided value;
-		 * * When on API level >= 21 and [apks] contains more than one entry, [InstallerType.SESSION_BASED] is always
-		 * set regardless of the provided value.
+		 * * When on API level >= 21 and [apks] contains more than one entry or [archive] is set,
+		 * [InstallerType.SESSION_BASED] is always set regardless of the provided value.
 		 */
 		public fun setInstallerType(installerType: InstallerType): Builder = apply {
 			this.installerType = installerType
@@ -446,6 +537,27 @@ public class InstallParameters private constructor(
 			this.packageSource = packageSource
 		}
 
+		/**
+		 * Sets [InstallParameters.digests].
+		 */
+		public fun setDigests(digests: ApkDigests?): Builder = apply {
+			this.digests = digests
+		}
+
+		/**
+		 * Sets [InstallParameters.stagingBandwidth].
+		 */
+		public fun setStagingBandwidth(stagingBandwidth: StagingBandwidth?): Builder = apply {
+			this.stagingBandwidth = stagingBandwidth
+		}
+
+		/**
+		 * Sets [InstallParameters.durabilityPolicy].
+		 */
+		public fun setDurabilityPolicy(durabilityPolicy: DurabilityPolicy): Builder = apply {
+			this.durabilityPolicy = durabilityPolicy
+		}
+
 		/**
 		 * Registers a [plugin] for the install session.
 		 * @param plugin Java class of a registered plugin, implementing [AckpineInstallPlugin].
@@ -514,6 +626,10 @@ public class InstallParameters private constructor(
 				snapshot.constraints,
 				snapshot.requestUpdateOwnership,
 				snapshot.packageSource,
+				snapshot.digests,
+				snapshot.stagingBandwidth,
+				snapshot.durabilityPolicy,
+				snapshot.archive,
 				AckpinePluginContainer.from(snapshot.pluginScope.getPlugins())
 			)
 		}
@@ -534,12 +650,15 @@ public class InstallParameters private constructor(
 			} while (pluginsToApply.isNotEmpty())
 		}
 
-		private fun createSnapshot() = Builder(_apks.copy(), pluginScope.copy())
+		private fun createSnapshot() = Builder(_apks.copy(), pluginScope.copy(), archive)
 			.setName(name)
 			.setConfirmation(confirmation)
 			.setNotificationData(notificationData)
 			.setInstallMode(installMode)
 			.setPackageSource(packageSource)
+			.setDigests(digests)
+			.setStagingBandwidth(stagingBandwidth)
+			.setDurabilityPolicy(durabilityPolicy)
 
 		private fun InstallPluginScope.normalizeInstallerType(
 			value: InstallerType = this.installerType
@@ -552,6 +671,7 @@ public class InstallParameters private constructor(
 		private fun applyInstallerTypeInvariants(value: InstallerType) = when {
 			!isPackageInstallerApiAvailable() -> InstallerType.INTENT_BASED
 			apks.size > 1 && isPackageInstallerApiAvailable() -> InstallerType.SESSION_BASED
+			archive != null -> InstallerType.SESSION_BASED
 			else -> value
 		}
 	}
@@ -561,11 +681,13 @@ private class RealMutableApkList : MutableApkList {
 
 	constructor(baseApk: Uri) {
 		this.apks = mutableListOf(baseApk)
+		this.isAmendable = true
 	}
 
 	@RequiresApi(Build.VERSION_CODES.LOLLIPOP)
-	constructor(apks: Iterable<Uri>) {
+	constructor(apks: Iterable<Uri>, isAmendable: Boolean = true) {
 		this.apks = apks.toMutableList()
+		this.isAmendable = isAmendable
 		require(this.apks.isNotEmpty()) {
 			"No APKs provided. It's required to have at least one base APK to create a session."
 		}
@@ -579,7 +701,11 @@ private class RealMutableApkList : MutableApkList {
 
 	private val apks: MutableList<Uri>
 
+	// APKs of an archive are defined by its entries
+	private val isAmendable: Boolean
+
 	override fun add(apk: Uri) {
+		checkAmendable()
 		if (this.apks.isNotEmpty()) {
 			checkSplitPackagesSupport()
 		}
@@ -587,6 +713,7 @@ private class RealMutableApkList : MutableApkList {
 	}
 
 	override fun addAll(apks: Iterable<Uri>) {
+		checkAmendable()
 		val apksList = apks.toList()
 		if (this.apks.isNotEmpty() || apksList.size > 1) {
 			checkSplitPackagesSupport()
@@ -597,7 +724,7 @@ private class RealMutableApkList : MutableApkList {
 	override fun toList() = apks.toList()
 
 	@SuppressLint("NewApi")
-	fun copy() = RealMutableApkList(apks)
+	fun copy() = RealMutableApkList(apks, isAmendable)
 
 	override fun equals(other: Any?): Boolean {
 		if (this === other) return true
@@ -609,6 +736,10 @@ private class RealMutableApkList : MutableApkList {
 	override fun hashCode() = apks.hashCode()
 	override fun toString() = "ApkList($apks)"
 
+	private fun checkAmendable() = check(isAmendable) {
+		"APKs can't be added when installing an archive"
+	}
+
 	private fun checkSplitPackagesSupport() {
 		if (!isPackageInstallerApiAvailable()) {
 			throw SplitPackagesNotSupportedException()
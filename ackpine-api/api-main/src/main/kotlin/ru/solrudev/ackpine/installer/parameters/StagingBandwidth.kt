@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.installer.parameters
+
+import java.io.Serializable
+
+/**
+ * Storage bandwidth available for writing APKs into an install session.
+ *
+ * Limiting bandwidth of background installs keeps storage responsive for the foreground app on devices with slow
+ * storage, at the cost of longer staging. Takes effect only with [InstallerType.SESSION_BASED] installer type.
+ */
+public sealed interface StagingBandwidth : Serializable {
+
+	/**
+	 * APKs are written as fast as storage allows.
+	 */
+	public data object Unlimited : StagingBandwidth {
+		private const val serialVersionUID = -2389404729117405235L
+		private fun readResolve(): Any = Unlimited
+	}
+
+	/**
+	 * APKs are written with a rate not exceeding [bytesPerSecond].
+	 */
+	public data class Limited(public val bytesPerSecond: Long) : StagingBandwidth {
+		init {
+			require(bytesPerSecond > 0) { "Bandwidth must be greater than zero, but was $bytesPerSecond" }
+		}
+		private companion object {
+			private const val serialVersionUID = 4893094810522474781L
+		}
+	}
+
+	/**
+	 * APKs are written with a rate not exceeding [maxBytesPerSecond], which is lowered when storage write latency
+	 * rises and gradually restored when it settles down.
+	 */
+	public data class Adaptive(public val maxBytesPerSecond: Long) : StagingBandwidth {
+		init {
+			require(maxBytesPerSecond > 0) { "Bandwidth must be greater than zero, but was $maxBytesPerSecond" }
+		}
+		private companion object {
+			private const val serialVersionUID = -6153412358735098125L
+		}
+	}
+
+	@Suppress("Unused")
+	private data object NonExhaustiveWhenGuard : StagingBandwidth {
+		private const val serialVersionUID = 1935512981044815063L
+		private fun readResolve(): Any = NonExhaustiveWhenGuard
+	}
+
+	@Suppress("RedundantVisibilityModifier")
+	private companion object {
+
+		/**
+		 * APKs are written as fast as storage allows.
+		 */
+		@JvmField
+		public val UNLIMITED: StagingBandwidth = Unlimited
+	}
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.session
+
+import java.util.UUID
+
+/**
+ * Read-only snapshot of a persisted session.
+ *
+ * Unlike [Session], a snapshot is a plain value which doesn't hold any resources and doesn't change over time. To
+ * interact with a session, obtain it by its [id] from the repository which returned the snapshot.
+ *
+ * @property id ID of the session.
+ * @property name for install sessions, name of the session set in install parameters. For uninstall sessions, name of
+ * the package being uninstalled.
+ * @property state state of the session at the time the snapshot was taken.
+ * @property progress progress of the session at the time the snapshot was taken. Uninstall sessions don't report
+ * progress, so for them it's always the default value.
+ * @property lastLaunchTimestamp wall clock time in milliseconds when the session was last launched, or `0` if it
+ * wasn't launched.
+ * @property lastCommitTimestamp wall clock time in milliseconds when the session was last committed, or `0` if it
+ * wasn't committed.
+ */
+public data class SessionSnapshot<out F : Failure>(
+	public val id: UUID,
+	public val name: String,
+	public val state: Session.State<F>,
+	public val progress: Progress,
+	public val lastLaunchTimestamp: Long,
+	public val lastCommitTimestamp: Long
+)
\ No newline at end of file
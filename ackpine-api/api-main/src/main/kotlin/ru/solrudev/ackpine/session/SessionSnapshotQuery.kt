@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.session
+
+/**
+ * Query for [session snapshots][SessionSnapshot].
+ *
+ * Snapshots are returned in order from the most recently created session to the oldest one.
+ */
+public class SessionSnapshotQuery private constructor(
+
+	/**
+	 * Types of states which matching sessions are in. If empty, sessions in any state match.
+	 *
+	 * Default value is empty set.
+	 */
+	public val stateTypes: Set<StateType>,
+
+	/**
+	 * Number of matching snapshots to skip.
+	 *
+	 * Offset is counted among sessions matching at the moment the query is executed. As sessions are created,
+	 * removed and change their states, subsequent pages fetched with increasing offsets may skip or repeat
+	 * sessions. To track sessions consistently, use [SessionSnapshotsListener] instead.
+	 *
+	 * Default value is `0`.
+	 */
+	public val offset: Int,
+
+	/**
+	 * Maximum number of snapshots to return.
+	 *
+	 * Default value is [Int.MAX_VALUE], i.e. not limited.
+	 */
+	public val limit: Int
+) {
+
+	/**
+	 * Type of [Session.State].
+	 */
+	public enum class StateType {
+
+		/**
+		 * [Session.State.Pending].
+		 */
+		PENDING,
+
+		/**
+		 * [Session.State.Active].
+		 */
+		ACTIVE,
+
+		/**
+		 * [Session.State.Awaiting].
+		 */
+		AWAITING,
+
+		/**
+		 * [Session.State.Committed].
+		 */
+		COMMITTED,
+
+		/**
+		 * [Session.State.Cancelled].
+		 */
+		CANCELLED,
+
+		/**
+		 * [Session.State.Succeeded].
+		 */
+		SUCCEEDED,
+
+		/**
+		 * [Session.State.Failed].
+		 */
+		FAILED
+	}
+
+	override fun toString(): String {
+		return "SessionSnapshotQuery(stateTypes=$stateTypes, offset=$offset, limit=$limit)"
+	}
+
+	override fun equals(other: Any?): Boolean {
+		if (this === other) return true
+		if (javaClass != other?.javaClass) return false
+		other as SessionSnapshotQuery
+		if (stateTypes != other.stateTypes) return false
+		if (offset != other.offset) return false
+		if (limit != other.limit) return false
+		return true
+	}
+
+	override fun hashCode(): Int {
+		var result = stateTypes.hashCode()
+		result = 31 * result + offset
+		result = 31 * result + limit
+		return result
+	}
+
+	public companion object {
+
+		/**
+		 * Query which matches all sessions.
+		 */
+		@JvmField
+		public val ALL: SessionSnapshotQuery = SessionSnapshotQuery(
+			stateTypes = emptySet(),
+			offset = 0,
+			limit = Int.MAX_VALUE
+		)
+	}
+
+	/**
+	 * Builder for [SessionSnapshotQuery].
+	 */
+	public class Builder {
+
+		/**
+		 * Types of states which matching sessions are in. If empty, sessions in any state match.
+		 *
+		 * Default value is empty set.
+		 */
+		public var stateTypes: Set<StateType> = ALL.stateTypes
+			private set
+
+		/**
+		 * Number of matching snapshots to skip.
+		 *
+		 * Offset is counted among sessions matching at the moment the query is executed. As sessions are created,
+		 * removed and change their states, subsequent pages fetched with increasing offsets may skip or repeat
+		 * sessions. To track sessions consistently, use [SessionSnapshotsListener] instead.
+		 *
+		 * Default value is `0`.
+		 */
+		public var offset: Int = ALL.offset
+			private set
+
+		/**
+		 * Maximum number of snapshots to return.
+		 *
+		 * Default value is [Int.MAX_VALUE], i.e. not limited.
+		 */
+		public var limit: Int = ALL.limit
+			private set
+
+		/**
+		 * Sets [SessionSnapshotQuery.stateTypes].
+		 */
+		public fun setStateTypes(stateTypes: Set<StateType>): Builder = apply {
+			this.stateTypes = stateTypes.toSet()
+		}
+
+		/**
+		 * Sets [SessionSnapshotQuery.stateTypes].
+		 */
+		public fun setStateTypes(vararg stateTypes: StateType): Builder = apply {
+			this.stateTypes = stateTypes.toSet()
+		}
+
+		/**
+		 * Sets [SessionSnapshotQuery.offset].
+		 *
+		 * @throws IllegalArgumentException if [offset] is negative.
+		 */
+		public fun setOffset(offset: Int): Builder = apply {
+			require(offset >= 0) { "Offset must not be negative, but was $offset" }
+			this.offset = offset
+		}
+
+		/**
+		 * Sets [SessionSnapshotQuery.limit].
+		 *
+		 * @throws IllegalArgumentException if [limit] is not positive.
+		 */
+		public fun setLimit(limit: Int): Builder = apply {
+			require(limit > 0) { "Limit must be positive, but was $limit" }
+			this.limit = limit
+		}
+
+		/**
+		 * Constructs a new instance of [SessionSnapshotQuery].
+		 */
+		public fun build(): SessionSnapshotQuery = SessionSnapshotQuery(stateTypes, offset, limit)
+	}
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.session
+
+/**
+ * Changes of [session snapshots][SessionSnapshot] matching a [SessionSnapshotQuery] since the previous notification of
+ * a [SessionSnapshotsListener].
+ *
+ * The first notification after a listener is added contains all currently matching snapshots as [added].
+ *
+ * @property added snapshots of sessions which started to match the query. Ordered as in the query results.
+ * @property removed last known snapshots of sessions which stopped to match the query.
+ * @property changed updated snapshots of sessions which matched the query both before and after the change. Ordered as
+ * in the query results.
+ */
+public data class SessionSnapshotsDiff<out F : Failure>(
+	public val added: List<SessionSnapshot<F>>,
+	public val removed: List<SessionSnapshot<F>>,
+	public val changed: List<SessionSnapshot<F>>
+)
\ No newline at end of file
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.session
+
+/**
+ * Callback interface for listening to changes of persisted [session snapshots][SessionSnapshot].
+ */
+public fun interface SessionSnapshotsListener<in F : Failure> {
+
+	/**
+	 * Notifies about changes of session snapshots matching the query this listener was added with.
+	 * @param diff changes since the previous notification.
+	 */
+	public fun onSnapshotsChanged(diff: SessionSnapshotsDiff<F>)
+}
\ No newline at end of file
@@ -18,11 +18,16 @@ package ru.solrudev.ackpine.uninstaller
 
 import android.content.Context
 import com.google.common.util.concurrent.ListenableFuture
+import ru.solrudev.ackpine.DisposableSubscription
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
 import ru.solrudev.ackpine.capabilities.UninstallerCapabilities
 import ru.solrudev.ackpine.capabilities.resolveUninstallerCapabilities
 import ru.solrudev.ackpine.impl.uninstaller.PackageUninstallerImpl
 import ru.solrudev.ackpine.plugability.AckpineUninstallPlugin
 import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsListener
 import ru.solrudev.ackpine.uninstaller.parameters.UninstallParameters
 import ru.solrudev.ackpine.uninstaller.parameters.UninstallerType
 import java.util.UUID
@@ -71,6 +76,45 @@ public interface PackageUninstaller {
 	 */
 	public fun getActiveSessionsAsync(): ListenableFuture<out List<Session<UninstallFailure>>>
 
+	/**
+	 * Returns [snapshots][SessionSnapshot] of persisted uninstall sessions matching the [query].
+	 *
+	 * Snapshots are read directly from persisted storage without restoring the sessions themselves, so this is suitable
+	 * for displaying session history. To interact with a session, obtain it with [getSessionAsync] using
+	 * [SessionSnapshot.id].
+	 *
+	 * Cancelling this future is a no-op.
+	 *
+	 * @param query an instance of [SessionSnapshotQuery] which configures filtering and paging.
+	 * @return [ListenableFuture] of [SessionSnapshots][SessionSnapshot] list.
+	 */
+	public fun getSessionSnapshotsAsync(query: SessionSnapshotQuery): ListenableFuture<List<SessionSnapshot<UninstallFailure>>>
+
+	/**
+	 * Adds a [SessionSnapshotsListener] observing [snapshots][SessionSnapshot] of persisted uninstall sessions matching the
+	 * [query] if it's not registered yet and appends the subscription to the
+	 * [subscriptions bag][subscriptionContainer].
+	 *
+	 * The listener is notified with all currently matching snapshots immediately upon registering, and then with
+	 * [differences][SessionSnapshotsDiff] whenever persisted sessions change. Bursts of changes may be delivered as a
+	 * single notification.
+	 *
+	 * Listeners are notified on main thread.
+	 *
+	 * @return [DisposableSubscription] &mdash; a handle to the subscription, dummy object if listener is already
+	 * registered.
+	 */
+	public fun addSessionSnapshotsListener(
+		subscriptionContainer: DisposableSubscriptionContainer,
+		query: SessionSnapshotQuery,
+		listener: SessionSnapshotsListener<UninstallFailure>
+	): DisposableSubscription
+
+	/**
+	 * Removes the provided [SessionSnapshotsListener] from this [PackageUninstaller].
+	 */
+	public fun removeSessionSnapshotsListener(listener: SessionSnapshotsListener<UninstallFailure>)
+
 	public companion object {
 
 		/**
@@ -70,6 +70,7 @@ dependencies {
 	api(androidx.startup)
 	api(projects.ackpineApi.apiMain)
 	implementation(projects.ackpineRuntime)
+	implementation(projects.ackpineSplits.compressAndroid)
 	implementation(androidx.concurrent.futures.core)
 	implementation(androidx.core.ktx)
 	implementation(androidx.room.runtime)
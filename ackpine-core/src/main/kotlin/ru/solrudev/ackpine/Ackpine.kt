@@ -27,7 +27,11 @@ import androidx.core.app.NotificationChannelCompat
 import androidx.core.app.NotificationManagerCompat
 import ru.solrudev.ackpine.core.R
 import ru.solrudev.ackpine.exceptions.AckpineReinitializeException
+import ru.solrudev.ackpine.impl.installer.session.helpers.IoGovernor
+import ru.solrudev.ackpine.impl.installer.session.helpers.toIoGovernor
 import ru.solrudev.ackpine.impl.logging.AckpineLoggerProvider
+import ru.solrudev.ackpine.installer.parameters.InstallParameters
+import ru.solrudev.ackpine.installer.parameters.StagingBandwidth
 import ru.solrudev.ackpine.session.parameters.Confirmation.DEFERRED
 import java.util.concurrent.atomic.AtomicInteger
 import kotlin.random.Random
@@ -51,6 +55,11 @@ public object Ackpine {
 	@Volatile
 	private var logger: AckpineLogger? = null
 
+	@Volatile
+	@get:JvmSynthetic
+	internal var stagingIoGovernor: IoGovernor = IoGovernor.Unlimited
+		private set
+
 	private val configurationChangesCallback = object : ComponentCallbacks {
 		override fun onConfigurationChanged(newConfig: Configuration) = createNotificationChannel()
 
@@ -133,6 +142,18 @@ public object Ackpine {
 	@JvmStatic
 	public fun enableLogcatLogger(): Unit = setLogger(AckpineLogger.Logcat())
 
+	/**
+	 * Sets storage bandwidth available for writing APKs into install sessions which don't specify their own
+	 * [InstallParameters.stagingBandwidth]. The bandwidth is shared between all such sessions, and changes apply to
+	 * sessions which start writing APKs afterwards.
+	 *
+	 * Default value is [StagingBandwidth.Unlimited].
+	 */
+	@JvmStatic
+	public fun setStagingBandwidth(stagingBandwidth: StagingBandwidth) {
+		stagingIoGovernor = stagingBandwidth.toIoGovernor()
+	}
+
 	@JvmSynthetic
 	internal fun init(context: Context) {
 		if (applicationContext != null) {
@@ -150,6 +171,7 @@ public object Ackpine {
 		applicationContext?.unregisterComponentCallbacks(configurationChangesCallback)
 		applicationContext = null
 		logger = null
+		stagingIoGovernor = IoGovernor.Unlimited
 	}
 
 	private fun createNotificationChannel(context: Context? = applicationContext) {
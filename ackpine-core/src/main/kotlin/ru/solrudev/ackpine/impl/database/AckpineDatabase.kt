@@ -27,8 +27,10 @@ import ru.solrudev.ackpine.impl.database.converters.DrawableIdConverters
 import ru.solrudev.ackpine.impl.database.converters.InstallFailureConverters
 import ru.solrudev.ackpine.impl.database.converters.PackageSourceConverters
 import ru.solrudev.ackpine.impl.database.converters.ResolvableStringConverters
+import ru.solrudev.ackpine.impl.database.converters.StagingBandwidthConverters
 import ru.solrudev.ackpine.impl.database.converters.TimeoutStrategyConverters
 import ru.solrudev.ackpine.impl.database.converters.UninstallFailureConverters
+import ru.solrudev.ackpine.impl.database.dao.ApkDigestDao
 import ru.solrudev.ackpine.impl.database.dao.ConfirmationLaunchDao
 import ru.solrudev.ackpine.impl.database.dao.InstallConstraintsDao
 import ru.solrudev.ackpine.impl.database.dao.InstallPreapprovalDao
@@ -39,8 +41,12 @@ import ru.solrudev.ackpine.impl.database.dao.NotificationIdDao
 import ru.solrudev.ackpine.impl.database.dao.SessionDao
 import ru.solrudev.ackpine.impl.database.dao.SessionNameDao
 import ru.solrudev.ackpine.impl.database.dao.SessionProgressDao
+import ru.solrudev.ackpine.impl.database.dao.StagingCheckpointDao
 import ru.solrudev.ackpine.impl.database.dao.UninstallSessionDao
+import ru.solrudev.ackpine.impl.database.model.ApkArchiveEntity
+import ru.solrudev.ackpine.impl.database.model.ApkDigestEntity
 import ru.solrudev.ackpine.impl.database.model.ConfirmationLaunchEntity
+import ru.solrudev.ackpine.impl.database.model.DurabilityPolicyEntity
 import ru.solrudev.ackpine.impl.database.model.InstallConstraintsEntity
 import ru.solrudev.ackpine.impl.database.model.InstallFailureEntity
 import ru.solrudev.ackpine.impl.database.model.InstallModeEntity
@@ -58,6 +64,8 @@ import ru.solrudev.ackpine.impl.database.model.SessionInstallerTypeEntity
 import ru.solrudev.ackpine.impl.database.model.SessionNameEntity
 import ru.solrudev.ackpine.impl.database.model.SessionProgressEntity
 import ru.solrudev.ackpine.impl.database.model.SessionUninstallerTypeEntity
+import ru.solrudev.ackpine.impl.database.model.StagingBandwidthEntity
+import ru.solrudev.ackpine.impl.database.model.StagingCheckpointEntity
 import ru.solrudev.ackpine.impl.database.model.UninstallFailureEntity
 import ru.solrudev.ackpine.impl.database.model.UpdateOwnershipEntity
 import kotlin.time.Duration.Companion.days
@@ -86,7 +94,12 @@ private const val PURGE_SQL = "DELETE FROM sessions WHERE state IN $TERMINAL_STA
 		PackageSourceEntity::class,
 		ConfirmationLaunchEntity::class,
 		PluginEntity::class,
-		SessionUninstallerTypeEntity::class
+		SessionUninstallerTypeEntity::class,
+		StagingCheckpointEntity::class,
+		ApkDigestEntity::class,
+		StagingBandwidthEntity::class,
+		DurabilityPolicyEntity::class,
+		ApkArchiveEntity::class
 	],
 	autoMigrations = [
 		AutoMigration(from = 1, to = 2),
@@ -99,9 +112,10 @@ private const val PURGE_SQL = "DELETE FROM sessions WHERE state IN $TERMINAL_STA
 		AutoMigration(from = 10, to = 11),
 		AutoMigration(from = 11, to = 12),
 		AutoMigration(from = 13, to = 14),
-		AutoMigration(from = 14, to = 15)
+		AutoMigration(from = 14, to = 15),
+		AutoMigration(from = 15, to = 16)
 	],
-	version = 15,
+	version = 16,
 	exportSchema = true
 )
 @TypeConverters(
@@ -111,7 +125,8 @@ private const val PURGE_SQL = "DELETE FROM sessions WHERE state IN $TERMINAL_STA
 		ResolvableStringConverters::class,
 		DrawableIdConverters::class,
 		TimeoutStrategyConverters::class,
-		PackageSourceConverters::class
+		PackageSourceConverters::class,
+		StagingBandwidthConverters::class
 	]
 )
 internal abstract class AckpineDatabase : RoomDatabase() {
@@ -127,6 +142,8 @@ internal abstract class AckpineDatabase : RoomDatabase() {
 	abstract fun installPreapprovalDao(): InstallPreapprovalDao
 	abstract fun installConstraintsDao(): InstallConstraintsDao
 	abstract fun confirmationLaunchDao(): ConfirmationLaunchDao
+	abstract fun stagingCheckpointDao(): StagingCheckpointDao
+	abstract fun apkDigestDao(): ApkDigestDao
 
 	internal companion object : DatabaseSingleton<AckpineDatabase>(
 		databaseClass = AckpineDatabase::class.java,
@@ -25,13 +25,17 @@ import ru.solrudev.ackpine.plugability.AckpinePlugin
 import ru.solrudev.ackpine.plugability.AckpinePluginContainer
 import ru.solrudev.ackpine.session.Failure
 import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
 import ru.solrudev.ackpine.session.parameters.NotificationData
 
 @JvmSynthetic
 internal fun <F : Failure> HasSession.getState(
-	sessionFailureDao: SessionFailureDao<F>
+	sessionFailureDao: SessionFailureDao<F>,
+	failure: F? = null
 ): Session.State<F> {
-	return session.state.toSessionState(session.id, sessionFailureDao)
+	return session.state.toSessionState {
+		failure ?: sessionFailureDao.getFailure(session.id)
+	}
 }
 
 @JvmSynthetic
@@ -59,9 +63,17 @@ internal fun AckpinePluginContainer.toEntityList(sessionId: String): List<Plugin
 	}
 }
 
-private fun <F : Failure> SessionEntity.State.toSessionState(
-	id: String,
-	sessionFailureDao: SessionFailureDao<F>
+@JvmSynthetic
+internal fun SessionSnapshotQuery.getEntityStates(): List<String> {
+	if (stateTypes.isEmpty()) {
+		return SessionEntity.State.entries.map { it.name }
+	}
+	return stateTypes.map { stateType -> stateType.toEntityState().name }
+}
+
+@JvmSynthetic
+internal inline fun <F : Failure> SessionEntity.State.toSessionState(
+	failure: () -> F?
 ): Session.State<F> = when (this) {
 	SessionEntity.State.PENDING -> Session.State.Pending
 	SessionEntity.State.ACTIVE -> Session.State.Active
@@ -69,8 +81,15 @@ private fun <F : Failure> SessionEntity.State.toSessionState(
 	SessionEntity.State.COMMITTED -> Session.State.Committed
 	SessionEntity.State.CANCELLED -> Session.State.Cancelled
 	SessionEntity.State.SUCCEEDED -> Session.State.Succeeded
-	SessionEntity.State.FAILED -> {
-		val failure = sessionFailureDao.getFailure(id)
-		Session.State.Failed(failure!!)
-	}
+	SessionEntity.State.FAILED -> Session.State.Failed(failure()!!)
+}
+
+private fun SessionSnapshotQuery.StateType.toEntityState() = when (this) {
+	SessionSnapshotQuery.StateType.PENDING -> SessionEntity.State.PENDING
+	SessionSnapshotQuery.StateType.ACTIVE -> SessionEntity.State.ACTIVE
+	SessionSnapshotQuery.StateType.AWAITING -> SessionEntity.State.AWAITING
+	SessionSnapshotQuery.StateType.COMMITTED -> SessionEntity.State.COMMITTED
+	SessionSnapshotQuery.StateType.CANCELLED -> SessionEntity.State.CANCELLED
+	SessionSnapshotQuery.StateType.SUCCEEDED -> SessionEntity.State.SUCCEEDED
+	SessionSnapshotQuery.StateType.FAILED -> SessionEntity.State.FAILED
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database
+
+import android.os.Handler
+import androidx.annotation.RestrictTo
+import androidx.room.InvalidationTracker
+import ru.solrudev.ackpine.DisposableSubscription
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
+import ru.solrudev.ackpine.DummyDisposableSubscription
+import ru.solrudev.ackpine.session.Failure
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsDiff
+import ru.solrudev.ackpine.session.SessionSnapshotsListener
+import java.util.UUID
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
+
+private const val SESSIONS_TABLE = "sessions"
+private const val SESSIONS_PROGRESS_TABLE = "sessions_progress"
+
+/**
+ * Publishes changes of [session snapshots][SessionSnapshot] to [SessionSnapshotsListener]s.
+ *
+ * Snapshots of each listener's query are reloaded when Room's [InvalidationTracker] reports changes of sessions or
+ * their progress. Invalidations arriving while a reload is pending are coalesced into it. Each listener keeps the
+ * snapshots it was last notified with and receives only the difference with the reloaded ones.
+ *
+ * Invalidation tracker is observed only while there are registered listeners.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+internal class SessionSnapshotsPublisher<F : Failure> internal constructor(
+	private val invalidationTracker: InvalidationTracker,
+	private val executor: Executor,
+	private val handler: Handler,
+	private val loadSnapshots: (SessionSnapshotQuery) -> List<SessionSnapshot<F>>
+) {
+
+	// Guards subscriptions
+	private val lock = Any()
+
+	// Serializes changes of invalidation tracker observer registration
+	private val observerLock = Any()
+
+	private val subscriptions = LinkedHashMap<SessionSnapshotsListener<F>, Subscription>()
+	private var isObserving = false
+
+	private val observer = object : InvalidationTracker.Observer(arrayOf(SESSIONS_TABLE, SESSIONS_PROGRESS_TABLE)) {
+		override fun onInvalidated(tables: Set<String>) {
+			val subscriptions = synchronized(lock) { subscriptions.values.toList() }
+			for (subscription in subscriptions) {
+				subscription.requestRefresh()
+			}
+		}
+	}
+
+	@JvmSynthetic
+	internal fun addListener(
+		subscriptionContainer: DisposableSubscriptionContainer,
+		query: SessionSnapshotQuery,
+		listener: SessionSnapshotsListener<F>
+	): DisposableSubscription {
+		val subscription = synchronized(lock) {
+			if (listener in subscriptions) {
+				return DummyDisposableSubscription
+			}
+			Subscription(query, listener).also { subscriptions[listener] = it }
+		}
+		// Observer is registered before the initial load, so that changes made right after it are not missed
+		executor.execute {
+			updateObserverRegistration()
+			subscription.refresh()
+		}
+		subscriptionContainer.add(subscription)
+		return subscription
+	}
+
+	@JvmSynthetic
+	internal fun removeListener(listener: SessionSnapshotsListener<F>) {
+		synchronized(lock) { subscriptions[listener] }?.dispose()
+	}
+
+	private fun remove(subscription: Subscription) {
+		val isLastRemoved = synchronized(lock) {
+			subscriptions.remove(subscription.listener, subscription) && subscriptions.isEmpty()
+		}
+		if (isLastRemoved) {
+			executor.execute(::updateObserverRegistration)
+		}
+	}
+
+	// InvalidationTracker may access the database when adding an observer, so this should be called on executor
+	private fun updateObserverRegistration() {
+		synchronized(observerLock) {
+			val shouldObserve = synchronized(lock) { subscriptions.isNotEmpty() }
+			if (shouldObserve == isObserving) {
+				return
+			}
+			if (shouldObserve) {
+				invalidationTracker.addObserver(observer)
+			} else {
+				invalidationTracker.removeObserver(observer)
+			}
+			isObserving = shouldObserve
+		}
+	}
+
+	private inner class Subscription(
+		val query: SessionSnapshotQuery,
+		val listener: SessionSnapshotsListener<F>
+	) : DisposableSubscription {
+
+		override val isDisposed: Boolean
+			get() = _isDisposed.get()
+
+		private val _isDisposed = AtomicBoolean(false)
+		private val isRefreshScheduled = AtomicBoolean(false)
+
+		// Guarded by this subscription, null until the initial load
+		private var snapshots: Map<UUID, SessionSnapshot<F>>? = null
+
+		fun requestRefresh() {
+			if (!isRefreshScheduled.compareAndSet(false, true)) {
+				return
+			}
+			executor.execute {
+				isRefreshScheduled.set(false)
+				refresh()
+			}
+		}
+
+		fun refresh() {
+			synchronized(this) {
+				if (isDisposed) {
+					return
+				}
+				val previousSnapshots = snapshots
+				val currentSnapshots = loadSnapshots(query).associateByTo(LinkedHashMap()) { it.id }
+				snapshots = currentSnapshots
+				val diff = diff(previousSnapshots.orEmpty(), currentSnapshots)
+				if (previousSnapshots != null && diff.isEmpty()) {
+					return
+				}
+				handler.post {
+					if (!isDisposed) {
+						listener.onSnapshotsChanged(diff)
+					}
+				}
+			}
+		}
+
+		override fun dispose() {
+			if (_isDisposed.compareAndSet(false, true)) {
+				remove(this)
+			}
+		}
+	}
+}
+
+private fun <F : Failure> diff(
+	previous: Map<UUID, SessionSnapshot<F>>,
+	current: Map<UUID, SessionSnapshot<F>>
+): SessionSnapshotsDiff<F> {
+	val added = current.values.filter { snapshot -> snapshot.id !in previous }
+	val removed = previous.values.filter { snapshot -> snapshot.id !in current }
+	val changed = current.values.filter { snapshot ->
+		val previousSnapshot = previous[snapshot.id]
+		previousSnapshot != null && previousSnapshot != snapshot
+	}
+	return SessionSnapshotsDiff(added, removed, changed)
+}
+
+private fun SessionSnapshotsDiff<*>.isEmpty() = added.isEmpty() && removed.isEmpty() && changed.isEmpty()
\ No newline at end of file
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database
+
+import android.os.Handler
+import android.os.Looper
+import androidx.annotation.RestrictTo
+import androidx.annotation.VisibleForTesting
+import ru.solrudev.ackpine.impl.database.dao.SessionDao
+import ru.solrudev.ackpine.impl.database.dao.SessionFailureDao
+import ru.solrudev.ackpine.impl.database.dao.SessionProgressDao
+import ru.solrudev.ackpine.impl.database.model.SessionEntity
+import ru.solrudev.ackpine.session.Failure
+import ru.solrudev.ackpine.session.Progress
+import java.util.concurrent.Executor
+
+private const val DEFAULT_FLUSH_DELAY_MILLIS = 250L
+
+/**
+ * Write-behind journal for frequent session writes shared between all sessions.
+ *
+ * Progress updates are coalesced per session, keeping only the latest value, and are written in a single transaction
+ * at most once per flush delay.
+ *
+ * State transitions and launch/commit timestamps are written through synchronously, as they were without the journal.
+ * Timestamps are relied upon right after process death, e.g. to detect a self-update after commit, so they're never
+ * delayed. Before a state transition of a session is written, pending progress of this session is flushed in the same
+ * transaction, so a persisted state is never older than the progress preceding it. Only coalesced progress of the
+ * last flush delay can be lost if the process dies.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+internal class SessionWriteJournal internal constructor(
+	private val sessionDao: SessionDao,
+	private val sessionProgressDao: SessionProgressDao,
+	private val runInTransaction: (Runnable) -> Unit,
+	private val executor: Executor,
+	private val handler: Handler,
+	private val flushDelayMillis: Long = DEFAULT_FLUSH_DELAY_MILLIS
+) : SessionDao, SessionProgressDao {
+
+	// Guards pending writes
+	private val lock = Any()
+
+	// Serializes database writes of the journal, so that a flushed batch can't be committed after a newer write
+	private val writeLock = Any()
+
+	private val pendingWrites = LinkedHashMap<String, PendingWrites>()
+	private var isFlushScheduled = false
+	private val flushRunnable = Runnable { executor.execute(::flush) }
+
+	override fun insertSession(session: SessionEntity) {
+		sessionDao.insertSession(session)
+	}
+
+	override fun updateSessionState(id: String, state: SessionEntity.State) = synchronized(writeLock) {
+		val writes = takePendingWrites(id)
+		runInTransaction {
+			writes?.let(::write)
+			sessionDao.updateSessionState(id, state)
+		}
+	}
+
+	override fun updateLastLaunchTimestamp(id: String, lastLaunchTimestamp: Long) = synchronized(writeLock) {
+		sessionDao.updateLastLaunchTimestamp(id, lastLaunchTimestamp)
+	}
+
+	override fun updateLastCommitTimestamp(id: String, lastCommitTimestamp: Long) = synchronized(writeLock) {
+		sessionDao.updateLastCommitTimestamp(id, lastCommitTimestamp)
+	}
+
+	override fun getProgress(id: String): Progress? {
+		val pendingProgress = synchronized(lock) { pendingWrites[id]?.progress }
+		return pendingProgress ?: sessionProgressDao.getProgress(id)
+	}
+
+	override fun initProgress(id: String) {
+		sessionProgressDao.initProgress(id)
+	}
+
+	override fun updateProgress(id: String, progress: Int, max: Int) = enqueue(id) {
+		this.progress = Progress(progress, max)
+	}
+
+	/**
+	 * Returns [SessionFailureDao] which flushes pending writes of a session before persisting its failure.
+	 */
+	@JvmSynthetic
+	internal fun <F : Failure> withFailureDao(sessionFailureDao: SessionFailureDao<F>): SessionFailureDao<F> {
+		return JournalingSessionFailureDao(sessionFailureDao)
+	}
+
+	/**
+	 * Writes all pending writes in a single transaction.
+	 */
+	@VisibleForTesting
+	@JvmSynthetic
+	internal fun flush() {
+		synchronized(writeLock) {
+			val writes = synchronized(lock) {
+				isFlushScheduled = false
+				pendingWrites.values.toList().also { pendingWrites.clear() }
+			}
+			if (writes.isEmpty()) {
+				return
+			}
+			runInTransaction {
+				for (pending in writes) {
+					write(pending)
+				}
+			}
+		}
+	}
+
+	private inline fun enqueue(id: String, update: PendingWrites.() -> Unit) = synchronized(lock) {
+		pendingWrites.getOrPut(id) { PendingWrites(id) }.update()
+		if (!isFlushScheduled) {
+			isFlushScheduled = true
+			handler.postDelayed(flushRunnable, flushDelayMillis)
+		}
+	}
+
+	private fun takePendingWrites(id: String) = synchronized(lock) {
+		pendingWrites.remove(id)
+	}
+
+	private fun write(pending: PendingWrites) {
+		pending.progress?.let { sessionProgressDao.updateProgress(pending.id, it.progress, it.max) }
+	}
+
+	private inner class JournalingSessionFailureDao<F : Failure>(
+		private val sessionFailureDao: SessionFailureDao<F>
+	) : SessionFailureDao<F> {
+
+		override fun getFailure(id: String) = sessionFailureDao.getFailure(id)
+
+		override fun setFailure(id: String, failure: F) = synchronized(writeLock) {
+			val writes = takePendingWrites(id)
+			runInTransaction {
+				writes?.let(::write)
+				sessionFailureDao.setFailure(id, failure)
+			}
+		}
+	}
+
+	private class PendingWrites(val id: String) {
+		var progress: Progress? = null
+	}
+
+	internal companion object {
+
+		private val instanceLock = Any()
+
+		@Volatile
+		private var journal: SessionWriteJournal? = null
+
+		/**
+		 * Returns a singleton instance of [SessionWriteJournal] for the [database].
+		 */
+		@JvmSynthetic
+		internal fun getInstance(database: AckpineDatabase, executor: Executor): SessionWriteJournal {
+			var instance = journal
+			if (instance != null) {
+				return instance
+			}
+			synchronized(instanceLock) {
+				instance = journal
+				if (instance == null) {
+					instance = SessionWriteJournal(
+						database.sessionDao(),
+						database.sessionProgressDao(),
+						database::runInTransaction,
+						executor,
+						Handler(Looper.getMainLooper())
+					)
+					journal = instance
+				}
+			}
+			return instance!!
+		}
+	}
+}
\ No newline at end of file
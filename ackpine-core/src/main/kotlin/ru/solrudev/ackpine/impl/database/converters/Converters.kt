@@ -21,6 +21,7 @@ import ru.solrudev.ackpine.installer.InstallFailure
 import ru.solrudev.ackpine.installer.parameters.InstallConstraints.TimeoutStrategy
 import ru.solrudev.ackpine.installer.parameters.PackageSource
 import ru.solrudev.ackpine.installer.parameters.PackageSource.Unspecified
+import ru.solrudev.ackpine.installer.parameters.StagingBandwidth
 import ru.solrudev.ackpine.installer.parameters.packageSources
 import ru.solrudev.ackpine.resources.ResolvableString
 import ru.solrudev.ackpine.session.parameters.DrawableId
@@ -78,4 +79,13 @@ internal object PackageSourceConverters {
 
 	@TypeConverter
 	internal fun toByteArray(packageSource: PackageSource) = packageSource.ordinal
+}
+
+internal object StagingBandwidthConverters {
+
+	@TypeConverter
+	internal fun fromByteArray(byteArray: ByteArray): StagingBandwidth = byteArray.deserialize()
+
+	@TypeConverter
+	internal fun toByteArray(stagingBandwidth: StagingBandwidth): ByteArray = stagingBandwidth.serialize()
 }
\ No newline at end of file
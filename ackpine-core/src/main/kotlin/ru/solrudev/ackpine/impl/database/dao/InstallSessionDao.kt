@@ -23,6 +23,7 @@ import androidx.room.OnConflictStrategy
 import androidx.room.Query
 import androidx.room.Transaction
 import ru.solrudev.ackpine.impl.database.AckpineDatabase
+import ru.solrudev.ackpine.impl.database.model.ApkDigestEntity
 import ru.solrudev.ackpine.impl.database.model.InstallConstraintsEntity
 import ru.solrudev.ackpine.impl.database.model.InstallModeEntity
 import ru.solrudev.ackpine.impl.database.model.InstallPreapprovalEntity
@@ -30,8 +31,68 @@ import ru.solrudev.ackpine.impl.database.model.InstallUriEntity
 import ru.solrudev.ackpine.impl.database.model.PluginEntity
 import ru.solrudev.ackpine.impl.database.model.SessionEntity
 import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.DurabilityPolicy
 import ru.solrudev.ackpine.installer.parameters.InstallerType
 import ru.solrudev.ackpine.installer.parameters.PackageSource
+import ru.solrudev.ackpine.installer.parameters.StagingBandwidth
+
+private const val SELECT_INSTALL_SESSIONS = "SELECT sessions.*, " +
+	"installer_types.installer_type AS installer_type, " +
+	"names.name AS name, " +
+	"notification_ids.notification_id AS notification_id, " +
+	"install_modes.session_id AS install_mode_session_id, " +
+	"install_modes.install_mode AS install_mode_install_mode, " +
+	"install_modes.dont_kill_app AS install_mode_dont_kill_app, " +
+	"(SELECT package_name FROM sessions_package_names WHERE session_id = sessions.id ORDER BY id DESC LIMIT 1) " +
+	"AS package_name, " +
+	"last_update_timestamps.last_update_timestamp AS last_update_timestamp, " +
+	"preapprovals.session_id AS preapproval_session_id, " +
+	"preapprovals.package_name AS preapproval_package_name, " +
+	"preapprovals.label AS preapproval_label, " +
+	"preapprovals.locale AS preapproval_locale, " +
+	"preapprovals.icon AS preapproval_icon, " +
+	"preapprovals.fallback_to_on_demand_approval AS preapproval_fallback_to_on_demand_approval, " +
+	"preapprovals.is_preapproved AS preapproval_is_preapproved, " +
+	"preapprovals.is_activating AS preapproval_is_activating, " +
+	"preapprovals.is_active AS preapproval_is_active, " +
+	"install_constraints.session_id AS constraints_session_id, " +
+	"install_constraints.is_app_not_foreground_required AS constraints_is_app_not_foreground_required, " +
+	"install_constraints.is_app_not_interacting_required AS constraints_is_app_not_interacting_required, " +
+	"install_constraints.is_app_not_top_visible_required AS constraints_is_app_not_top_visible_required, " +
+	"install_constraints.is_device_idle_required AS constraints_is_device_idle_required, " +
+	"install_constraints.is_not_in_call_required AS constraints_is_not_in_call_required, " +
+	"install_constraints.timeout_millis AS constraints_timeout_millis, " +
+	"install_constraints.timeout_strategy AS constraints_timeout_strategy, " +
+	"install_constraints.commit_attempts_count AS constraints_commit_attempts_count, " +
+	"update_ownerships.request_update_ownership AS request_update_ownership, " +
+	"package_sources.package_source AS package_source, " +
+	"native_session_ids.native_session_id AS native_session_id, " +
+	"confirmation_launches.was_confirmation_launched AS was_confirmation_launched, " +
+	"staging_bandwidths.staging_bandwidth AS staging_bandwidth, " +
+	"durability_policies.durability_policy AS durability_policy, " +
+	"apk_archives.archive_uri AS archive_uri, " +
+	"progresses.progress AS progress, " +
+	"progresses.max AS progress_max, " +
+	"failures.failure AS failure " +
+	"FROM sessions " +
+	"LEFT JOIN sessions_installer_types AS installer_types ON installer_types.session_id = sessions.id " +
+	"LEFT JOIN sessions_names AS names ON names.session_id = sessions.id " +
+	"LEFT JOIN sessions_notification_ids AS notification_ids ON notification_ids.session_id = sessions.id " +
+	"LEFT JOIN sessions_install_modes AS install_modes ON install_modes.session_id = sessions.id " +
+	"LEFT JOIN sessions_last_install_timestamps AS last_update_timestamps " +
+	"ON last_update_timestamps.session_id = sessions.id " +
+	"LEFT JOIN sessions_install_preapproval AS preapprovals ON preapprovals.session_id = sessions.id " +
+	"LEFT JOIN sessions_install_constraints AS install_constraints ON install_constraints.session_id = sessions.id " +
+	"LEFT JOIN sessions_update_ownership AS update_ownerships ON update_ownerships.session_id = sessions.id " +
+	"LEFT JOIN sessions_package_sources AS package_sources ON package_sources.session_id = sessions.id " +
+	"LEFT JOIN sessions_native_session_ids AS native_session_ids ON native_session_ids.session_id = sessions.id " +
+	"LEFT JOIN sessions_confirmation_launches AS confirmation_launches " +
+	"ON confirmation_launches.session_id = sessions.id " +
+	"LEFT JOIN sessions_staging_bandwidths AS staging_bandwidths ON staging_bandwidths.session_id = sessions.id " +
+	"LEFT JOIN sessions_durability_policies AS durability_policies ON durability_policies.session_id = sessions.id " +
+	"LEFT JOIN sessions_apk_archives AS apk_archives ON apk_archives.session_id = sessions.id " +
+	"LEFT JOIN sessions_progress AS progresses ON progresses.session_id = sessions.id " +
+	"LEFT JOIN sessions_install_failures AS failures ON failures.session_id = sessions.id "
 
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 @Dao
@@ -78,20 +139,50 @@ internal abstract class InstallSessionDao protected constructor(private val data
 		if (session.packageSource != null) {
 			insertPackageSource(session.session.id, session.packageSource)
 		}
+		insertDigests(session.digests)
+		if (session.stagingBandwidth != null) {
+			insertStagingBandwidth(session.session.id, session.stagingBandwidth)
+		}
+		if (session.durabilityPolicy != null) {
+			insertDurabilityPolicy(session.session.id, session.durabilityPolicy)
+		}
+		if (session.archiveUri != null) {
+			insertApkArchive(session.session.id, session.archiveUri)
+		}
 	}
 
 	@Transaction
-	@Query("SELECT * FROM sessions WHERE id = :id AND type = 'INSTALL'")
+	@Query("$SELECT_INSTALL_SESSIONS WHERE sessions.id = :id AND sessions.type = 'INSTALL'")
 	abstract fun getInstallSession(id: String): SessionEntity.InstallSession?
 
 	@Transaction
-	@Query("SELECT * FROM sessions WHERE type = 'INSTALL'")
+	@Query("$SELECT_INSTALL_SESSIONS WHERE sessions.type = 'INSTALL'")
 	abstract fun getInstallSessions(): List<SessionEntity.InstallSession>
 
 	@Transaction
-	@Query("SELECT * FROM sessions WHERE state = 'COMMITTED' AND type = 'INSTALL' ORDER BY last_commit_timestamp DESC")
+	@Query(
+		"$SELECT_INSTALL_SESSIONS WHERE sessions.state = 'COMMITTED' AND sessions.type = 'INSTALL' " +
+			"ORDER BY sessions.last_commit_timestamp DESC"
+	)
 	abstract fun getCommittedInstallSessions(): List<SessionEntity.InstallSession>
 
+	@Query(
+		"SELECT sessions.id, sessions.state, sessions.last_launch_timestamp, sessions.last_commit_timestamp, " +
+			"names.name AS name, progresses.progress AS progress, progresses.max AS progress_max, " +
+			"failures.failure AS failure " +
+			"FROM sessions " +
+			"LEFT JOIN sessions_names AS names ON names.session_id = sessions.id " +
+			"LEFT JOIN sessions_progress AS progresses ON progresses.session_id = sessions.id " +
+			"LEFT JOIN sessions_install_failures AS failures ON failures.session_id = sessions.id " +
+			"WHERE sessions.type = 'INSTALL' AND sessions.state IN (:states) " +
+			"ORDER BY sessions.rowid DESC LIMIT :limit OFFSET :offset"
+	)
+	abstract fun getInstallSessionSnapshots(
+		states: List<String>,
+		limit: Int,
+		offset: Int
+	): List<SessionEntity.InstallSessionSnapshot>
+
 	@Query("INSERT OR IGNORE INTO sessions_install_failures(session_id, failure) VALUES (:id, :failure)")
 	protected abstract fun insertInstallFailure(id: String, failure: InstallFailure)
 
@@ -124,4 +215,22 @@ internal abstract class InstallSessionDao protected constructor(private val data
 
 	@Insert(onConflict = OnConflictStrategy.IGNORE)
 	protected abstract fun insertPlugins(plugins: List<PluginEntity>)
+
+	@Insert(onConflict = OnConflictStrategy.IGNORE)
+	protected abstract fun insertDigests(digests: List<ApkDigestEntity>)
+
+	@Query(
+		"INSERT OR IGNORE INTO sessions_staging_bandwidths(session_id, staging_bandwidth) " +
+				"VALUES (:id, :stagingBandwidth)"
+	)
+	protected abstract fun insertStagingBandwidth(id: String, stagingBandwidth: StagingBandwidth)
+
+	@Query(
+		"INSERT OR IGNORE INTO sessions_durability_policies(session_id, durability_policy) " +
+				"VALUES (:id, :durabilityPolicy)"
+	)
+	protected abstract fun insertDurabilityPolicy(id: String, durabilityPolicy: DurabilityPolicy)
+
+	@Query("INSERT OR IGNORE INTO sessions_apk_archives(session_id, archive_uri) VALUES (:id, :archiveUri)")
+	protected abstract fun insertApkArchive(id: String, archiveUri: String)
 }
\ No newline at end of file
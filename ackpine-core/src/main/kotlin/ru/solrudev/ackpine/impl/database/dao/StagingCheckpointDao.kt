@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database.dao
+
+import androidx.annotation.RestrictTo
+import androidx.room.Dao
+import androidx.room.Query
+import ru.solrudev.ackpine.impl.database.model.StagingCheckpointEntity
+
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+@Dao
+internal interface StagingCheckpointDao {
+
+	@Query("SELECT * FROM sessions_staging_checkpoints WHERE session_id = :sessionId")
+	fun getCheckpoints(sessionId: String): List<StagingCheckpointEntity>
+
+	@Query(
+		"INSERT OR REPLACE INTO sessions_staging_checkpoints" +
+				"(session_id, apk_index, range_offset, range_length, staged_bytes, source_length, source_checksum) " +
+				"VALUES (:sessionId, :apkIndex, :rangeOffset, :rangeLength, :stagedBytes, :sourceLength, :sourceChecksum)"
+	)
+	fun setCheckpoint(
+		sessionId: String,
+		apkIndex: Int,
+		rangeOffset: Long,
+		rangeLength: Long,
+		stagedBytes: Long,
+		sourceLength: Long,
+		sourceChecksum: Long
+	)
+
+	@Query("DELETE FROM sessions_staging_checkpoints WHERE session_id = :sessionId AND apk_index = :apkIndex")
+	fun clearApkCheckpoints(sessionId: String, apkIndex: Int)
+
+	@Query("DELETE FROM sessions_staging_checkpoints WHERE session_id = :sessionId")
+	fun clearCheckpoints(sessionId: String)
+}
\ No newline at end of file
@@ -28,6 +28,17 @@ import ru.solrudev.ackpine.impl.database.model.SessionEntity
 import ru.solrudev.ackpine.uninstaller.UninstallFailure
 import ru.solrudev.ackpine.uninstaller.parameters.UninstallerType
 
+private const val SELECT_UNINSTALL_SESSIONS = "SELECT sessions.*, " +
+	"(SELECT package_name FROM sessions_package_names WHERE session_id = sessions.id ORDER BY id DESC LIMIT 1) " +
+	"AS package_name, " +
+	"uninstaller_types.uninstaller_type AS uninstaller_type, " +
+	"notification_ids.notification_id AS notification_id, " +
+	"failures.failure AS failure " +
+	"FROM sessions " +
+	"LEFT JOIN sessions_uninstaller_types AS uninstaller_types ON uninstaller_types.session_id = sessions.id " +
+	"LEFT JOIN sessions_notification_ids AS notification_ids ON notification_ids.session_id = sessions.id " +
+	"LEFT JOIN sessions_uninstall_failures AS failures ON failures.session_id = sessions.id "
+
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 @Dao
 internal abstract class UninstallSessionDao protected constructor(private val database: AckpineDatabase) :
@@ -52,13 +63,29 @@ internal abstract class UninstallSessionDao protected constructor(private val da
 	}
 
 	@Transaction
-	@Query("SELECT * FROM sessions WHERE id = :id AND type = 'UNINSTALL'")
+	@Query("$SELECT_UNINSTALL_SESSIONS WHERE sessions.id = :id AND sessions.type = 'UNINSTALL'")
 	abstract fun getUninstallSession(id: String): SessionEntity.UninstallSession?
 
 	@Transaction
-	@Query("SELECT * FROM sessions WHERE type = 'UNINSTALL'")
+	@Query("$SELECT_UNINSTALL_SESSIONS WHERE sessions.type = 'UNINSTALL'")
 	abstract fun getUninstallSessions(): List<SessionEntity.UninstallSession>
 
+	@Query(
+		"SELECT sessions.id, sessions.state, sessions.last_launch_timestamp, sessions.last_commit_timestamp, " +
+			"(SELECT package_name FROM sessions_package_names WHERE session_id = sessions.id ORDER BY id DESC " +
+			"LIMIT 1) AS package_name, " +
+			"failures.failure AS failure " +
+			"FROM sessions " +
+			"LEFT JOIN sessions_uninstall_failures AS failures ON failures.session_id = sessions.id " +
+			"WHERE sessions.type = 'UNINSTALL' AND sessions.state IN (:states) " +
+			"ORDER BY sessions.rowid DESC LIMIT :limit OFFSET :offset"
+	)
+	abstract fun getUninstallSessionSnapshots(
+		states: List<String>,
+		limit: Int,
+		offset: Int
+	): List<SessionEntity.UninstallSessionSnapshot>
+
 	@Query("INSERT OR IGNORE INTO sessions_uninstaller_types(session_id, uninstaller_type) VALUES (:id, :uninstallerType)")
 	protected abstract fun insertUninstallerType(id: String, uninstallerType: UninstallerType)
 
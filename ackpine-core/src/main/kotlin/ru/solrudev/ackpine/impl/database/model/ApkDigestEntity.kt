@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database.model
+
+import androidx.annotation.RestrictTo
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import ru.solrudev.ackpine.installer.parameters.ApkDigests
+
+/**
+ * Digest of an APK which is computed while writing it to a native install session.
+ *
+ * [expectedDigest] is provided by client, and [stagedDigest] is present only after the APK was written.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+@Entity(
+	tableName = "sessions_apk_digests",
+	primaryKeys = ["session_id", "apk_index"],
+	foreignKeys = [ForeignKey(
+		entity = SessionEntity::class,
+		parentColumns = ["id"],
+		childColumns = ["session_id"],
+		onDelete = ForeignKey.CASCADE,
+		onUpdate = ForeignKey.CASCADE
+	)]
+)
+internal class ApkDigestEntity internal constructor(
+	@JvmField
+	@ColumnInfo(name = "session_id")
+	val sessionId: String,
+	@JvmField
+	@ColumnInfo(name = "apk_index")
+	val apkIndex: Int,
+	@JvmField
+	@ColumnInfo(name = "algorithm")
+	val algorithm: ApkDigests.Algorithm,
+	@JvmField
+	@ColumnInfo(name = "expected_digest")
+	val expectedDigest: String?,
+	@JvmField
+	@ColumnInfo(name = "staged_digest")
+	val stagedDigest: String? = null
+)
\ No newline at end of file
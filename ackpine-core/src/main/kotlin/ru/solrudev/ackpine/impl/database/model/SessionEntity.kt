@@ -22,11 +22,15 @@ import androidx.room.Embedded
 import androidx.room.Entity
 import androidx.room.PrimaryKey
 import androidx.room.Relation
+import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.DurabilityPolicy
 import ru.solrudev.ackpine.installer.parameters.InstallerType
 import ru.solrudev.ackpine.installer.parameters.PackageSource
+import ru.solrudev.ackpine.installer.parameters.StagingBandwidth
 import ru.solrudev.ackpine.resources.ResolvableString
 import ru.solrudev.ackpine.session.parameters.Confirmation
 import ru.solrudev.ackpine.session.parameters.DrawableId
+import ru.solrudev.ackpine.uninstaller.UninstallFailure
 import ru.solrudev.ackpine.uninstaller.parameters.UninstallerType
 
 @RestrictTo(RestrictTo.Scope.LIBRARY)
@@ -84,17 +88,16 @@ internal class SessionEntity internal constructor(
 		}
 	}
 
+	/**
+	 * Install session hydrated by a single joined query (see `InstallSessionDao`). One-to-one side tables are read as
+	 * columns of the joined row, only one-to-many tables are loaded as relations.
+	 */
 	@RestrictTo(RestrictTo.Scope.LIBRARY)
 	internal class InstallSession internal constructor(
 		@Embedded
 		override val session: SessionEntity,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = SessionInstallerTypeEntity::class,
-			projection = ["installer_type"]
-		)
+		@ColumnInfo(name = "installer_type")
 		val installerType: InstallerType,
 		@JvmField
 		@Relation(
@@ -110,123 +113,145 @@ internal class SessionEntity internal constructor(
 		)
 		override val plugins: List<PluginEntity>,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = SessionNameEntity::class,
-			projection = ["name"]
-		)
+		@ColumnInfo(name = "name")
 		val name: String?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = NotificationIdEntity::class,
-			projection = ["notification_id"]
-		)
+		@ColumnInfo(name = "notification_id")
 		val notificationId: Int?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id"
-		)
+		@Embedded(prefix = "install_mode_")
 		val installMode: InstallModeEntity?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = PackageNameEntity::class,
-			projection = ["package_name"]
-		)
+		@ColumnInfo(name = "package_name")
 		val packageName: String?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = LastUpdateTimestampEntity::class,
-			projection = ["last_update_timestamp"]
-		)
+		@ColumnInfo(name = "last_update_timestamp")
 		val lastUpdateTimestamp: Long?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id"
-		)
+		@Embedded(prefix = "preapproval_")
 		val preapproval: InstallPreapprovalEntity?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id"
-		)
+		@Embedded(prefix = "constraints_")
 		val constraints: InstallConstraintsEntity?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = UpdateOwnershipEntity::class,
-			projection = ["request_update_ownership"]
-		)
+		@ColumnInfo(name = "request_update_ownership")
 		val requestUpdateOwnership: Boolean?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = PackageSourceEntity::class,
-			projection = ["package_source"]
-		)
+		@ColumnInfo(name = "package_source")
 		val packageSource: PackageSource?,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = NativeSessionIdEntity::class,
-			projection = ["native_session_id"]
-		)
+		@ColumnInfo(name = "native_session_id")
 		val nativeSessionId: Int? = -1,
 		@JvmField
+		@ColumnInfo(name = "was_confirmation_launched")
+		val wasConfirmationLaunched: Boolean? = false,
+		@JvmField
 		@Relation(
 			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = ConfirmationLaunchEntity::class,
-			projection = ["was_confirmation_launched"]
+			entityColumn = "session_id"
 		)
-		val wasConfirmationLaunched: Boolean? = false
+		val digests: List<ApkDigestEntity> = emptyList(),
+		@JvmField
+		@ColumnInfo(name = "staging_bandwidth")
+		val stagingBandwidth: StagingBandwidth? = null,
+		@JvmField
+		@ColumnInfo(name = "durability_policy")
+		val durabilityPolicy: DurabilityPolicy? = null,
+		@JvmField
+		@ColumnInfo(name = "archive_uri")
+		val archiveUri: String? = null,
+		@JvmField
+		@ColumnInfo(name = "progress")
+		val progress: Int? = null,
+		@JvmField
+		@ColumnInfo(name = "progress_max")
+		val progressMax: Int? = null,
+		@JvmField
+		@ColumnInfo(name = "failure")
+		val failure: InstallFailure? = null
 	) : HasSession, HasPlugins
 
+	/**
+	 * Uninstall session hydrated by a single joined query (see `UninstallSessionDao`).
+	 */
 	@RestrictTo(RestrictTo.Scope.LIBRARY)
 	internal class UninstallSession internal constructor(
 		@Embedded
 		override val session: SessionEntity,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = PackageNameEntity::class,
-			projection = ["package_name"]
-		)
+		@ColumnInfo(name = "package_name")
 		val packageName: String,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = SessionUninstallerTypeEntity::class,
-			projection = ["uninstaller_type"]
-		)
+		@ColumnInfo(name = "uninstaller_type")
 		val uninstallerType: UninstallerType,
 		@JvmField
-		@Relation(
-			parentColumn = "id",
-			entityColumn = "session_id",
-			entity = NotificationIdEntity::class,
-			projection = ["notification_id"]
-		)
+		@ColumnInfo(name = "notification_id")
 		val notificationId: Int?,
 		@Relation(
 			parentColumn = "id",
 			entityColumn = "session_id"
 		)
-		override val plugins: List<PluginEntity>
+		override val plugins: List<PluginEntity>,
+		@JvmField
+		@ColumnInfo(name = "failure")
+		val failure: UninstallFailure? = null
 	) : HasSession, HasPlugins
+
+	/**
+	 * Projection of an install session read for a session snapshot.
+	 */
+	@RestrictTo(RestrictTo.Scope.LIBRARY)
+	internal class InstallSessionSnapshot internal constructor(
+		@JvmField
+		@ColumnInfo(name = "id")
+		val id: String,
+		@JvmField
+		@ColumnInfo(name = "state")
+		val state: State,
+		@JvmField
+		@ColumnInfo(name = "last_launch_timestamp")
+		val lastLaunchTimestamp: Long,
+		@JvmField
+		@ColumnInfo(name = "last_commit_timestamp")
+		val lastCommitTimestamp: Long,
+		@JvmField
+		@ColumnInfo(name = "name")
+		val name: String?,
+		@JvmField
+		@ColumnInfo(name = "progress")
+		val progress: Int?,
+		@JvmField
+		@ColumnInfo(name = "progress_max")
+		val progressMax: Int?,
+		@JvmField
+		@ColumnInfo(name = "failure")
+		val failure: InstallFailure?
+	)
+
+	/**
+	 * Projection of an uninstall session read for a session snapshot.
+	 */
+	@RestrictTo(RestrictTo.Scope.LIBRARY)
+	internal class UninstallSessionSnapshot internal constructor(
+		@JvmField
+		@ColumnInfo(name = "id")
+		val id: String,
+		@JvmField
+		@ColumnInfo(name = "state")
+		val state: State,
+		@JvmField
+		@ColumnInfo(name = "last_launch_timestamp")
+		val lastLaunchTimestamp: Long,
+		@JvmField
+		@ColumnInfo(name = "last_commit_timestamp")
+		val lastCommitTimestamp: Long,
+		@JvmField
+		@ColumnInfo(name = "package_name")
+		val packageName: String?,
+		@JvmField
+		@ColumnInfo(name = "failure")
+		val failure: UninstallFailure?
+	)
 }
 
 @RestrictTo(RestrictTo.Scope.LIBRARY)
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database.model
+
+import androidx.annotation.RestrictTo
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.ForeignKey
+
+/**
+ * Amount of bytes of an APK range which were durably written to a native install session.
+ *
+ * [sourceLength] and [sourceChecksum] identify contents of the APK source at the moment of writing, so that staging
+ * is resumed only if the source has not changed.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+@Entity(
+	tableName = "sessions_staging_checkpoints",
+	primaryKeys = ["session_id", "apk_index", "range_offset"],
+	foreignKeys = [ForeignKey(
+		entity = SessionEntity::class,
+		parentColumns = ["id"],
+		childColumns = ["session_id"],
+		onDelete = ForeignKey.CASCADE,
+		onUpdate = ForeignKey.CASCADE
+	)]
+)
+internal class StagingCheckpointEntity internal constructor(
+	@JvmField
+	@ColumnInfo(name = "session_id")
+	val sessionId: String,
+	@JvmField
+	@ColumnInfo(name = "apk_index")
+	val apkIndex: Int,
+	@JvmField
+	@ColumnInfo(name = "range_offset")
+	val rangeOffset: Long,
+	@JvmField
+	@ColumnInfo(name = "range_length")
+	val rangeLength: Long,
+	@JvmField
+	@ColumnInfo(name = "staged_bytes")
+	val stagedBytes: Long,
+	@JvmField
+	@ColumnInfo(name = "source_length")
+	val sourceLength: Long,
+	@JvmField
+	@ColumnInfo(name = "source_checksum")
+	val sourceChecksum: Long
+)
\ No newline at end of file
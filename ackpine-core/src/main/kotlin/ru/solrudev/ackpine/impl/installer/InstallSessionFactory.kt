@@ -27,13 +27,16 @@ import androidx.annotation.WorkerThread
 import androidx.core.net.toUri
 import ru.solrudev.ackpine.core.R
 import ru.solrudev.ackpine.exceptions.SplitPackagesNotSupportedException
+import ru.solrudev.ackpine.impl.database.dao.ApkDigestDao
 import ru.solrudev.ackpine.impl.database.dao.InstallConstraintsDao
 import ru.solrudev.ackpine.impl.database.dao.InstallPreapprovalDao
 import ru.solrudev.ackpine.impl.database.dao.InstallSessionDao
 import ru.solrudev.ackpine.impl.database.dao.LastUpdateTimestampDao
 import ru.solrudev.ackpine.impl.database.dao.NativeSessionIdDao
 import ru.solrudev.ackpine.impl.database.dao.SessionDao
+import ru.solrudev.ackpine.impl.database.dao.SessionFailureDao
 import ru.solrudev.ackpine.impl.database.dao.SessionProgressDao
+import ru.solrudev.ackpine.impl.database.dao.StagingCheckpointDao
 import ru.solrudev.ackpine.impl.database.getNotificationData
 import ru.solrudev.ackpine.impl.database.getPlugins
 import ru.solrudev.ackpine.impl.database.getState
@@ -42,12 +45,14 @@ import ru.solrudev.ackpine.impl.helpers.concurrent.BinarySemaphore
 import ru.solrudev.ackpine.impl.installer.session.IntentBasedInstallSession
 import ru.solrudev.ackpine.impl.installer.session.PreapprovalLifecycle
 import ru.solrudev.ackpine.impl.installer.session.SessionBasedInstallSession
+import ru.solrudev.ackpine.impl.installer.session.helpers.IoGovernor
 import ru.solrudev.ackpine.impl.installer.session.helpers.PROGRESS_MAX
 import ru.solrudev.ackpine.impl.logging.AckpineLoggerProvider
 import ru.solrudev.ackpine.impl.plugability.AckpineServiceProviders
 import ru.solrudev.ackpine.impl.services.PackageInstallerService
 import ru.solrudev.ackpine.impl.session.CompletableProgressSession
 import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.DurabilityPolicy
 import ru.solrudev.ackpine.installer.parameters.InstallParameters
 import ru.solrudev.ackpine.installer.parameters.InstallerType
 import ru.solrudev.ackpine.installer.parameters.PackageSource
@@ -90,13 +95,17 @@ internal class InstallSessionFactoryImpl internal constructor(
 	private val ackpineServiceProviders: AckpineServiceProviders,
 	private val lastUpdateTimestampDao: LastUpdateTimestampDao,
 	private val installSessionDao: InstallSessionDao,
+	private val sessionFailureDao: SessionFailureDao<InstallFailure> = installSessionDao,
 	private val sessionDao: SessionDao,
 	private val sessionProgressDao: SessionProgressDao,
 	private val nativeSessionIdDao: NativeSessionIdDao,
+	private val stagingCheckpointDao: StagingCheckpointDao,
+	private val apkDigestDao: ApkDigestDao,
 	private val installPreapprovalDao: InstallPreapprovalDao,
 	private val installConstraintsDao: InstallConstraintsDao,
 	private val executor: Executor,
 	private val parallelism: Int,
+	private val globalIoGovernor: () -> IoGovernor,
 	private val handler: Handler,
 	private val sessionCallbackHandler: Lazy<Handler>,
 	private val loggerProvider: AckpineLoggerProvider
@@ -119,8 +128,9 @@ internal class InstallSessionFactoryImpl internal constructor(
 			initialProgress = Progress(),
 			parameters.confirmation,
 			resolveNotificationData(parameters.notificationData, parameters.name),
+			parameters.durabilityPolicy,
 			lastUpdateTimestampDao, sessionDao,
-			sessionFailureDao = installSessionDao,
+			sessionFailureDao,
 			sessionProgressDao, executor, handler, notificationId, dbWriteSemaphore
 		)
 
@@ -145,10 +155,16 @@ internal class InstallSessionFactoryImpl internal constructor(
 					resolveNotificationData(parameters.notificationData, parameters.name),
 					parameters.requireUserAction, parameters.installMode, parameters.preapproval,
 					parameters.constraints, parameters.requestUpdateOwnership, parameters.packageSource,
+					parameters.digests,
+					initialStagedDigests = emptyMap(),
+					parameters.stagingBandwidth,
+					parameters.durabilityPolicy,
+					archive = parameters.archive?.uri,
 					sessionDao,
-					sessionFailureDao = installSessionDao,
-					sessionProgressDao, nativeSessionIdDao, installPreapprovalDao, installConstraintsDao,
-					executor, parallelism, handler, sessionCallbackHandler.value,
+					sessionFailureDao,
+					sessionProgressDao, nativeSessionIdDao, stagingCheckpointDao, apkDigestDao, installPreapprovalDao,
+					installConstraintsDao,
+					executor, parallelism, globalIoGovernor, handler, sessionCallbackHandler.value,
 					nativeSessionId = -1,
 					notificationId,
 					commitAttemptsCount = 0,
@@ -192,7 +208,7 @@ internal class InstallSessionFactoryImpl internal constructor(
 	): IntentBasedInstallSession {
 		val id = UUID.fromString(installSession.session.id)
 		logger.debug("Restoring intent-based install session %s completeIfSucceeded=%s", id, completeIfSucceeded)
-		val initialState = installSession.getState(installSessionDao)
+		val initialState = installSession.getState(installSessionDao, installSession.failure)
 		val initialProgress = installSession.getProgress(sessionProgressDao)
 		val session = IntentBasedInstallSession(
 			loggerProvider,
@@ -200,8 +216,9 @@ internal class InstallSessionFactoryImpl internal constructor(
 			apk = installSession.uris.singleOrNull()?.toUri() ?: throw SplitPackagesNotSupportedException(),
 			id, initialState, initialProgress,
 			installSession.session.confirmation, installSession.getNotificationData(),
+			durabilityPolicy = installSession.durabilityPolicy ?: DurabilityPolicy.PER_FILE,
 			lastUpdateTimestampDao, sessionDao,
-			sessionFailureDao = installSessionDao,
+			sessionFailureDao,
 			sessionProgressDao, executor, handler, installSession.notificationId!!,
 			BinarySemaphore()
 		)
@@ -248,7 +265,7 @@ internal class InstallSessionFactoryImpl internal constructor(
 			installSession.nativeSessionId,
 			completeIfSucceeded
 		)
-		val initialState = installSession.getState(installSessionDao)
+		val initialState = installSession.getState(installSessionDao, installSession.failure)
 		val initialProgress = installSession.getProgress(sessionProgressDao)
 		val nativeSessionId = installSession.nativeSessionId ?: -1
 		val plugins = runCatching { installSession.getPlugins() }
@@ -270,10 +287,16 @@ internal class InstallSessionFactoryImpl internal constructor(
 				installSession.getPreapproval(), installSession.getConstraints(),
 				requestUpdateOwnership = installSession.requestUpdateOwnership == true,
 				packageSource = installSession.packageSource ?: PackageSource.Unspecified,
+				digests = installSession.getDigests(),
+				initialStagedDigests = installSession.getStagedDigests(),
+				installSession.stagingBandwidth,
+				durabilityPolicy = installSession.durabilityPolicy ?: DurabilityPolicy.PER_FILE,
+				archive = installSession.archiveUri?.toUri(),
 				sessionDao,
-				sessionFailureDao = installSessionDao,
-				sessionProgressDao, nativeSessionIdDao, installPreapprovalDao, installConstraintsDao,
-				executor, parallelism, handler, sessionCallbackHandler.value,
+				sessionFailureDao,
+				sessionProgressDao, nativeSessionIdDao, stagingCheckpointDao, apkDigestDao, installPreapprovalDao,
+				installConstraintsDao,
+				executor, parallelism, globalIoGovernor, handler, sessionCallbackHandler.value,
 				nativeSessionId, installSession.notificationId!!,
 				commitAttemptsCount = installSession.constraints?.commitAttemptsCount ?: 0,
 				initialPreapprovalState = installSession.preapproval?.getState() ?: PreapprovalLifecycle.State.IDLE,
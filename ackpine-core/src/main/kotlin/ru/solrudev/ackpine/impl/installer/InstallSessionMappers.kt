@@ -16,23 +16,44 @@
 
 package ru.solrudev.ackpine.impl.installer
 
+import android.net.Uri
 import androidx.core.net.toUri
 import ru.solrudev.ackpine.impl.database.dao.SessionProgressDao
+import ru.solrudev.ackpine.impl.database.model.ApkDigestEntity
 import ru.solrudev.ackpine.impl.database.model.InstallConstraintsEntity
 import ru.solrudev.ackpine.impl.database.model.InstallModeEntity
 import ru.solrudev.ackpine.impl.database.model.InstallPreapprovalEntity
 import ru.solrudev.ackpine.impl.database.model.SessionEntity
+import ru.solrudev.ackpine.impl.database.toSessionState
 import ru.solrudev.ackpine.impl.installer.session.PreapprovalLifecycle
+import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.ApkDigests
 import ru.solrudev.ackpine.installer.parameters.InstallConstraints
 import ru.solrudev.ackpine.installer.parameters.InstallMode
 import ru.solrudev.ackpine.installer.parameters.InstallPreapproval
 import ru.solrudev.ackpine.session.Progress
+import ru.solrudev.ackpine.session.SessionSnapshot
+import java.util.UUID
 
 @JvmSynthetic
 internal fun SessionEntity.InstallSession.getProgress(sessionProgressDao: SessionProgressDao): Progress {
+	if (progress != null && progressMax != null) {
+		return Progress(progress, progressMax)
+	}
 	return sessionProgressDao.getProgress(session.id) ?: Progress()
 }
 
+@JvmSynthetic
+internal fun SessionEntity.InstallSessionSnapshot.toSessionSnapshot(): SessionSnapshot<InstallFailure> {
+	return SessionSnapshot(
+		id = UUID.fromString(id),
+		name = name.orEmpty(),
+		state = state.toSessionState { failure },
+		progress = if (progress != null && progressMax != null) Progress(progress, progressMax) else Progress(),
+		lastLaunchTimestamp, lastCommitTimestamp
+	)
+}
+
 @JvmSynthetic
 internal fun SessionEntity.InstallSession.getInstallMode(): InstallMode {
 	return when (installMode?.installMode) {
@@ -85,6 +106,25 @@ internal fun SessionEntity.InstallSession.getConstraints(): InstallConstraints {
 		.build()
 }
 
+@JvmSynthetic
+internal fun SessionEntity.InstallSession.getDigests(): ApkDigests? {
+	val algorithm = digests.firstOrNull()?.algorithm ?: return null
+	val builder = ApkDigests.Builder(algorithm)
+	for (digest in digests) {
+		if (digest.expectedDigest != null) {
+			builder.setExpectedDigest(uris[digest.apkIndex].toUri(), digest.expectedDigest)
+		}
+	}
+	return builder.build()
+}
+
+@JvmSynthetic
+internal fun SessionEntity.InstallSession.getStagedDigests(): Map<Int, String> {
+	return digests
+		.filter { digest -> digest.stagedDigest != null }
+		.associate { digest -> digest.apkIndex to digest.stagedDigest!! }
+}
+
 @JvmSynthetic
 internal fun InstallMode.toEntity(sessionId: String): InstallModeEntity {
 	return when (this) {
@@ -134,4 +174,14 @@ internal fun InstallConstraints.toEntity(sessionId: String): InstallConstraintsE
 		timeoutMillis,
 		timeoutStrategy
 	)
+}
+
+@JvmSynthetic
+internal fun ApkDigests?.toEntityList(sessionId: String, apks: List<Uri>): List<ApkDigestEntity> {
+	if (this == null) {
+		return emptyList()
+	}
+	return apks.mapIndexed { index, apk ->
+		ApkDigestEntity(sessionId, index, algorithm, expectedDigest = expectedDigests[apk])
+	}
 }
\ No newline at end of file
@@ -24,16 +24,20 @@ import androidx.annotation.RestrictTo
 import androidx.annotation.VisibleForTesting
 import androidx.concurrent.futures.CallbackToFutureAdapter
 import androidx.concurrent.futures.CallbackToFutureAdapter.Completer
+import androidx.room.InvalidationTracker
 import com.google.common.util.concurrent.ListenableFuture
 import ru.solrudev.ackpine.Ackpine
 import ru.solrudev.ackpine.AckpineThreadPool
+import ru.solrudev.ackpine.DisposableSubscription
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
 import ru.solrudev.ackpine.impl.database.AckpineDatabase
+import ru.solrudev.ackpine.impl.database.SessionSnapshotsPublisher
+import ru.solrudev.ackpine.impl.database.SessionWriteJournal
 import ru.solrudev.ackpine.impl.database.dao.InstallSessionDao
+import ru.solrudev.ackpine.impl.database.getEntityStates
 import ru.solrudev.ackpine.impl.database.model.SessionEntity
 import ru.solrudev.ackpine.impl.database.toEntityList
 import ru.solrudev.ackpine.impl.helpers.concurrent.BinarySemaphore
-import ru.solrudev.ackpine.impl.helpers.concurrent.Locks
-import ru.solrudev.ackpine.impl.helpers.concurrent.computeIfAbsentCompat
 import ru.solrudev.ackpine.impl.helpers.concurrent.withPermit
 import ru.solrudev.ackpine.impl.helpers.executeWithCompleter
 import ru.solrudev.ackpine.impl.helpers.executeWithSemaphore
@@ -41,14 +45,17 @@ import ru.solrudev.ackpine.impl.logging.AckpineLoggerProvider
 import ru.solrudev.ackpine.impl.plugability.AckpineServiceProviders
 import ru.solrudev.ackpine.impl.services.PackageInstallerWrapper
 import ru.solrudev.ackpine.impl.session.CompletableProgressSession
+import ru.solrudev.ackpine.impl.session.SessionRegistry
 import ru.solrudev.ackpine.installer.InstallFailure
 import ru.solrudev.ackpine.installer.PackageInstaller
 import ru.solrudev.ackpine.installer.parameters.InstallMode
 import ru.solrudev.ackpine.installer.parameters.InstallParameters
 import ru.solrudev.ackpine.installer.parameters.InstallerType.INTENT_BASED
 import ru.solrudev.ackpine.installer.parameters.InstallerType.SESSION_BASED
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsListener
 import java.util.UUID
-import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.Executor
 
 private typealias SessionsCollectionTransformer =
@@ -57,7 +64,9 @@ private typealias SessionsCollectionTransformer =
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 internal class PackageInstallerImpl internal constructor(
 	private val installSessionDao: InstallSessionDao,
+	invalidationTracker: InvalidationTracker,
 	private val executor: Executor,
+	handler: Handler,
 	private val ackpineServiceProviders: AckpineServiceProviders,
 	private val installSessionFactory: InstallSessionFactory,
 	private val uuidFactory: () -> UUID,
@@ -65,13 +74,15 @@ internal class PackageInstallerImpl internal constructor(
 	private val loggerProvider: AckpineLoggerProvider
 ) : PackageInstaller {
 
-	private val sessions = ConcurrentHashMap<UUID, CompletableProgressSession<InstallFailure>>()
+	private val sessions = SessionRegistry<CompletableProgressSession<InstallFailure>>(TERMINAL_SESSIONS_CAPACITY)
 	private val committedSessionsInitSemaphore = BinarySemaphore()
-	private val sessionLocks = Locks(16)
 	private val logger = loggerProvider.withTag(TAG)
-
-	@Volatile
-	private var isSessionsMapInitialized = false
+	private val snapshotsPublisher = SessionSnapshotsPublisher(
+		invalidationTracker,
+		executor,
+		handler,
+		loadSnapshots = ::loadSessionSnapshots
+	)
 
 	@Volatile
 	private var areCommittedSessionsInitialized = false
@@ -118,6 +129,25 @@ internal class PackageInstallerImpl internal constructor(
 		transform = { sessions -> sessions.filter { it.isActive } }
 	)
 
+	override fun getSessionSnapshotsAsync(
+		query: SessionSnapshotQuery
+	): ListenableFuture<List<SessionSnapshot<InstallFailure>>> = CallbackToFutureAdapter.getFuture { completer ->
+		executor.executeWithCompleter(completer) {
+			completer.set(loadSessionSnapshots(query))
+		}
+		"PackageInstallerImpl.getSessionSnapshotsAsync($query)"
+	}
+
+	override fun addSessionSnapshotsListener(
+		subscriptionContainer: DisposableSubscriptionContainer,
+		query: SessionSnapshotQuery,
+		listener: SessionSnapshotsListener<InstallFailure>
+	): DisposableSubscription = snapshotsPublisher.addListener(subscriptionContainer, query, listener)
+
+	override fun removeSessionSnapshotsListener(listener: SessionSnapshotsListener<InstallFailure>) {
+		snapshotsPublisher.removeListener(listener)
+	}
+
 	/**
 	 * Adds [session] to an in-memory map.
 	 */
@@ -155,8 +185,14 @@ internal class PackageInstallerImpl internal constructor(
 		areCommittedSessionsInitialized = true
 	}
 
+	private fun loadSessionSnapshots(query: SessionSnapshotQuery): List<SessionSnapshot<InstallFailure>> {
+		return installSessionDao
+			.getInstallSessionSnapshots(query.getEntityStates(), query.limit, query.offset)
+			.map { snapshot -> snapshot.toSessionSnapshot() }
+	}
+
 	private fun getSession(sessionId: UUID, completer: Completer<CompletableProgressSession<InstallFailure>?>) {
-		val session = sessions.computeIfAbsentCompat(sessionId, sessionLocks) {
+		val session = sessions.getOrPut(sessionId) {
 			installSessionDao
 				.getInstallSession(sessionId.toString())
 				?.let { installSession ->
@@ -174,9 +210,10 @@ internal class PackageInstallerImpl internal constructor(
 		caller: String,
 		crossinline transform: SessionsCollectionTransformer
 	): ListenableFuture<List<CompletableProgressSession<InstallFailure>>> {
-		if (isSessionsMapInitialized) {
+		val populatedSessions = sessions.populatedValues()
+		if (populatedSessions != null) {
 			return CallbackToFutureAdapter.getFuture { completer ->
-				completer.set(transform(sessions.values))
+				completer.set(transform(populatedSessions))
 				caller
 			}
 		}
@@ -192,26 +229,29 @@ internal class PackageInstallerImpl internal constructor(
 	}
 
 	private fun initializeSessions(): Collection<CompletableProgressSession<InstallFailure>> {
-		if (isSessionsMapInitialized) {
-			return sessions.values
-		}
+		sessions.populatedValues()?.let { return it }
 		var restoredCount = 0
-		installSessionDao.getInstallSessions()
-			.asSequence()
-			.filterNot { session ->
-				sessions.containsKey(UUID.fromString(session.session.id))
-			}
-			.forEach { session ->
+		// Terminal sessions may be evicted from the registry right after they're put, so they're kept strongly here
+		// until the result is returned
+		val initializedSessions = LinkedHashMap<UUID, CompletableProgressSession<InstallFailure>>()
+		sessions.populate {
+			for (session in installSessionDao.getInstallSessions()) {
 				val id = UUID.fromString(session.session.id)
-				sessions.computeIfAbsentCompat(id, sessionLocks) {
+				val installSession = sessions.getOrPut(id) {
 					logger.debug("Initializing install session %s into memory", id)
 					restoredCount++
 					installSessionFactory.create(session)
 				}
+				if (installSession != null) {
+					initializedSessions[id] = installSession
+				}
 			}
-		isSessionsMapInitialized = true
+		}
+		for (session in sessions.values()) {
+			initializedSessions.putIfAbsent(session.id, session)
+		}
 		logger.debug("Initialized %s install sessions in memory", restoredCount)
-		return sessions.values
+		return initializedSessions.values
 	}
 
 	private fun persistSession(
@@ -248,7 +288,11 @@ internal class PackageInstallerImpl internal constructor(
 				lastUpdateTimestamp = Long.MAX_VALUE,
 				preapproval = parameters.preapproval.toEntity(sessionId),
 				constraints = parameters.constraints.toEntity(sessionId),
-				parameters.requestUpdateOwnership, parameters.packageSource
+				parameters.requestUpdateOwnership, parameters.packageSource,
+				digests = parameters.digests.toEntityList(sessionId, parameters.apks.toList()),
+				stagingBandwidth = parameters.stagingBandwidth,
+				durabilityPolicy = parameters.durabilityPolicy,
+				archiveUri = parameters.archive?.uri?.toString()
 			)
 		)
 		ackpineServiceProviders.persistPluginParameters(id, parameters.pluginContainer)
@@ -256,6 +300,7 @@ internal class PackageInstallerImpl internal constructor(
 
 	internal companion object {
 
+		private const val TERMINAL_SESSIONS_CAPACITY = 32
 		private const val TAG = "PackageInstallerImpl"
 
 		private val lock = Any()
@@ -288,11 +333,14 @@ internal class PackageInstallerImpl internal constructor(
 		private fun create(context: Context): PackageInstallerImpl {
 			val applicationContext = context.applicationContext
 			val database = AckpineDatabase.getInstance(applicationContext, AckpineThreadPool)
+			val writeJournal = SessionWriteJournal.getInstance(database, AckpineThreadPool)
 			val ackpineServiceProviders = AckpineServiceProviders.create(applicationContext, Ackpine.loggerProvider)
 			val parallelism = AckpineThreadPool.threadCount - 1
 			return PackageInstallerImpl(
 				database.installSessionDao(),
+				database.invalidationTracker,
 				AckpineThreadPool,
+				Handler(context.mainLooper),
 				ackpineServiceProviders,
 				InstallSessionFactoryImpl(
 					applicationContext,
@@ -301,13 +349,17 @@ internal class PackageInstallerImpl internal constructor(
 					ackpineServiceProviders,
 					database.lastUpdateTimestampDao(),
 					database.installSessionDao(),
-					database.sessionDao(),
-					database.sessionProgressDao(),
+					writeJournal.withFailureDao(database.installSessionDao()),
+					sessionDao = writeJournal,
+					sessionProgressDao = writeJournal,
 					database.nativeSessionIdDao(),
+					database.stagingCheckpointDao(),
+					database.apkDigestDao(),
 					database.installPreapprovalDao(),
 					database.installConstraintsDao(),
 					AckpineThreadPool,
 					parallelism,
+					Ackpine::stagingIoGovernor,
 					Handler(context.mainLooper),
 					sessionCallbackHandler(),
 					Ackpine.loggerProvider
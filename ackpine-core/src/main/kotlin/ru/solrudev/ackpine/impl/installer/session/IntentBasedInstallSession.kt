@@ -17,8 +17,10 @@
 package ru.solrudev.ackpine.impl.installer.session
 
 import android.Manifest.permission.WRITE_EXTERNAL_STORAGE
+import android.content.ContentResolver
 import android.content.Context
 import android.content.pm.PackageManager.PERMISSION_DENIED
+import android.content.res.AssetFileDescriptor
 import android.net.Uri
 import android.os.Build
 import android.os.Environment
@@ -28,6 +30,7 @@ import androidx.core.content.ContextCompat
 import androidx.core.content.FileProvider
 import androidx.core.net.toUri
 import ru.solrudev.ackpine.AckpineFileProvider
+import ru.solrudev.ackpine.AndroidManifestProbe
 import ru.solrudev.ackpine.helpers.use
 import ru.solrudev.ackpine.impl.database.dao.LastUpdateTimestampDao
 import ru.solrudev.ackpine.impl.database.dao.SessionDao
@@ -40,10 +43,14 @@ import ru.solrudev.ackpine.impl.helpers.launchConfirmation
 import ru.solrudev.ackpine.impl.installer.activity.IntentBasedInstallActivity
 import ru.solrudev.ackpine.impl.installer.session.helpers.PROGRESS_MAX
 import ru.solrudev.ackpine.impl.installer.session.helpers.copyTo
+import ru.solrudev.ackpine.impl.installer.session.helpers.getFileChannel
+import ru.solrudev.ackpine.impl.installer.session.helpers.isSeekable
 import ru.solrudev.ackpine.impl.installer.session.helpers.openAssetFileDescriptorWithSize
+import ru.solrudev.ackpine.impl.installer.session.helpers.transferTo
 import ru.solrudev.ackpine.impl.logging.AckpineLoggerProvider
 import ru.solrudev.ackpine.impl.session.AbstractProgressSession
 import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.DurabilityPolicy
 import ru.solrudev.ackpine.session.Progress
 import ru.solrudev.ackpine.session.Session
 import ru.solrudev.ackpine.session.Session.State.Completed
@@ -51,8 +58,11 @@ import ru.solrudev.ackpine.session.Session.State.Succeeded
 import ru.solrudev.ackpine.session.parameters.Confirmation
 import ru.solrudev.ackpine.session.parameters.NotificationData
 import java.io.File
+import java.io.FileOutputStream
+import java.nio.file.Files
 import java.util.UUID
 import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
 import kotlin.math.roundToInt
 
 private const val TAG = "IntentBasedInstallSession"
@@ -67,6 +77,7 @@ internal class IntentBasedInstallSession internal constructor(
 	initialProgress: Progress,
 	private val confirmation: Confirmation,
 	private val notificationData: NotificationData,
+	private val durabilityPolicy: DurabilityPolicy,
 	private val lastUpdateTimestampDao: LastUpdateTimestampDao,
 	sessionDao: SessionDao,
 	sessionFailureDao: SessionFailureDao<InstallFailure>,
@@ -90,10 +101,7 @@ internal class IntentBasedInstallSession internal constructor(
 		logger.debug("Starting APK copy for session %s", id)
 		createApkCopy()
 		logger.debug("Finished APK copy for session %s", id)
-		val apkPackageName = context.packageManager
-			.getPackageArchiveInfo(requireApkFile().absolutePath, 0)
-			?.packageName
-			.orEmpty()
+		val apkPackageName = AndroidManifestProbe.readPackageName(requireApkFile()).orEmpty()
 		if (context.packageName == apkPackageName) {
 			logger.debug("Recording self-update timestamp for session %s packageName=%s", id, apkPackageName)
 			dbWriteSemaphore.withPermit {
@@ -154,29 +162,101 @@ internal class IntentBasedInstallSession internal constructor(
 			file.delete()
 		}
 		file.parentFile?.mkdirs()
+		if (linkApk(file)) {
+			setProgress((PROGRESS_MAX * 0.8).roundToInt())
+			return
+		}
 		file.createNewFile()
 		val afd = context.openAssetFileDescriptorWithSize(apk, cancellationSignal)
 			?: throw NullPointerException("AssetFileDescriptor was null: $apk")
 		afd.use {
-			afd.createInputStream().buffered().use { apkStream ->
-				val outputStream = file.outputStream()
-				outputStream.buffered().use { bufferedOutputStream ->
-					var currentProgress = 0
-					apkStream.copyTo(
-						bufferedOutputStream,
-						afd.declaredLength,
-						cancellationSignal,
-						onProgress = { delta ->
-							currentProgress += delta
-							setProgress((currentProgress * 0.8).roundToInt())
-						})
-					bufferedOutputStream.flush()
+			file.outputStream().use { outputStream ->
+				if (afd.isSeekable()) {
+					transferApk(afd, outputStream)
+				} else {
+					copyApk(afd, outputStream)
+				}
+				// There's only one file, so deferring sync makes no difference
+				if (durabilityPolicy != DurabilityPolicy.NONE) {
+					val syncStartTimestamp = System.nanoTime()
 					outputStream.fd.sync()
+					logger.debug(
+						"Synced APK copy for session %s in %s ms",
+						id, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - syncStartTimestamp)
+					)
 				}
 			}
 		}
 	}
 
+	/**
+	 * Hard-links the APK into session's directory instead of copying it if it's a file in app's private storage.
+	 * Returns whether the APK was linked.
+	 *
+	 * Linked file shares data with the source, which is expected not to be modified in place while the session is
+	 * active.
+	 *
+	 * Linking relies on `java.nio.file` API, so it's done only on Android 8.0 (API 26) and newer. On older versions
+	 * the APK is always copied.
+	 */
+	private fun linkApk(file: File): Boolean {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+			return false
+		}
+		val source = getPrivateApkFileOrNull() ?: return false
+		return try {
+			Files.createLink(file.toPath(), source.toPath())
+			logger.debug("Linked APK for session %s", id)
+			true
+		} catch (exception: Exception) {
+			// Source may reside on another file system, or file system may not support hard links
+			logger.debug("Falling back to copying APK for session %s: %s", id, exception)
+			false
+		}
+	}
+
+	private fun getPrivateApkFileOrNull(): File? {
+		if (apk.scheme != ContentResolver.SCHEME_FILE) {
+			return null
+		}
+		val source = apk.path?.let(::File)?.canonicalFile ?: return null
+		val dataDir = ContextCompat.getDataDir(context)?.canonicalFile ?: return null
+		if (!source.isFile || !source.canRead() || !source.startsWith(dataDir)) {
+			return null
+		}
+		return source
+	}
+
+	/**
+	 * Copies the APK in kernel space, which is possible when the source is backed by a regular file, e.g. an entry
+	 * stored in an archive without compression.
+	 */
+	private fun transferApk(afd: AssetFileDescriptor, outputStream: FileOutputStream) {
+		val length = afd.declaredLength
+		var transferredBytes = 0L
+		afd.getFileChannel().transferTo(
+			afd.startOffset, length, outputStream, cancellationSignal
+		) { bytesTransferred ->
+			transferredBytes += bytesTransferred
+			setProgress((transferredBytes * PROGRESS_MAX * 0.8 / length).roundToInt())
+		}
+	}
+
+	private fun copyApk(afd: AssetFileDescriptor, outputStream: FileOutputStream) {
+		// Streams are not buffered, as copying is done in chunks of pooled buffer's length
+		afd.createInputStream().use { apkStream ->
+			var currentProgress = 0
+			apkStream.copyTo(
+				outputStream,
+				afd.declaredLength,
+				cancellationSignal,
+				onProgress = { delta ->
+					currentProgress += delta
+					setProgress((currentProgress * 0.8).roundToInt())
+				})
+		}
+	}
+
 	private fun requireApkFile(): File {
 		apkFile?.let { return it }
 		val file = getApkFile(requireRootApkDir())
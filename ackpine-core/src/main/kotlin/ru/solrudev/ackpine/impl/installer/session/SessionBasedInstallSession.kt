@@ -18,6 +18,7 @@ package ru.solrudev.ackpine.impl.installer.session
 
 import android.content.Context
 import android.content.IntentSender
+import android.content.pm.Checksum
 import android.content.pm.PackageInstaller
 import android.content.pm.PackageInstaller.SessionParams.MODE_FULL_INSTALL
 import android.content.pm.PackageInstaller.SessionParams.MODE_INHERIT_EXISTING
@@ -36,50 +37,83 @@ import androidx.annotation.RequiresApi
 import androidx.annotation.RestrictTo
 import androidx.concurrent.futures.CallbackToFutureAdapter
 import androidx.core.net.toUri
+import ru.solrudev.ackpine.AckpineBufferPool
+import ru.solrudev.ackpine.helpers.MapResult
 import ru.solrudev.ackpine.helpers.closeAllWithException
 import ru.solrudev.ackpine.helpers.closeWithException
 import ru.solrudev.ackpine.helpers.concurrent.handleResult
 import ru.solrudev.ackpine.helpers.getOrElse
 import ru.solrudev.ackpine.helpers.mapCatchingFirst
 import ru.solrudev.ackpine.helpers.use
+import ru.solrudev.ackpine.impl.database.dao.ApkDigestDao
 import ru.solrudev.ackpine.impl.database.dao.InstallConstraintsDao
 import ru.solrudev.ackpine.impl.database.dao.InstallPreapprovalDao
 import ru.solrudev.ackpine.impl.database.dao.NativeSessionIdDao
 import ru.solrudev.ackpine.impl.database.dao.SessionDao
 import ru.solrudev.ackpine.impl.database.dao.SessionFailureDao
 import ru.solrudev.ackpine.impl.database.dao.SessionProgressDao
+import ru.solrudev.ackpine.impl.database.dao.StagingCheckpointDao
+import ru.solrudev.ackpine.impl.database.model.StagingCheckpointEntity
 import ru.solrudev.ackpine.impl.helpers.concurrent.BinarySemaphore
 import ru.solrudev.ackpine.impl.helpers.concurrent.withPermit
 import ru.solrudev.ackpine.impl.helpers.createPackageInstallerStatusIntentSender
 import ru.solrudev.ackpine.impl.installer.CommitProgressValueHolder
 import ru.solrudev.ackpine.impl.installer.receiver.PackageInstallerStatusReceiver
+import ru.solrudev.ackpine.impl.installer.session.helpers.ApkArchiveReader
+import ru.solrudev.ackpine.impl.installer.session.helpers.InsufficientStorageException
+import ru.solrudev.ackpine.impl.installer.session.helpers.IoGovernor
 import ru.solrudev.ackpine.impl.installer.session.helpers.PROGRESS_MAX
+import ru.solrudev.ackpine.impl.installer.session.helpers.StagingProgressAggregator
+import ru.solrudev.ackpine.impl.installer.session.helpers.computeTailChecksum
 import ru.solrudev.ackpine.impl.installer.session.helpers.copyTo
+import ru.solrudev.ackpine.impl.installer.session.helpers.getFileChannel
+import ru.solrudev.ackpine.impl.installer.session.helpers.isSeekable
 import ru.solrudev.ackpine.impl.installer.session.helpers.openAssetFileDescriptorWithSize
+import ru.solrudev.ackpine.impl.installer.session.helpers.openStagingStream
+import ru.solrudev.ackpine.impl.installer.session.helpers.reserveStagingStorage
+import ru.solrudev.ackpine.impl.installer.session.helpers.toIoGovernor
+import ru.solrudev.ackpine.impl.installer.session.helpers.transferTo
 import ru.solrudev.ackpine.impl.logging.AckpineLoggerProvider
 import ru.solrudev.ackpine.impl.receiver.SystemPackageInstallerStatusReceiver
 import ru.solrudev.ackpine.impl.services.PackageInstallerService
 import ru.solrudev.ackpine.impl.session.AbstractProgressSession
+import ru.solrudev.ackpine.installer.ApkDigestsAware
 import ru.solrudev.ackpine.installer.InstallFailure
 import ru.solrudev.ackpine.installer.InstallFailure.Timeout
+import ru.solrudev.ackpine.installer.parameters.ApkDigests
+import ru.solrudev.ackpine.installer.parameters.DurabilityPolicy
 import ru.solrudev.ackpine.installer.parameters.InstallConstraints
 import ru.solrudev.ackpine.installer.parameters.InstallConstraints.TimeoutStrategy
 import ru.solrudev.ackpine.installer.parameters.InstallMode
 import ru.solrudev.ackpine.installer.parameters.InstallPreapproval
 import ru.solrudev.ackpine.installer.parameters.PackageSource
+import ru.solrudev.ackpine.installer.parameters.StagingBandwidth
 import ru.solrudev.ackpine.session.Progress
 import ru.solrudev.ackpine.session.Session
 import ru.solrudev.ackpine.session.Session.State.Completed
 import ru.solrudev.ackpine.session.Session.State.Failed
 import ru.solrudev.ackpine.session.parameters.Confirmation
 import ru.solrudev.ackpine.session.parameters.NotificationData
+import java.io.FileOutputStream
+import java.io.OutputStream
+import java.security.DigestInputStream
+import java.security.MessageDigest
 import java.util.UUID
 import java.util.concurrent.CancellationException
+import java.util.concurrent.ConcurrentLinkedQueue
 import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicIntegerArray
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReferenceArray
 
 private const val TAG = "SessionBasedInstallSession"
+private const val RANGED_STAGING_THRESHOLD = 128L * 1024 * 1024
+private const val MIN_STAGING_RANGE_LENGTH = 32L * 1024 * 1024
+private const val STAGING_CHECKPOINT_INTERVAL = 32L * 1024 * 1024
+private const val MAX_DEFERRED_WRITES = 16
 
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
@@ -99,14 +133,22 @@ internal class SessionBasedInstallSession internal constructor(
 	private val constraints: InstallConstraints,
 	private val requestUpdateOwnership: Boolean,
 	private val packageSource: PackageSource,
+	private val digests: ApkDigests?,
+	initialStagedDigests: Map<Int, String>,
+	private val stagingBandwidth: StagingBandwidth?,
+	private val durabilityPolicy: DurabilityPolicy,
+	private val archive: Uri?,
 	sessionDao: SessionDao,
 	sessionFailureDao: SessionFailureDao<InstallFailure>,
 	sessionProgressDao: SessionProgressDao,
 	private val nativeSessionIdDao: NativeSessionIdDao,
+	private val stagingCheckpointDao: StagingCheckpointDao,
+	private val apkDigestDao: ApkDigestDao,
 	installPreapprovalDao: InstallPreapprovalDao,
 	private val installConstraintsDao: InstallConstraintsDao,
 	private val executor: Executor,
 	parallelism: Int,
+	private val globalIoGovernor: () -> IoGovernor,
 	handler: Handler,
 	private val sessionCallbackHandler: Handler,
 	@Volatile private var nativeSessionId: Int,
@@ -120,11 +162,25 @@ internal class SessionBasedInstallSession internal constructor(
 	executor, handler,
 	exceptionalFailureFactory = InstallFailure::Exceptional,
 	notificationId, dbWriteSemaphore
-), PreapprovalListener {
+), PreapprovalListener, ApkDigestsAware {
 
 	private val parallelism = parallelism.coerceAtLeast(1)
 	private val packageInstaller by packageInstallerService
 
+	private val apkDigests = AtomicReferenceArray<String>(apks.size).apply {
+		for ((index, digest) in initialStagedDigests) {
+			set(index, digest)
+		}
+	}
+
+	override val stagedDigests: Map<Uri, String>
+		get() = buildMap {
+			for (index in apks.indices) {
+				val digest = apkDigests.get(index) ?: continue
+				put(apks[index], digest)
+			}
+		}
+
 	@Volatile
 	private var sessionCallback: PackageInstaller.SessionCallback? = null
 
@@ -457,13 +513,22 @@ internal class SessionBasedInstallSession internal constructor(
 			},
 			onException = { exception ->
 				session.closeWithException(exception)
-				if (exception is CancellationException) {
-					try {
+				when (exception) {
+					is CancellationException -> try {
 						session.abandon()
 					} catch (_: Throwable) { // no-op
 					}
-				} else {
-					completeExceptionally(exception)
+
+					is ApkDigestMismatchException -> complete(Failed(InstallFailure.Invalid(exception.message)))
+					is InsufficientStorageException -> {
+						logger.warn(
+							"Not enough storage for session %s requiredBytes=%s availableBytes=%s",
+							id, exception.requiredBytes, exception.availableBytes
+						)
+						complete(Failed(InstallFailure.Storage(exception.message, exception.storagePath)))
+					}
+
+					else -> completeExceptionally(exception)
 				}
 			}
 		)
@@ -477,11 +542,7 @@ internal class SessionBasedInstallSession internal constructor(
 		completer: CallbackToFutureAdapter.Completer<Unit>
 	): String {
 		val tag = "SessionBasedInstallSession.writeApks"
-		val assetFileDescriptors = apks
-			.mapCatchingFirst { uri ->
-				context.openAssetFileDescriptorWithSize(uri, cancellationSignal)
-					?: throw NullPointerException("AssetFileDescriptor was null: $uri")
-			}
+		val assetFileDescriptors = openApks()
 			.getOrElse { failure ->
 				closeAllWithException(failure.partialResult, failure.exception)
 				if (failure.exception is OperationCanceledException) {
@@ -492,14 +553,71 @@ internal class SessionBasedInstallSession internal constructor(
 				return tag
 			}
 		val filesCount = apks.size
-		val countdown = AtomicInteger(filesCount)
-		val currentProgress = AtomicInteger(0)
-		val progressMax = filesCount * PROGRESS_MAX
-		val nextIndex = AtomicInteger(0)
+		val stagingProgress = StagingProgressAggregator(
+			lengths = assetFileDescriptors.map(AssetFileDescriptor::getDeclaredLength),
+			publish = this::setStagingProgress
+		)
+		val stagingTasks = try {
+			val checkpoints = stagingCheckpointDao
+				.getCheckpoints(id.toString())
+				.groupBy { checkpoint -> checkpoint.apkIndex }
+			// Largest APKs and ranges are staged first, so that a large base APK doesn't end up being written
+			// by a single worker at the end while others are idle
+			assetFileDescriptors
+				.flatMapIndexed { index, afd -> afd.toStagingTasks(index, checkpoints[index].orEmpty()) }
+				.onEach { task -> stagingProgress.add(task.stagedBytes) }
+				.filter { task -> task.stagedBytes == 0L || task.remainingBytes > 0 }
+				.sortedByDescending { task -> if (task.remainingBytes < 0) Long.MAX_VALUE else task.remainingBytes }
+		} catch (exception: Exception) {
+			closeAllWithException(assetFileDescriptors, exception)
+			completer.setException(exception)
+			return tag
+		}
+		val tasksCount = stagingTasks.size
+		val countdown = AtomicInteger(tasksCount)
+		val remainingTasks = AtomicIntegerArray(filesCount)
+		for (task in stagingTasks) {
+			remainingTasks.incrementAndGet(task.index)
+		}
+		for (index in assetFileDescriptors.indices) {
+			if (remainingTasks.get(index) == 0) {
+				logger.debug("APK %s for session %s was already staged", index, id)
+				assetFileDescriptors[index].close()
+			}
+		}
+		if (tasksCount == 0) {
+			completer.set(Unit)
+			return tag
+		}
+		// Checking storage up front, so that session doesn't fail with storage error only after copying everything
+		try {
+			context.reserveStagingStorage(stagingTasks.sumOf { task -> task.remainingBytes.coerceAtLeast(0) })
+		} catch (exception: Exception) {
+			closeAllWithException(assetFileDescriptors, exception)
+			completer.setException(exception)
+			return tag
+		}
+		val workerCount = minOf(tasksCount, parallelism)
+		// Session's own bandwidth is governed separately, while sessions without it share the global one
+		val ioGovernor = stagingBandwidth?.toIoGovernor() ?: globalIoGovernor()
+		val stagingStartTimestamp = System.nanoTime()
+		val busyNanos = AtomicLong(0)
+		val syncNanos = AtomicLong(0)
+		val deferredWrites = ConcurrentLinkedQueue<DeferredWrite>()
+		val nextTask = AtomicInteger(0)
 		val isCompleted = AtomicBoolean(false)
 		val sharedCancelSignal = CancellationSignal()
+
+		fun closeDeferredWrites(throwable: Throwable) {
+			while (true) {
+				val write = deferredWrites.poll() ?: return
+				write.stream.closeWithException(throwable)
+			}
+		}
+
 		cancellationSignal.setOnCancelListener {
 			sharedCancelSignal.cancel()
+			closeDeferredWrites(OperationCanceledException())
 			if (isCompleted.compareAndSet(false, true)) {
 				closeAllWithException(assetFileDescriptors, OperationCanceledException())
 				completer.setCancelled()
@@ -508,54 +626,194 @@ internal class SessionBasedInstallSession internal constructor(
 
 		fun fail(throwable: Throwable) {
 			sharedCancelSignal.cancel()
+			closeDeferredWrites(throwable)
 			if (isCompleted.compareAndSet(false, true)) {
 				closeAllWithException(assetFileDescriptors, throwable)
 				completer.setException(throwable)
 			}
 		}
 
+		fun syncTimed(sessionStream: OutputStream) {
+			val syncStartTimestamp = System.nanoTime()
+			fsync(sessionStream)
+			syncNanos.addAndGet(System.nanoTime() - syncStartTimestamp)
+		}
+
+		// Oldest deferred writes are synced first, so that at most keepOpen streams are left open
+		fun syncDeferredWrites(keepOpen: Int = 0) {
+			while (deferredWrites.size > keepOpen) {
+				val write = deferredWrites.poll() ?: return
+				write.stream.use(::syncTimed)
+				write.onSynced()
+			}
+		}
+
+		// onSynced is invoked when data written through the stream is known to be durable
+		fun finishWrite(sessionStream: OutputStream, onSynced: () -> Unit = {}) {
+			when (durabilityPolicy) {
+				DurabilityPolicy.PER_FILE -> {
+					sessionStream.use(::syncTimed)
+					onSynced()
+				}
+
+				// Stream is left open until the barrier, as data written through a stream backed by a pipe
+				// can be synced only through the same stream. Each open stream holds a file descriptor, so the
+				// oldest ones are synced early if there are too many of them.
+				DurabilityPolicy.DEFERRED -> {
+					deferredWrites += DeferredWrite(sessionStream, onSynced)
+					syncDeferredWrites(keepOpen = MAX_DEFERRED_WRITES)
+				}
+
+				// Data written through a stream backed by a pipe reaches the file only after it's synced,
+				// so only streams writing to the file directly are closed without syncing
+				DurabilityPolicy.NONE -> {
+					if (sessionStream is FileOutputStream) {
+						sessionStream.close()
+					} else {
+						sessionStream.use(::syncTimed)
+					}
+					onSynced()
+				}
+			}
+		}
+
 		fun writeApk(
 			afd: AssetFileDescriptor,
 			index: Int
-		) = afd.createInputStream().use { apkStream ->
+		) = afd.openStagingStream().use { apkStream ->
 			checkNotNull(apkStream) { "APK $index InputStream was null." }
 			val length = afd.declaredLength
+			// Digest is updated by the same reads which copy APK to the session, so that APK is read only once
+			val messageDigest = digests?.algorithm?.createMessageDigest()
+			val sourceStream = if (messageDigest != null) DigestInputStream(apkStream, messageDigest) else apkStream
+			// Session stream is not buffered, as copying is done in chunks of pooled buffer's length
 			val sessionStream = openWrite("$index.apk", 0, length)
-			sessionStream.buffered().use { bufferedSessionStream ->
-				apkStream.copyTo(bufferedSessionStream, length, sharedCancelSignal, onProgress = { progress ->
-					val current = currentProgress.addAndGet(progress)
-					setStagingProgress(current.toFloat() / progressMax)
+			try {
+				sourceStream.copyTo(sessionStream, length, sharedCancelSignal, ioGovernor, onProgress = { progress ->
+					stagingProgress.addFileProgress(index, progress)
 				})
-				bufferedSessionStream.flush()
-				fsync(sessionStream)
+				sessionStream.flush()
+			} catch (throwable: Throwable) {
+				sessionStream.closeWithException(throwable)
+				throw throwable
+			}
+			finishWrite(sessionStream)
+			if (messageDigest != null) {
+				applyStagedDigest(index, messageDigest.digest())
 			}
 		}
 
-		fun worker() {
-			while (!sharedCancelSignal.isCanceled && !isCompleted.get()) {
-				val index = nextIndex.getAndIncrement()
-				if (index >= filesCount) {
-					return
+		fun writeApkRange(
+			afd: AssetFileDescriptor,
+			task: StagingTask
+		) {
+			// Checkpoints record length of the whole APK to detect changes of its source when resuming
+			val sourceLength = afd.declaredLength
+			// Platform preallocates the file from its start up to the passed length regardless of offset, so length
+			// of the whole APK is passed for each range, while only the remaining part of the range is written
+			val sessionStream = openWrite("${task.index}.apk", task.position, sourceLength)
+			val sourceChecksum = task.sourceChecksum
+			var stagedBytes = task.stagedBytes
+			var uncheckpointedBytes = 0L
+			try {
+				// If session stream is a FileOutputStream, which happens when platform hands out a file descriptor
+				// directly, the kernel does the copying. Pipe-backed session streams are written from a pooled buffer.
+				afd.getFileChannel().transferTo(
+					position = afd.startOffset + task.position,
+					count = task.remainingBytes,
+					sessionStream, sharedCancelSignal, ioGovernor
+				) { bytesTransferred ->
+					stagingProgress.add(bytesTransferred)
+					stagedBytes += bytesTransferred
+					uncheckpointedBytes += bytesTransferred
+					if (sourceChecksum != null && uncheckpointedBytes >= STAGING_CHECKPOINT_INTERVAL) {
+						syncTimed(sessionStream)
+						persistStagingCheckpoint(task, stagedBytes, sourceLength, sourceChecksum)
+						uncheckpointedBytes = 0
+					}
 				}
-				val afd = assetFileDescriptors[index]
-				try {
-					afd.use {
-						writeApk(afd, index)
+			} catch (throwable: Throwable) {
+				sessionStream.closeWithException(throwable)
+				throw throwable
+			}
+			// Each range is synced through its own stream, as data written through a stream backed by a pipe
+			// is guaranteed to reach the file only after it's synced
+			finishWrite(sessionStream) {
+				if (sourceChecksum != null) {
+					persistStagingCheckpoint(task, stagedBytes, sourceLength, sourceChecksum)
+				}
+			}
+		}
+
+		fun runTask(task: StagingTask) {
+			val afd = assetFileDescriptors[task.index]
+			if (task.isStreamed) {
+				afd.use {
+					writeApk(afd, task.index)
+				}
+				return
+			}
+			writeApkRange(afd, task)
+			if (remainingTasks.decrementAndGet(task.index) == 0) {
+				afd.close()
+			}
+		}
+
+		fun logParallelEfficiency() {
+			val elapsedNanos = System.nanoTime() - stagingStartTimestamp
+			// Ratio of time spent writing APKs to total time available to all workers
+			val efficiency = busyNanos.get().toDouble() / (elapsedNanos * workerCount).coerceAtLeast(1)
+			logger.debug(
+				"Staged %s APKs for session %s in %s ms tasks=%s workers=%s parallelEfficiency=%s " +
+						"bufferPoolHitRate=%s durability=%s syncMs=%s",
+				filesCount, id, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), tasksCount, workerCount, efficiency,
+				AckpineBufferPool.hitRate, durabilityPolicy, TimeUnit.NANOSECONDS.toMillis(syncNanos.get())
+			)
+		}
+
+		fun complete() {
+			try {
+				syncDeferredWrites()
+			} catch (throwable: Throwable) {
+				closeDeferredWrites(throwable)
+				closeAllWithException(assetFileDescriptors, throwable)
+				completer.setException(throwable)
+				return
+			}
+			logParallelEfficiency()
+			completer.set(Unit)
+		}
+
+		fun worker() {
+			try {
+				while (!sharedCancelSignal.isCanceled && !isCompleted.get()) {
+					val position = nextTask.getAndIncrement()
+					if (position >= tasksCount) {
+						return
 					}
-					if (countdown.decrementAndGet() == 0 && isCompleted.compareAndSet(false, true)) {
-						completer.set(Unit)
+					try {
+						val taskStartTimestamp = System.nanoTime()
+						runTask(stagingTasks[position])
+						busyNanos.addAndGet(System.nanoTime() - taskStartTimestamp)
+						if (countdown.decrementAndGet() == 0 && isCompleted.compareAndSet(false, true)) {
+							complete()
+							return
+						}
+					} catch (_: OperationCanceledException) { // no-op
+						return
+					} catch (throwable: Throwable) {
+						fail(throwable)
 						return
 					}
-				} catch (_: OperationCanceledException) { // no-op
-					return
-				} catch (throwable: Throwable) {
-					fail(throwable)
-					return
+				}
+			} finally {
+				// Streams deferred by this worker after staging was cancelled or failed wouldn't be closed otherwise
+				if (sharedCancelSignal.isCanceled) {
+					closeDeferredWrites(OperationCanceledException())
 				}
 			}
 		}
 
-		val workerCount = minOf(filesCount, parallelism)
 		repeat(workerCount - 1) {
 			try {
 				executor.execute(::worker)
@@ -568,6 +826,92 @@ internal class SessionBasedInstallSession internal constructor(
 		return tag
 	}
 
+	/**
+	 * Opens all APKs for staging. If APKs are entries of an [archive], it's opened only once for all of them.
+	 */
+	private fun openApks(): MapResult<List<AssetFileDescriptor>> {
+		val archive = archive ?: return apks.mapCatchingFirst { uri ->
+			context.openAssetFileDescriptorWithSize(uri, cancellationSignal)
+				?: throw NullPointerException("AssetFileDescriptor was null: $uri")
+		}
+		return ApkArchiveReader(context, archive, cancellationSignal).use { archiveReader ->
+			apks.mapCatchingFirst { uri ->
+				archiveReader.openEntry(requireNotNull(uri.fragment) { "No archive entry name in $uri" })
+			}
+		}
+	}
+
+	/**
+	 * Creates staging tasks for the APK, resuming from persisted [checkpoints] if its source has not changed since
+	 * they were recorded.
+	 *
+	 * If [digests] are computed, APK is always staged as a whole in a single pass.
+	 */
+	private fun AssetFileDescriptor.toStagingTasks(
+		index: Int,
+		checkpoints: List<StagingCheckpointEntity>
+	): List<StagingTask> {
+		val length = declaredLength
+		if (digests != null || !isSeekable()) {
+			return listOf(StagingTask(index, rangeOffset = 0, rangeLength = length, isStreamed = true))
+		}
+		val sourceChecksum = if (isCheckpointable()) computeTailChecksum() else null
+		if (checkpoints.isEmpty()) {
+			return splitIntoRanges(index, length, sourceChecksum)
+		}
+		val isSourceUnchanged = sourceChecksum != null && checkpoints.all { checkpoint ->
+			checkpoint.sourceLength == length && checkpoint.sourceChecksum == sourceChecksum
+		}
+		if (!isSourceUnchanged) {
+			logger.debug("Source of APK %s for session %s has changed, discarding checkpoints", index, id)
+			dbWriteSemaphore.withPermit {
+				stagingCheckpointDao.clearApkCheckpoints(id.toString(), index)
+			}
+			return splitIntoRanges(index, length, sourceChecksum)
+		}
+		logger.debug("Resuming staging of APK %s for session %s from checkpoints", index, id)
+		val tasks = mutableListOf<StagingTask>()
+		var coveredLength = 0L
+		for (checkpoint in checkpoints.sortedBy { checkpoint -> checkpoint.rangeOffset }) {
+			if (checkpoint.rangeOffset > coveredLength) {
+				val gapLength = checkpoint.rangeOffset - coveredLength
+				tasks += StagingTask(index, coveredLength, gapLength, sourceChecksum = sourceChecksum)
+			}
+			tasks += StagingTask(
+				index, checkpoint.rangeOffset, checkpoint.rangeLength, checkpoint.stagedBytes, sourceChecksum
+			)
+			coveredLength = checkpoint.rangeOffset + checkpoint.rangeLength
+		}
+		if (coveredLength < length) {
+			tasks += StagingTask(index, coveredLength, length - coveredLength, sourceChecksum = sourceChecksum)
+		}
+		return tasks
+	}
+
+	/**
+	 * Splits APK into ranges which can be staged concurrently if it's large enough.
+	 */
+	private fun splitIntoRanges(index: Int, length: Long, sourceChecksum: Long?): List<StagingTask> {
+		if (parallelism == 1 || length < RANGED_STAGING_THRESHOLD) {
+			return listOf(StagingTask(index, rangeOffset = 0, rangeLength = length, sourceChecksum = sourceChecksum))
+		}
+		val rangeLength = maxOf(MIN_STAGING_RANGE_LENGTH, (length + parallelism - 1) / parallelism)
+		return (0L until length step rangeLength).map { offset ->
+			StagingTask(index, offset, minOf(rangeLength, length - offset), sourceChecksum = sourceChecksum)
+		}
+	}
+
+	/**
+	 * Returns whether staging progress of the APK is persisted, so that it can be resumed after process death.
+	 *
+	 * Progress is never persisted with [DurabilityPolicy.NONE], as written data is not guaranteed to survive.
+	 */
+	private fun AssetFileDescriptor.isCheckpointable(): Boolean {
+		return durabilityPolicy != DurabilityPolicy.NONE
+				&& declaredLength >= STAGING_CHECKPOINT_INTERVAL
+				&& isSeekable()
+	}
+
 	private fun PackageInstallerService.createAndRegisterSessionCallback(
 		nativeSessionId: Int
 	): PackageInstaller.SessionCallback {
@@ -619,6 +963,76 @@ internal class SessionBasedInstallSession internal constructor(
 
 	private fun persistNativeSessionId(nativeSessionId: Int) = dbWriteSemaphore.withPermit {
 		nativeSessionIdDao.setNativeSessionId(id.toString(), nativeSessionId)
+		// Checkpoints and digests refer to files staged into the previous native session
+		stagingCheckpointDao.clearCheckpoints(id.toString())
+		apkDigestDao.clearStagedDigests(id.toString())
+		for (index in apks.indices) {
+			apkDigests.set(index, null)
+		}
+	}
+
+	/**
+	 * Verifies computed [digest] of the APK at [index] against the expected one, then persists it and passes it to
+	 * the native session.
+	 */
+	private fun PackageInstallerService.Session.applyStagedDigest(index: Int, digest: ByteArray) {
+		val digests = digests ?: return
+		val algorithm = digests.algorithm
+		val apk = apks[index]
+		val hexDigest = digest.toHexDigest()
+		val expectedDigest = digests.expectedDigests[apk]
+		if (expectedDigest != null && expectedDigest != hexDigest) {
+			throw ApkDigestMismatchException(
+				"$algorithm digest mismatch for APK $apk: expected $expectedDigest, actual $hexDigest"
+			)
+		}
+		apkDigests.set(index, hexDigest)
+		dbWriteSemaphore.withPermit {
+			apkDigestDao.setStagedDigest(id.toString(), index, hexDigest)
+		}
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) try {
+			setChecksums("$index.apk", listOf(Checksum(algorithm.toChecksumType(), digest)), signature = null)
+		} catch (exception: Exception) {
+			logger.warn(exception, "Failed to set checksums of APK %s for session %s", index, id)
+		}
+	}
+
+	private fun persistStagingCheckpoint(
+		task: StagingTask,
+		stagedBytes: Long,
+		sourceLength: Long,
+		sourceChecksum: Long
+	) = dbWriteSemaphore.withPermit {
+		stagingCheckpointDao.setCheckpoint(
+			id.toString(), task.index, task.rangeOffset, task.rangeLength, stagedBytes, sourceLength, sourceChecksum
+		)
+	}
+
+	/**
+	 * Session stream which is synced and closed together with others when all APKs are written.
+	 */
+	private class DeferredWrite(
+		val stream: OutputStream,
+		val onSynced: () -> Unit
+	)
+
+	/**
+	 * A range of APK which is staged by a single worker. [Streamed][isStreamed] APKs are always staged as a whole
+	 * through a stream. Progress of staging is checkpointed only if [sourceChecksum] is present.
+	 */
+	private class StagingTask(
+		val index: Int,
+		val rangeOffset: Long,
+		val rangeLength: Long,
+		val stagedBytes: Long = 0,
+		val sourceChecksum: Long? = null,
+		val isStreamed: Boolean = false
+	) {
+		val position: Long
+			get() = rangeOffset + stagedBytes
+
+		val remainingBytes: Long
+			get() = rangeLength - stagedBytes
 	}
 }
 
@@ -630,4 +1044,27 @@ private fun PackageSource.toPackageInstallerPackageSource() = when (this) {
 	PackageSource.DownloadedFile -> PackageInstaller.PACKAGE_SOURCE_DOWNLOADED_FILE
 	PackageSource.Other -> PackageInstaller.PACKAGE_SOURCE_OTHER
 	else -> PackageInstaller.PACKAGE_SOURCE_UNSPECIFIED
-}
\ No newline at end of file
+}
+
+private fun ApkDigests.Algorithm.createMessageDigest() = when (this) {
+	ApkDigests.Algorithm.SHA256 -> MessageDigest.getInstance("SHA-256")
+	ApkDigests.Algorithm.SHA512 -> MessageDigest.getInstance("SHA-512")
+}
+
+@RequiresApi(Build.VERSION_CODES.S)
+private fun ApkDigests.Algorithm.toChecksumType() = when (this) {
+	ApkDigests.Algorithm.SHA256 -> Checksum.TYPE_WHOLE_SHA256
+	ApkDigests.Algorithm.SHA512 -> Checksum.TYPE_WHOLE_SHA512
+}
+
+private fun ByteArray.toHexDigest(): String {
+	val hexDigest = CharArray(size * 2)
+	for (index in indices) {
+		val byte = this[index].toInt()
+		hexDigest[index * 2] = Character.forDigit(byte shr 4 and 0xF, 16)
+		hexDigest[index * 2 + 1] = Character.forDigit(byte and 0xF, 16)
+	}
+	return String(hexDigest)
+}
+
+private class ApkDigestMismatchException(override val message: String) : Exception(message)
\ No newline at end of file
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.installer.session.helpers
+
+import android.content.Context
+import android.content.res.AssetFileDescriptor
+import android.net.Uri
+import android.os.Build
+import android.os.CancellationSignal
+import android.os.ParcelFileDescriptor
+import androidx.annotation.RequiresApi
+import androidx.annotation.RestrictTo
+import ru.solrudev.ackpine.compress.archivers.EntryStreamOffsets
+import ru.solrudev.ackpine.compress.archivers.zip.ZipFile
+import ru.solrudev.ackpine.helpers.closeWithException
+import ru.solrudev.ackpine.io.FileRegionInputStream
+import ru.solrudev.ackpine.io.ZipEntryInflaterInputStream
+import java.io.Closeable
+import java.io.FileNotFoundException
+import java.io.InputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+
+/**
+ * Opens entries of the ZIP archive at [uri] for staging. The archive is opened and its central directory is read
+ * once for all entries, on the first [openEntry] call.
+ *
+ * Stored entries are opened as a region of the archive file, so that they're staged the same way as standalone
+ * APK files. Deflated entries are inflated on the fly while being read. Each opened entry owns a duplicate of the
+ * archive's file descriptor, so it remains usable after the reader is closed.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+@RequiresApi(Build.VERSION_CODES.KITKAT)
+internal class ApkArchiveReader(
+	private val context: Context,
+	private val uri: Uri,
+	private val signal: CancellationSignal
+) : Closeable {
+
+	private var archiveFd: ParcelFileDescriptor? = null
+	private var zipFile: ZipFile? = null
+
+	/**
+	 * Opens the archive entry with [entryName].
+	 *
+	 * @throws FileNotFoundException if there's no such entry in the archive.
+	 * @throws ZipException if the entry is compressed with an unsupported method.
+	 */
+	@JvmSynthetic
+	internal fun openEntry(entryName: String): AssetFileDescriptor {
+		val zipFile = zipFile ?: openZipFile()
+		val entry = zipFile.getEntry(entryName) ?: throw FileNotFoundException("Entry $entryName not found in $uri")
+		val method = entry.method
+		if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+			throw ZipException("Unsupported compression method $method of entry $entryName in $uri")
+		}
+		val dataOffset = entry.dataOffset
+		if (dataOffset == EntryStreamOffsets.OFFSET_UNKNOWN) {
+			throw ZipException("Unknown data offset of entry $entryName in $uri")
+		}
+		val fd = archiveFd!!.dup()
+		if (method == ZipEntry.STORED) {
+			return AssetFileDescriptor(fd, dataOffset, entry.size)
+		}
+		return DeflatedEntryAssetFileDescriptor(fd, dataOffset, entry.compressedSize, entry.size)
+	}
+
+	override fun close() {
+		// Closing the archive's channel closes its file descriptor too
+		zipFile?.close()
+		zipFile = null
+		archiveFd = null
+	}
+
+	private fun openZipFile(): ZipFile {
+		val fd = context.contentResolver.openFileDescriptor(uri, "r", signal)
+			?: throw NullPointerException("ParcelFileDescriptor was null: $uri")
+		val archiveStream = ParcelFileDescriptor.AutoCloseInputStream(fd)
+		val zipFile = try {
+			ZipFile.builder()
+				.setFileChannel(archiveStream.channel)
+				.get()
+		} catch (throwable: Throwable) {
+			archiveStream.closeWithException(throwable)
+			throw throwable
+		}
+		this.archiveFd = fd
+		this.zipFile = zipFile
+		return zipFile
+	}
+}
+
+/**
+ * Opens a stream of this [AssetFileDescriptor] contents for staging. Contents of deflated archive entries are
+ * inflated.
+ */
+@JvmSynthetic
+internal fun AssetFileDescriptor.openStagingStream(): InputStream {
+	if (this is DeflatedEntryAssetFileDescriptor) {
+		return openInflatingStream()
+	}
+	return createInputStream()
+}
+
+/**
+ * Returns whether this [AssetFileDescriptor] represents a deflated archive entry. Its declared length is the length
+ * of inflated contents, so it can't be read at arbitrary positions.
+ */
+@JvmSynthetic
+internal fun AssetFileDescriptor.isDeflatedEntry(): Boolean = this is DeflatedEntryAssetFileDescriptor
+
+/**
+ * [AssetFileDescriptor] of the compressed region of a deflated archive entry.
+ */
+private class DeflatedEntryAssetFileDescriptor(
+	fd: ParcelFileDescriptor,
+	dataOffset: Long,
+	compressedLength: Long,
+	private val inflatedLength: Long
+) : AssetFileDescriptor(fd, dataOffset, compressedLength) {
+
+	override fun getDeclaredLength() = inflatedLength
+
+	fun openInflatingStream(): InputStream {
+		val compressedStream = FileRegionInputStream(getFileChannel(), startOffset, length)
+		return ZipEntryInflaterInputStream(compressedStream)
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.installer.session.helpers
+
+import android.os.CancellationSignal
+import androidx.annotation.RestrictTo
+import ru.solrudev.ackpine.installer.parameters.StagingBandwidth
+import java.util.concurrent.TimeUnit
+
+private val NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1)
+private val MAX_SLEEP_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50)
+private const val BURST_DIVISOR = 10
+private const val MIN_RATE_DIVISOR = 16
+private const val RATE_INCREASE_STEPS = 32
+private const val RATE_DECREASE_FACTOR = 0.7
+private const val LATENCY_BACKOFF_FACTOR = 2.0
+private const val LATENCY_SMOOTHING_FACTOR = 0.25
+private const val BASELINE_DRIFT_FACTOR = 1.01
+
+/**
+ * Governs storage bandwidth used for writing APKs into install sessions.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+internal interface IoGovernor {
+
+	/**
+	 * Returns whether writes are limited, in which case they should be done in smaller chunks.
+	 */
+	val isLimited: Boolean
+
+	/**
+	 * Blocks until [bytes] may be written. Throws if [signal] is canceled while waiting.
+	 */
+	fun acquire(bytes: Long, signal: CancellationSignal)
+
+	/**
+	 * Reports that [bytes] were written with the specified [latency][latencyNanos].
+	 */
+	fun onWritten(bytes: Long, latencyNanos: Long)
+
+	@RestrictTo(RestrictTo.Scope.LIBRARY)
+	companion object {
+
+		@JvmSynthetic
+		internal val Unlimited: IoGovernor = object : IoGovernor {
+			override val isLimited = false
+			override fun acquire(bytes: Long, signal: CancellationSignal) { /* no-op */ }
+			override fun onWritten(bytes: Long, latencyNanos: Long) { /* no-op */ }
+		}
+	}
+}
+
+/**
+ * Creates a new [IoGovernor] enforcing this [StagingBandwidth].
+ */
+@JvmSynthetic
+internal fun StagingBandwidth.toIoGovernor(): IoGovernor = when (this) {
+	is StagingBandwidth.Limited -> TokenBucketIoGovernor(bytesPerSecond, isAdaptive = false)
+	is StagingBandwidth.Adaptive -> TokenBucketIoGovernor(maxBytesPerSecond, isAdaptive = true)
+	else -> IoGovernor.Unlimited
+}
+
+/**
+ * [IoGovernor] implementing token bucket algorithm with a burst of 1/[BURST_DIVISOR] of a second.
+ *
+ * Writers reserve tokens up front and sleep for the time needed to pay off the debt, so that concurrent writers are
+ * served in order of their requests.
+ *
+ * If [isAdaptive] is `true`, the rate is decreased multiplicatively while smoothed write latency per byte is rising
+ * above [LATENCY_BACKOFF_FACTOR] times the baseline, is kept while it's settling down, and is increased additively
+ * when it's back below the threshold, never exceeding [maxBytesPerSecond]. The baseline is the lowest latency
+ * observed, slowly drifting up so that a single unusually fast write doesn't throttle staging forever.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+internal class TokenBucketIoGovernor(
+	private val maxBytesPerSecond: Long,
+	private val isAdaptive: Boolean,
+	private val clock: () -> Long = System::nanoTime,
+	private val sleep: (Long) -> Unit = ::sleepNanos
+) : IoGovernor {
+
+	private val lock = Any()
+	private val minBytesPerSecond = (maxBytesPerSecond / MIN_RATE_DIVISOR).coerceAtLeast(1)
+	private var bytesPerSecond = maxBytesPerSecond
+	private var tokens = burst().toDouble()
+	private var lastRefillTimestamp = clock()
+	private var smoothedLatency = Double.NaN
+	private var baselineLatency = Double.NaN
+
+	override val isLimited = true
+
+	/**
+	 * Current rate of writes.
+	 */
+	@get:JvmSynthetic
+	internal val currentBytesPerSecond: Long
+		get() = synchronized(lock) { bytesPerSecond }
+
+	override fun acquire(bytes: Long, signal: CancellationSignal) {
+		var waitNanos = synchronized(lock) {
+			refill()
+			tokens -= bytes
+			if (tokens >= 0) 0L else (-tokens * NANOS_PER_SECOND / bytesPerSecond).toLong()
+		}
+		while (waitNanos > 0) {
+			signal.throwIfCanceled()
+			val sliceNanos = minOf(waitNanos, MAX_SLEEP_SLICE_NANOS)
+			sleep(sliceNanos)
+			waitNanos -= sliceNanos
+		}
+		signal.throwIfCanceled()
+	}
+
+	override fun onWritten(bytes: Long, latencyNanos: Long) {
+		if (!isAdaptive || bytes <= 0) {
+			return
+		}
+		val latency = latencyNanos.toDouble() / bytes
+		synchronized(lock) {
+			val previousLatency = smoothedLatency
+			smoothedLatency = if (previousLatency.isNaN()) {
+				latency
+			} else {
+				previousLatency + LATENCY_SMOOTHING_FACTOR * (latency - previousLatency)
+			}
+			baselineLatency = if (baselineLatency.isNaN()) {
+				smoothedLatency
+			} else {
+				minOf(smoothedLatency, baselineLatency * BASELINE_DRIFT_FACTOR)
+			}
+			// Tokens accumulated so far are accounted with the old rate
+			refill()
+			val isCongested = smoothedLatency > baselineLatency * LATENCY_BACKOFF_FACTOR
+			bytesPerSecond = when {
+				isCongested && smoothedLatency > previousLatency -> {
+					(bytesPerSecond * RATE_DECREASE_FACTOR).toLong().coerceAtLeast(minBytesPerSecond)
+				}
+
+				isCongested -> bytesPerSecond
+				else -> (bytesPerSecond + maxBytesPerSecond / RATE_INCREASE_STEPS).coerceAtMost(maxBytesPerSecond)
+			}
+		}
+	}
+
+	private fun refill() {
+		val now = clock()
+		val elapsedNanos = now - lastRefillTimestamp
+		lastRefillTimestamp = now
+		tokens = minOf(burst().toDouble(), tokens + elapsedNanos.toDouble() * bytesPerSecond / NANOS_PER_SECOND)
+	}
+
+	private fun burst() = (bytesPerSecond / BURST_DIVISOR).coerceAtLeast(1)
+}
+
+private fun sleepNanos(nanos: Long) {
+	Thread.sleep(TimeUnit.NANOSECONDS.toMillis(nanos), (nanos % 1_000_000).toInt())
+}
\ No newline at end of file
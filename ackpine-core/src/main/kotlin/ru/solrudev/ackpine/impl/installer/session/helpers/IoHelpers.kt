@@ -16,37 +16,55 @@
 
 package ru.solrudev.ackpine.impl.installer.session.helpers
 
+import android.content.res.AssetFileDescriptor
 import android.os.CancellationSignal
+import ru.solrudev.ackpine.AckpineBufferPool
+import java.io.EOFException
+import java.io.FileInputStream
+import java.io.FileOutputStream
 import java.io.InputStream
 import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.zip.CRC32
 import kotlin.math.roundToInt
 
-private const val BUFFER_LENGTH = 8192
+private const val MIN_TRANSFER_CHUNK_LENGTH = 8192L
+private const val MAX_GOVERNED_CHUNK_LENGTH = 1024L * 1024
+private const val CHECKSUM_TAIL_LENGTH = 64 * 1024
 
 @JvmSynthetic
 internal const val PROGRESS_MAX: Int = 100
 
+/**
+ * Copies this stream to [out] through a buffer borrowed from [AckpineBufferPool], reporting progress in
+ * [PROGRESS_MAX]-based units via [onProgress]. Writes are paced by [governor].
+ */
 @JvmSynthetic
 internal inline fun InputStream.copyTo(
 	out: OutputStream,
 	size: Long,
 	signal: CancellationSignal,
+	governor: IoGovernor = IoGovernor.Unlimited,
 	onProgress: (Int) -> Unit = {}
-) {
-	val progressRatio = (size.toDouble() / (BUFFER_LENGTH * PROGRESS_MAX)).roundToInt().coerceAtLeast(1)
-	val buffer = ByteArray(BUFFER_LENGTH)
+) = AckpineBufferPool.withBuffer { buffer ->
+	val bufferLength = buffer.size
+	val progressRatio = (size.toDouble() / (bufferLength.toLong() * PROGRESS_MAX)).roundToInt().coerceAtLeast(1)
 	var currentProgress = 0
 	var accumulatedBytesRead = 0
 	var progressEmitCounter = 0
 	while (true) {
 		signal.throwIfCanceled()
-		val bytesRead = read(buffer, 0, BUFFER_LENGTH - accumulatedBytesRead)
+		val bytesRead = read(buffer, 0, bufferLength - accumulatedBytesRead)
 		if (bytesRead < 0) {
 			break
 		}
-		accumulatedBytesRead += bytesRead
+		governor.acquire(bytesRead.toLong(), signal)
+		val writeStartTimestamp = System.nanoTime()
 		out.write(buffer, 0, bytesRead)
-		if (accumulatedBytesRead == BUFFER_LENGTH) {
+		governor.onWritten(bytesRead.toLong(), System.nanoTime() - writeStartTimestamp)
+		accumulatedBytesRead += bytesRead
+		if (accumulatedBytesRead == bufferLength) {
 			accumulatedBytesRead = 0
 			val progress = ++currentProgress / progressRatio
 			val shouldEmitProgress = currentProgress - (progress * progressRatio) == 0
@@ -57,4 +75,131 @@ internal inline fun InputStream.copyTo(
 		}
 	}
 	onProgress(PROGRESS_MAX - progressEmitCounter)
+}
+
+/**
+ * Returns whether this [AssetFileDescriptor] has known length and is backed by a regular file, so that its contents
+ * can be read at arbitrary positions. Deflated archive entries are never seekable.
+ */
+@JvmSynthetic
+internal fun AssetFileDescriptor.isSeekable(): Boolean {
+	return declaredLength >= 0 && parcelFileDescriptor.statSize >= 0 && !isDeflatedEntry()
+}
+
+/**
+ * Returns a [FileChannel] for the underlying file descriptor of this [AssetFileDescriptor]. The channel doesn't own
+ * the descriptor, which is closed along with the [AssetFileDescriptor].
+ */
+@JvmSynthetic
+internal fun AssetFileDescriptor.getFileChannel(): FileChannel = FileInputStream(fileDescriptor).channel
+
+/**
+ * Computes CRC32 of the last [CHECKSUM_TAIL_LENGTH] bytes of this [seekable][isSeekable] [AssetFileDescriptor]. For
+ * APKs this region contains ZIP central directory with CRCs of all entries, so it changes along with any of them.
+ */
+@JvmSynthetic
+internal fun AssetFileDescriptor.computeTailChecksum(): Long {
+	val length = declaredLength
+	val tailLength = minOf(length, CHECKSUM_TAIL_LENGTH.toLong()).toInt()
+	val position = startOffset + length - tailLength
+	return AckpineBufferPool.withBuffer { array ->
+		val buffer = ByteBuffer.wrap(array, 0, tailLength)
+		val channel = getFileChannel()
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				break
+			}
+		}
+		val crc = CRC32()
+		crc.update(array, 0, buffer.position())
+		crc.value
+	}
+}
+
+/**
+ * Transfers [count] bytes of this [FileChannel] starting at [position] to [out] in chunks, checking for cancellation
+ * and calling [onTransferred] with amount of bytes after each chunk.
+ *
+ * If [out] is a [FileOutputStream], the bytes are moved by the kernel without copying them through user space.
+ * Otherwise, e.g. for a session stream backed by a pipe, they're read at positions into a buffer borrowed from
+ * [AckpineBufferPool] and written to [out]. Transfers are paced by [governor].
+ *
+ * @throws EOFException if the channel ends before [count] bytes are transferred.
+ */
+@JvmSynthetic
+internal fun FileChannel.transferTo(
+	position: Long,
+	count: Long,
+	out: OutputStream,
+	signal: CancellationSignal,
+	governor: IoGovernor = IoGovernor.Unlimited,
+	onTransferred: (Long) -> Unit = {}
+) {
+	val transferredBytes = if (out is FileOutputStream) {
+		transferToChannel(position, count, out.channel, signal, governor, onTransferred)
+	} else {
+		// Channels.newChannel() would copy through small temporary buffers of its own
+		copyToStream(position, count, out, signal, governor, onTransferred)
+	}
+	if (transferredBytes < count) {
+		throw EOFException("Unexpected end of file: transferred $transferredBytes bytes out of $count")
+	}
+}
+
+private fun FileChannel.transferToChannel(
+	position: Long,
+	count: Long,
+	sink: FileChannel,
+	signal: CancellationSignal,
+	governor: IoGovernor,
+	onTransferred: (Long) -> Unit
+): Long {
+	var chunkLength = (count / PROGRESS_MAX).coerceAtLeast(MIN_TRANSFER_CHUNK_LENGTH)
+	if (governor.isLimited) {
+		// Large chunks would make governed transfer bursty
+		chunkLength = chunkLength.coerceAtMost(MAX_GOVERNED_CHUNK_LENGTH)
+	}
+	var transferredBytes = 0L
+	while (transferredBytes < count) {
+		signal.throwIfCanceled()
+		val length = minOf(chunkLength, count - transferredBytes)
+		governor.acquire(length, signal)
+		val transferStartTimestamp = System.nanoTime()
+		val bytesTransferred = transferTo(position + transferredBytes, length, sink)
+		governor.onWritten(bytesTransferred, System.nanoTime() - transferStartTimestamp)
+		if (bytesTransferred <= 0) {
+			break
+		}
+		transferredBytes += bytesTransferred
+		onTransferred(bytesTransferred)
+	}
+	return transferredBytes
+}
+
+private fun FileChannel.copyToStream(
+	position: Long,
+	count: Long,
+	out: OutputStream,
+	signal: CancellationSignal,
+	governor: IoGovernor,
+	onTransferred: (Long) -> Unit
+) = AckpineBufferPool.withBuffer { array ->
+	val buffer = ByteBuffer.wrap(array)
+	var copiedBytes = 0L
+	while (copiedBytes < count) {
+		signal.throwIfCanceled()
+		buffer.clear()
+		buffer.limit(minOf(array.size.toLong(), count - copiedBytes).toInt())
+		val bytesRead = read(buffer, position + copiedBytes)
+		if (bytesRead <= 0) {
+			break
+		}
+		governor.acquire(bytesRead.toLong(), signal)
+		val writeStartTimestamp = System.nanoTime()
+		out.write(array, 0, bytesRead)
+		governor.onWritten(bytesRead.toLong(), System.nanoTime() - writeStartTimestamp)
+		copiedBytes += bytesRead
+		onTransferred(bytesRead.toLong())
+	}
+	copiedBytes
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.installer.session.helpers
+
+import androidx.annotation.RestrictTo
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicIntegerArray
+import java.util.concurrent.atomic.AtomicLong
+
+private val DEFAULT_PUBLISH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100)
+
+/**
+ * Aggregates staging progress of several files written concurrently.
+ *
+ * Each file is weighted by its length, so that small splits don't advance progress as much as a large base APK.
+ * Files with unknown length are weighted by the average length of the known ones. Progress is [published][publish]
+ * not more often than once per [publishIntervalNanos], except for the final value which is always published.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+internal class StagingProgressAggregator(
+	lengths: List<Long>,
+	private val publishIntervalNanos: Long = DEFAULT_PUBLISH_INTERVAL_NANOS,
+	private val clock: () -> Long = System::nanoTime,
+	private val publish: (Float) -> Unit
+) {
+
+	private val weights = lengths.toWeights()
+	private val totalWeight = weights.sum().coerceAtLeast(1)
+	private val fileProgress = AtomicIntegerArray(weights.size)
+	private val stagedWeight = AtomicLong(0)
+	private val isPublishing = AtomicBoolean(false)
+
+	@Volatile
+	private var publishedWeight = 0L
+
+	@Volatile
+	private var lastPublishTimestamp = 0L
+
+	/**
+	 * Advances progress of the file at [index] by [progress], where [PROGRESS_MAX] means the whole file.
+	 */
+	@JvmSynthetic
+	internal fun addFileProgress(index: Int, progress: Int) {
+		val weight = weights[index]
+		val current = fileProgress.addAndGet(index, progress)
+		val previous = current - progress
+		add(weight * current / PROGRESS_MAX - weight * previous / PROGRESS_MAX)
+	}
+
+	/**
+	 * Advances progress by the specified amount of [bytes].
+	 */
+	@JvmSynthetic
+	internal fun add(bytes: Long) {
+		if (bytes <= 0) {
+			return
+		}
+		val current = stagedWeight.addAndGet(bytes)
+		if (current < totalWeight && clock() - lastPublishTimestamp < publishIntervalNanos) {
+			return
+		}
+		publishLatest()
+	}
+
+	private fun publishLatest() {
+		while (isPublishing.compareAndSet(false, true)) {
+			try {
+				val current = stagedWeight.get().coerceAtMost(totalWeight)
+				if (current > publishedWeight) {
+					publishedWeight = current
+					lastPublishTimestamp = clock()
+					publish(current.toFloat() / totalWeight)
+				}
+			} finally {
+				isPublishing.set(false)
+			}
+			// Final value may have been reached by another worker while we were publishing
+			if (publishedWeight >= totalWeight || stagedWeight.get() < totalWeight) {
+				return
+			}
+		}
+	}
+
+	private fun List<Long>.toWeights(): LongArray {
+		val knownLengths = filter { length -> length >= 0 }
+		val averageLength = if (knownLengths.isEmpty()) 1L else knownLengths.sum() / knownLengths.size
+		return LongArray(size) { index ->
+			val length = get(index)
+			if (length >= 0) length else averageLength.coerceAtLeast(1)
+		}
+	}
+}
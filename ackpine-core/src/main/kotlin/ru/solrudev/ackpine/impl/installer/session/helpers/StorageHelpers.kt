@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.installer.session.helpers
+
+import android.content.Context
+import android.os.Build
+import android.os.storage.StorageManager
+import androidx.annotation.RequiresApi
+import androidx.annotation.RestrictTo
+import java.io.File
+import java.io.IOException
+
+/**
+ * Ensures that [bytes] can be written to the internal storage, where install sessions are staged. App's files
+ * directory resides on the same volume, so its usable space is checked first. If it's not enough, on API level >=
+ * [26][Build.VERSION_CODES.O] the system is asked to clear cached files of apps to make room for [bytes].
+ *
+ * @throws InsufficientStorageException if [bytes] don't fit into the storage.
+ */
+@JvmSynthetic
+internal fun Context.reserveStagingStorage(bytes: Long) {
+	if (bytes <= 0) {
+		return
+	}
+	val directory = filesDir
+	val usableBytes = directory.usableSpace
+	if (usableBytes >= bytes) {
+		return
+	}
+	if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+		throw InsufficientStorageException(bytes, usableBytes, directory.path)
+	}
+	allocateBytes(directory, bytes)
+}
+
+@RequiresApi(Build.VERSION_CODES.O)
+private fun Context.allocateBytes(directory: File, bytes: Long) {
+	val storageManager = getSystemService(StorageManager::class.java)
+	try {
+		val uuid = storageManager.getUuidForPath(directory)
+		val allocatableBytes = storageManager.getAllocatableBytes(uuid)
+		if (allocatableBytes < bytes) {
+			throw InsufficientStorageException(bytes, allocatableBytes, directory.path)
+		}
+		storageManager.allocateBytes(uuid, bytes)
+	} catch (exception: IOException) {
+		throw InsufficientStorageException(bytes, directory.usableSpace, directory.path, exception)
+	}
+}
+
+/**
+ * Thrown when there's not enough storage to stage APKs.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+internal class InsufficientStorageException(
+	val requiredBytes: Long,
+	val availableBytes: Long,
+	val storagePath: String,
+	cause: Throwable? = null
+) : Exception(
+	"Not enough storage to stage APKs: $requiredBytes bytes required, $availableBytes bytes available",
+	cause
+)
\ No newline at end of file
@@ -21,12 +21,19 @@ import android.content.Context
 import android.content.res.AssetFileDescriptor
 import android.net.Uri
 import android.os.Build
+import android.os.Bundle
 import android.os.CancellationSignal
 import android.provider.OpenableColumns
+import ru.solrudev.ackpine.ZippedFileProviderOptions
 
 @JvmSynthetic
 internal fun Context.openAssetFileDescriptorWithSize(uri: Uri, signal: CancellationSignal): AssetFileDescriptor? {
-	val afd = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+	val isZippedFileProviderUri = ZippedFileProviderOptions.isOwnZippedFileProviderUri(this, uri)
+	val afd = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && isZippedFileProviderUri) {
+		// STORED entries are read directly from the ZIP file instead of through a pipe
+		val opts = Bundle().apply { putBoolean(ZippedFileProviderOptions.OPEN_STORED_ENTRY_AS_REGION, true) }
+		contentResolver.openTypedAssetFileDescriptor(uri, "*/*", opts, signal)
+	} else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
 		contentResolver.openAssetFileDescriptor(uri, "r", signal)
 	} else {
 		contentResolver.openAssetFileDescriptor(uri, "r")
@@ -34,7 +41,9 @@ internal fun Context.openAssetFileDescriptorWithSize(uri: Uri, signal: Cancellat
 	if (afd == null || afd.declaredLength >= 0) {
 		return afd
 	}
-	return AssetFileDescriptor(afd.parcelFileDescriptor, afd.startOffset, contentResolver.getSize(uri, signal))
+	val statSize = afd.parcelFileDescriptor.statSize
+	val size = if (statSize >= 0) statSize - afd.startOffset else contentResolver.getSize(uri, signal)
+	return AssetFileDescriptor(afd.parcelFileDescriptor, afd.startOffset, size)
 }
 
 private fun ContentResolver.getSize(uri: Uri, signal: CancellationSignal): Long {
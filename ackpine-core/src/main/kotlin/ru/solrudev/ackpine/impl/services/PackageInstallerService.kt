@@ -18,6 +18,7 @@ package ru.solrudev.ackpine.impl.services
 
 import android.content.Context
 import android.content.IntentSender
+import android.content.pm.Checksum
 import android.content.pm.PackageInstaller
 import android.os.Build
 import android.os.Handler
@@ -112,6 +113,12 @@ public interface PackageInstallerService : AckpineService {
 		 */
 		public fun setStagingProgress(progress: Float)
 
+		/**
+		 * @see PackageInstaller.Session.setChecksums
+		 */
+		@RequiresApi(Build.VERSION_CODES.S)
+		public fun setChecksums(name: String, checksums: List<Checksum>, signature: ByteArray?)
+
 		/**
 		 * @see PackageInstaller.Session.commit
 		 */
@@ -143,6 +150,12 @@ public class PackageInstallerSessionWrapper(private val session: PackageInstalle
 
 	override fun fsync(out: OutputStream): Unit = session.fsync(out)
 	override fun setStagingProgress(progress: Float): Unit = session.setStagingProgress(progress)
+
+	@RequiresApi(Build.VERSION_CODES.S)
+	@Suppress("DEPRECATION")
+	override fun setChecksums(name: String, checksums: List<Checksum>, signature: ByteArray?): Unit =
+		session.setChecksums(name, checksums, signature)
+
 	override fun commit(statusReceiver: IntentSender): Unit = session.commit(statusReceiver)
 	override fun abandon(): Unit = session.abandon()
 
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.session
+
+import androidx.annotation.RestrictTo
+import ru.solrudev.ackpine.impl.helpers.concurrent.Locks
+import ru.solrudev.ackpine.session.Session
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.util.UUID
+
+/**
+ * In-memory registry of sessions with bounded retention of terminal sessions.
+ *
+ * Sessions which are not in terminal state are held strongly. Terminal sessions are kept in an LRU cache of
+ * [terminalSessionsCapacity] entries, and sessions evicted from it are held weakly, so that the same instance is
+ * returned while it's reachable from elsewhere. Sessions which were garbage collected are expected to be re-hydrated
+ * from persisted storage via [getOrPut].
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+internal class SessionRegistry<S : Session<*>> internal constructor(private val terminalSessionsCapacity: Int) {
+
+	private val lock = Any()
+	private val keyLocks = Locks(16)
+	private val liveSessions = HashMap<UUID, S>()
+	private val terminalSessions = LinkedHashMap<UUID, S>(16, 0.75f, true)
+	private val evictedSessions = HashMap<UUID, SessionReference<S>>()
+	private val referenceQueue = ReferenceQueue<S>()
+
+	// Incremented each time a session is garbage collected, guarded by lock
+	private var reclaimGeneration = 0
+	private var populatedGeneration = -1
+
+	init {
+		require(terminalSessionsCapacity >= 0) {
+			"Terminal sessions capacity must not be negative, but was $terminalSessionsCapacity"
+		}
+	}
+
+	/**
+	 * Returns a session with the provided [id] or `null` if it's not in the registry.
+	 */
+	@JvmSynthetic
+	internal operator fun get(id: UUID): S? {
+		synchronized(lock) {
+			val session = liveSessions[id] ?: terminalSessions[id] ?: restoreEvictedSession(id)
+			trim()
+			return session
+		}
+	}
+
+	/**
+	 * Puts the [session] into the registry, replacing a session with the same [id].
+	 */
+	@JvmSynthetic
+	internal operator fun set(id: UUID, session: S) {
+		synchronized(lock) {
+			removeSession(id)
+			liveSessions[id] = session
+			trim()
+		}
+	}
+
+	/**
+	 * Returns a session with the provided [id] if it's in the registry. Otherwise, calls [load] while holding a lock
+	 * for the [id] and puts its result into the registry if it's not `null`.
+	 */
+	@JvmSynthetic
+	internal fun getOrPut(id: UUID, load: () -> S?): S? {
+		get(id)?.let { return it }
+		return synchronized(keyLocks.lockFor(id)) {
+			get(id) ?: load()?.also { session -> set(id, session) }
+		}
+	}
+
+	/**
+	 * Returns a snapshot of all sessions in the registry.
+	 */
+	@JvmSynthetic
+	internal fun values(): List<S> {
+		synchronized(lock) {
+			trim()
+			return collectValues()
+		}
+	}
+
+	/**
+	 * Returns a snapshot of all sessions in the registry if all persisted sessions were [populated][populate] into it
+	 * and none of them has been garbage collected since then. Otherwise, returns `null`.
+	 */
+	@JvmSynthetic
+	internal fun populatedValues(): List<S>? {
+		synchronized(lock) {
+			trim()
+			if (populatedGeneration != reclaimGeneration) {
+				return null
+			}
+			return collectValues()
+		}
+	}
+
+	/**
+	 * Runs [block] which puts all persisted sessions into the registry and marks the registry as populated, so that
+	 * [populatedValues] returns all sessions until any of them is garbage collected.
+	 */
+	@JvmSynthetic
+	internal fun populate(block: () -> Unit) {
+		val generation = synchronized(lock) {
+			purgeReclaimedSessions()
+			reclaimGeneration
+		}
+		block()
+		synchronized(lock) {
+			populatedGeneration = generation
+		}
+	}
+
+	private fun collectValues() = buildList(liveSessions.size + terminalSessions.size + evictedSessions.size) {
+		addAll(liveSessions.values)
+		addAll(terminalSessions.values)
+		evictedSessions.values.mapNotNullTo(this) { it.get() }
+	}
+
+	private fun restoreEvictedSession(id: UUID): S? {
+		val session = evictedSessions.remove(id)?.get() ?: return null
+		liveSessions[id] = session
+		return session
+	}
+
+	private fun removeSession(id: UUID) {
+		liveSessions.remove(id)
+		terminalSessions.remove(id)
+		evictedSessions.remove(id)?.clear()
+	}
+
+	private fun trim() {
+		purgeReclaimedSessions()
+		val iterator = liveSessions.values.iterator()
+		while (iterator.hasNext()) {
+			val session = iterator.next()
+			if (session.isTerminal) {
+				iterator.remove()
+				terminalSessions[session.id] = session
+			}
+		}
+		val terminalIterator = terminalSessions.values.iterator()
+		while (terminalSessions.size > terminalSessionsCapacity) {
+			val session = terminalIterator.next()
+			terminalIterator.remove()
+			evictedSessions[session.id] = SessionReference(session, referenceQueue)
+		}
+	}
+
+	private fun purgeReclaimedSessions() {
+		while (true) {
+			@Suppress("UNCHECKED_CAST")
+			val reference = referenceQueue.poll() as SessionReference<S>? ?: return
+			if (evictedSessions.remove(reference.id, reference)) {
+				reclaimGeneration++
+			}
+		}
+	}
+
+	private class SessionReference<S : Session<*>>(
+		session: S,
+		queue: ReferenceQueue<S>
+	) : WeakReference<S>(session, queue) {
+		val id: UUID = session.id
+	}
+}
+
+private val Session<*>.isTerminal: Boolean
+	get() = isCompleted || isCancelled
\ No newline at end of file
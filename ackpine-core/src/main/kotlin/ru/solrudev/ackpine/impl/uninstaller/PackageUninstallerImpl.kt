@@ -23,28 +23,35 @@ import androidx.annotation.RestrictTo
 import androidx.annotation.VisibleForTesting
 import androidx.concurrent.futures.CallbackToFutureAdapter
 import androidx.concurrent.futures.CallbackToFutureAdapter.Completer
+import androidx.room.InvalidationTracker
 import com.google.common.util.concurrent.ListenableFuture
 import ru.solrudev.ackpine.Ackpine
 import ru.solrudev.ackpine.AckpineThreadPool
+import ru.solrudev.ackpine.DisposableSubscription
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
 import ru.solrudev.ackpine.impl.database.AckpineDatabase
+import ru.solrudev.ackpine.impl.database.SessionSnapshotsPublisher
+import ru.solrudev.ackpine.impl.database.SessionWriteJournal
 import ru.solrudev.ackpine.impl.database.dao.UninstallSessionDao
+import ru.solrudev.ackpine.impl.database.getEntityStates
 import ru.solrudev.ackpine.impl.database.model.SessionEntity
 import ru.solrudev.ackpine.impl.database.toEntityList
 import ru.solrudev.ackpine.impl.helpers.concurrent.BinarySemaphore
-import ru.solrudev.ackpine.impl.helpers.concurrent.Locks
-import ru.solrudev.ackpine.impl.helpers.concurrent.computeIfAbsentCompat
 import ru.solrudev.ackpine.impl.helpers.executeWithCompleter
 import ru.solrudev.ackpine.impl.helpers.executeWithSemaphore
 import ru.solrudev.ackpine.impl.logging.AckpineLoggerProvider
 import ru.solrudev.ackpine.impl.plugability.AckpineServiceProviders
 import ru.solrudev.ackpine.impl.services.PackageInstallerWrapper
 import ru.solrudev.ackpine.impl.session.CompletableSession
+import ru.solrudev.ackpine.impl.session.SessionRegistry
 import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsListener
 import ru.solrudev.ackpine.uninstaller.PackageUninstaller
 import ru.solrudev.ackpine.uninstaller.UninstallFailure
 import ru.solrudev.ackpine.uninstaller.parameters.UninstallParameters
 import java.util.UUID
-import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.Executor
 
 private typealias SessionsCollectionTransformer =
@@ -53,7 +60,9 @@ private typealias SessionsCollectionTransformer =
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 internal class PackageUninstallerImpl internal constructor(
 	private val uninstallSessionDao: UninstallSessionDao,
+	invalidationTracker: InvalidationTracker,
 	private val executor: Executor,
+	handler: Handler,
 	private val ackpineServiceProviders: AckpineServiceProviders,
 	private val uninstallSessionFactory: UninstallSessionFactory,
 	private val uuidFactory: () -> UUID,
@@ -61,12 +70,14 @@ internal class PackageUninstallerImpl internal constructor(
 	private val loggerProvider: AckpineLoggerProvider
 ) : PackageUninstaller {
 
-	private val sessions = ConcurrentHashMap<UUID, CompletableSession<UninstallFailure>>()
-	private val sessionLocks = Locks(16)
+	private val sessions = SessionRegistry<CompletableSession<UninstallFailure>>(TERMINAL_SESSIONS_CAPACITY)
 	private val logger = loggerProvider.withTag(TAG)
-
-	@Volatile
-	private var isSessionsMapInitialized = false
+	private val snapshotsPublisher = SessionSnapshotsPublisher(
+		invalidationTracker,
+		executor,
+		handler,
+		loadSnapshots = ::loadSessionSnapshots
+	)
 
 	override fun createSession(parameters: UninstallParameters): CompletableSession<UninstallFailure> {
 		val id = uuidFactory()
@@ -105,6 +116,25 @@ internal class PackageUninstallerImpl internal constructor(
 		transform = { sessions -> sessions.filter { it.isActive } }
 	)
 
+	override fun getSessionSnapshotsAsync(
+		query: SessionSnapshotQuery
+	): ListenableFuture<List<SessionSnapshot<UninstallFailure>>> = CallbackToFutureAdapter.getFuture { completer ->
+		executor.executeWithCompleter(completer) {
+			completer.set(loadSessionSnapshots(query))
+		}
+		"PackageUninstallerImpl.getSessionSnapshotsAsync($query)"
+	}
+
+	override fun addSessionSnapshotsListener(
+		subscriptionContainer: DisposableSubscriptionContainer,
+		query: SessionSnapshotQuery,
+		listener: SessionSnapshotsListener<UninstallFailure>
+	): DisposableSubscription = snapshotsPublisher.addListener(subscriptionContainer, query, listener)
+
+	override fun removeSessionSnapshotsListener(listener: SessionSnapshotsListener<UninstallFailure>) {
+		snapshotsPublisher.removeListener(listener)
+	}
+
 	/**
 	 * Adds [session] to an in-memory map.
 	 */
@@ -117,8 +147,14 @@ internal class PackageUninstallerImpl internal constructor(
 		sessions[sessionId] = session
 	}
 
+	private fun loadSessionSnapshots(query: SessionSnapshotQuery): List<SessionSnapshot<UninstallFailure>> {
+		return uninstallSessionDao
+			.getUninstallSessionSnapshots(query.getEntityStates(), query.limit, query.offset)
+			.map { snapshot -> snapshot.toSessionSnapshot() }
+	}
+
 	private fun getSession(sessionId: UUID, completer: Completer<CompletableSession<UninstallFailure>?>) {
-		val session = sessions.computeIfAbsentCompat(sessionId, sessionLocks) {
+		val session = sessions.getOrPut(sessionId) {
 			uninstallSessionDao
 				.getUninstallSession(sessionId.toString())
 				?.let { uninstallSession ->
@@ -136,9 +172,10 @@ internal class PackageUninstallerImpl internal constructor(
 		caller: String,
 		crossinline transform: SessionsCollectionTransformer
 	): ListenableFuture<List<CompletableSession<UninstallFailure>>> {
-		if (isSessionsMapInitialized) {
+		val populatedSessions = sessions.populatedValues()
+		if (populatedSessions != null) {
 			return CallbackToFutureAdapter.getFuture { completer ->
-				completer.set(transform(sessions.values))
+				completer.set(transform(populatedSessions))
 				caller
 			}
 		}
@@ -152,26 +189,29 @@ internal class PackageUninstallerImpl internal constructor(
 	}
 
 	private fun initializeSessions(): Collection<CompletableSession<UninstallFailure>> {
-		if (isSessionsMapInitialized) {
-			return sessions.values
-		}
+		sessions.populatedValues()?.let { return it }
 		var restoredCount = 0
-		uninstallSessionDao.getUninstallSessions()
-			.asSequence()
-			.filterNot { session ->
-				sessions.containsKey(UUID.fromString(session.session.id))
-			}
-			.forEach { session ->
+		// Terminal sessions may be evicted from the registry right after they're put, so they're kept strongly here
+		// until the result is returned
+		val initializedSessions = LinkedHashMap<UUID, CompletableSession<UninstallFailure>>()
+		sessions.populate {
+			for (session in uninstallSessionDao.getUninstallSessions()) {
 				val id = UUID.fromString(session.session.id)
-				sessions.computeIfAbsentCompat(id, sessionLocks) {
+				val uninstallSession = sessions.getOrPut(id) {
 					logger.debug("Initializing uninstall session %s into memory", id)
 					restoredCount++
 					uninstallSessionFactory.create(session)
 				}
+				if (uninstallSession != null) {
+					initializedSessions[id] = uninstallSession
+				}
 			}
-		isSessionsMapInitialized = true
+		}
+		for (session in sessions.values()) {
+			initializedSessions.putIfAbsent(session.id, session)
+		}
 		logger.debug("Initialized %s uninstall sessions in memory", restoredCount)
-		return sessions.values
+		return initializedSessions.values
 	}
 
 	private fun persistSession(
@@ -208,6 +248,7 @@ internal class PackageUninstallerImpl internal constructor(
 
 	internal companion object {
 
+		private const val TERMINAL_SESSIONS_CAPACITY = 32
 		private const val TAG = "PackageUninstallerImpl"
 
 		private val lock = Any()
@@ -239,18 +280,21 @@ internal class PackageUninstallerImpl internal constructor(
 		private fun create(context: Context): PackageUninstallerImpl {
 			val applicationContext = context.applicationContext
 			val database = AckpineDatabase.getInstance(applicationContext, AckpineThreadPool)
+			val writeJournal = SessionWriteJournal.getInstance(database, AckpineThreadPool)
 			val ackpineServiceProviders = AckpineServiceProviders.create(applicationContext, Ackpine.loggerProvider)
 			return PackageUninstallerImpl(
 				database.uninstallSessionDao(),
+				database.invalidationTracker,
 				AckpineThreadPool,
+				Handler(context.mainLooper),
 				ackpineServiceProviders,
 				UninstallSessionFactoryImpl(
 					context.applicationContext,
 					@SuppressLint("NewApi")
 					PackageInstallerWrapper.default(applicationContext),
 					ackpineServiceProviders,
-					database.sessionDao(),
-					database.uninstallSessionDao(),
+					sessionDao = writeJournal,
+					writeJournal.withFailureDao(database.uninstallSessionDao()),
 					AckpineThreadPool,
 					Handler(context.mainLooper),
 					Ackpine.loggerProvider
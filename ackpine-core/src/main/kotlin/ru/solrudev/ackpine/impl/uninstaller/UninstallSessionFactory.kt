@@ -138,7 +138,7 @@ internal class UninstallSessionFactoryImpl internal constructor(
 			uninstallSession.packageName
 		)
 		val packageName = uninstallSession.packageName
-		val initialState = uninstallSession.getState(sessionFailureDao)
+		val initialState = uninstallSession.getState(sessionFailureDao, uninstallSession.failure)
 		val confirmation = uninstallSession.session.confirmation
 		val notificationData = uninstallSession.getNotificationData()
 		val notificationId = uninstallSession.notificationId!!
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.uninstaller
+
+import ru.solrudev.ackpine.impl.database.model.SessionEntity
+import ru.solrudev.ackpine.impl.database.toSessionState
+import ru.solrudev.ackpine.session.Progress
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.uninstaller.UninstallFailure
+import java.util.UUID
+
+@JvmSynthetic
+internal fun SessionEntity.UninstallSessionSnapshot.toSessionSnapshot(): SessionSnapshot<UninstallFailure> {
+	return SessionSnapshot(
+		id = UUID.fromString(id),
+		name = packageName.orEmpty(),
+		state = state.toSessionState { failure },
+		progress = Progress(),
+		lastLaunchTimestamp, lastCommitTimestamp
+	)
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import ru.solrudev.ackpine.impl.database.model.InstallConstraintsEntity
+import ru.solrudev.ackpine.impl.database.model.InstallModeEntity
+import ru.solrudev.ackpine.impl.database.model.InstallPreapprovalEntity
+import ru.solrudev.ackpine.impl.database.model.PluginEntity
+import ru.solrudev.ackpine.impl.database.model.SessionEntity
+import ru.solrudev.ackpine.impl.testutil.createInstallSessionEntity
+import ru.solrudev.ackpine.impl.testutil.createUninstallSessionEntity
+import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.InstallConstraints.TimeoutStrategy
+import ru.solrudev.ackpine.installer.parameters.InstallerType
+import ru.solrudev.ackpine.uninstaller.UninstallFailure
+import ru.solrudev.ackpine.uninstaller.parameters.UninstallerType
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+
+@RunWith(RobolectricTestRunner::class)
+class SessionHydrationTest {
+
+	private val context: Context = ApplicationProvider.getApplicationContext()
+
+	private val database = Room
+		.inMemoryDatabaseBuilder(context, AckpineDatabase::class.java)
+		.allowMainThreadQueries()
+		.build()
+
+	@AfterTest
+	fun tearDown() {
+		database.close()
+	}
+
+	@Test
+	fun installSessionIsHydratedWithAllSideTables() {
+		val preapproval = InstallPreapprovalEntity(
+			sessionId = SESSION_ID,
+			packageName = "com.example.preapproval",
+			label = "Label",
+			locale = "en-US",
+			icon = "content://icon",
+			fallbackToOnDemandApproval = true,
+			isPreapproved = true
+		)
+		val constraints = InstallConstraintsEntity(
+			sessionId = SESSION_ID,
+			isAppNotForegroundRequired = true,
+			isAppNotInteractingRequired = false,
+			isAppNotTopVisibleRequired = true,
+			isDeviceIdleRequired = false,
+			isNotInCallRequired = true,
+			timeoutMillis = 1000,
+			timeoutStrategy = TimeoutStrategy.Retry(3),
+			commitAttemptsCount = 2
+		)
+		val installMode = InstallModeEntity(SESSION_ID, InstallModeEntity.InstallMode.INHERIT_EXISTING, true)
+		val plugin = PluginEntity(sessionId = SESSION_ID, pluginClassName = "com.example.Plugin")
+		database.installSessionDao().insertInstallSession(
+			createInstallSessionEntity(
+				id = SESSION_ID,
+				state = SessionEntity.State.ACTIVE,
+				installerType = InstallerType.SESSION_BASED,
+				uris = listOf("content://base.apk", "content://split.apk"),
+				notificationId = 42,
+				plugins = listOf(plugin),
+				name = "Session",
+				installMode = installMode,
+				packageName = "com.example",
+				preapproval = preapproval,
+				constraints = constraints
+			)
+		)
+		database.sessionProgressDao().updateProgress(SESSION_ID, progress = 30, max = 100)
+		database.nativeSessionIdDao().setNativeSessionId(SESSION_ID, nativeSessionId = 7)
+
+		val session = assertNotNull(database.installSessionDao().getInstallSession(SESSION_ID))
+
+		assertEquals(SessionEntity.State.ACTIVE, session.session.state)
+		assertEquals(InstallerType.SESSION_BASED, session.installerType)
+		assertEquals(listOf("content://base.apk", "content://split.apk"), session.uris)
+		assertEquals(listOf(plugin.pluginClassName), session.plugins.map { it.pluginClassName })
+		assertEquals("Session", session.name)
+		assertEquals(42, session.notificationId)
+		assertEquals(installMode, session.installMode)
+		assertEquals("com.example", session.packageName)
+		assertEquals(preapproval, session.preapproval)
+		assertEquals(constraints, session.constraints)
+		assertEquals(7, session.nativeSessionId)
+		assertEquals(30, session.progress)
+		assertEquals(100, session.progressMax)
+		assertNull(session.failure)
+	}
+
+	@Test
+	fun absentOptionalSideTablesAreHydratedAsNull() {
+		insertInstallSession(SESSION_ID)
+
+		val session = assertNotNull(database.installSessionDao().getInstallSession(SESSION_ID))
+
+		assertNull(session.name)
+		assertNull(session.installMode)
+		assertNull(session.packageName)
+		assertNull(session.preapproval)
+		assertNull(session.constraints)
+		assertNull(session.lastUpdateTimestamp)
+		assertNull(session.nativeSessionId)
+		assertNull(session.archiveUri)
+	}
+
+	@Test
+	fun installSessionIsHydratedWithMostRecentlyInsertedPackageName() {
+		insertInstallSession(SESSION_ID)
+		database.installSessionDao().insertPackageName(SESSION_ID, "com.example.old")
+		database.installSessionDao().insertPackageName(SESSION_ID, "com.example.new")
+
+		val session = assertNotNull(database.installSessionDao().getInstallSession(SESSION_ID))
+
+		assertEquals("com.example.new", session.packageName)
+	}
+
+	@Test
+	fun installSessionFailureIsHydrated() {
+		val failure = InstallFailure.Aborted("aborted")
+		insertInstallSession(SESSION_ID)
+		database.installSessionDao().setFailure(SESSION_ID, failure)
+
+		val session = assertNotNull(database.installSessionDao().getInstallSession(SESSION_ID))
+
+		assertEquals(SessionEntity.State.FAILED, session.session.state)
+		assertEquals(failure, session.failure)
+	}
+
+	@Test
+	fun installSessionsAreHydratedWithoutMixingSideTables() {
+		insertInstallSession(SESSION_ID, uris = listOf("content://first.apk"))
+		insertInstallSession(OTHER_SESSION_ID, uris = listOf("content://second.apk"))
+		database.sessionProgressDao().updateProgress(OTHER_SESSION_ID, progress = 80, max = 100)
+
+		val sessions = database.installSessionDao().getInstallSessions().associateBy { it.session.id }
+
+		assertEquals(2, sessions.size)
+		assertEquals(listOf("content://first.apk"), sessions.getValue(SESSION_ID).uris)
+		assertEquals(listOf("content://second.apk"), sessions.getValue(OTHER_SESSION_ID).uris)
+		assertEquals(0, sessions.getValue(SESSION_ID).progress)
+		assertEquals(80, sessions.getValue(OTHER_SESSION_ID).progress)
+	}
+
+	@Test
+	fun uninstallSessionIsHydratedWithFailure() {
+		val failure = UninstallFailure.Aborted("aborted")
+		database.uninstallSessionDao().insertUninstallSession(
+			createUninstallSessionEntity(
+				id = SESSION_ID,
+				state = SessionEntity.State.PENDING,
+				uninstallerType = UninstallerType.PACKAGE_INSTALLER_BASED,
+				packageName = "com.example",
+				notificationId = 42
+			)
+		)
+		database.uninstallSessionDao().setFailure(SESSION_ID, failure)
+
+		val session = assertNotNull(database.uninstallSessionDao().getUninstallSession(SESSION_ID))
+
+		assertEquals("com.example", session.packageName)
+		assertEquals(UninstallerType.PACKAGE_INSTALLER_BASED, session.uninstallerType)
+		assertEquals(42, session.notificationId)
+		assertEquals(failure, session.failure)
+	}
+
+	private fun insertInstallSession(id: String, uris: List<String> = listOf("content://base.apk")) {
+		database.installSessionDao().insertInstallSession(
+			createInstallSessionEntity(
+				id = id,
+				state = SessionEntity.State.PENDING,
+				installerType = InstallerType.INTENT_BASED,
+				uris = uris
+			)
+		)
+	}
+
+	private companion object {
+		private const val SESSION_ID = "session"
+		private const val OTHER_SESSION_ID = "other"
+	}
+}
\ No newline at end of file
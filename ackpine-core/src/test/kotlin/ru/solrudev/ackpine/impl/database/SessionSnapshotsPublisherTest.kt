@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database
+
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
+import ru.solrudev.ackpine.DummyDisposableSubscription
+import ru.solrudev.ackpine.impl.database.model.SessionEntity
+import ru.solrudev.ackpine.impl.installer.toSessionSnapshot
+import ru.solrudev.ackpine.impl.testutil.ImmediateExecutor
+import ru.solrudev.ackpine.impl.testutil.createInstallSessionEntity
+import ru.solrudev.ackpine.impl.testutil.drainMainThread
+import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.InstallerType
+import ru.solrudev.ackpine.session.Progress
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsDiff
+import ru.solrudev.ackpine.session.SessionSnapshotsListener
+import java.util.UUID
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+@RunWith(RobolectricTestRunner::class)
+class SessionSnapshotsPublisherTest {
+
+	private val context: Context = ApplicationProvider.getApplicationContext()
+
+	private val database = Room
+		.inMemoryDatabaseBuilder(context, AckpineDatabase::class.java)
+		.allowMainThreadQueries()
+		.setQueryExecutor(ImmediateExecutor)
+		.build()
+
+	private val publisher = SessionSnapshotsPublisher(
+		database.invalidationTracker,
+		ImmediateExecutor,
+		Handler(Looper.getMainLooper()),
+		loadSnapshots = { query ->
+			database.installSessionDao()
+				.getInstallSessionSnapshots(query.getEntityStates(), query.limit, query.offset)
+				.map { it.toSessionSnapshot() }
+		}
+	)
+
+	private val subscriptionContainer = DisposableSubscriptionContainer()
+	private val diffs = mutableListOf<SessionSnapshotsDiff<InstallFailure>>()
+	private val listener = SessionSnapshotsListener(diffs::add)
+
+	@AfterTest
+	fun tearDown() {
+		subscriptionContainer.dispose()
+		database.close()
+	}
+
+	@Test
+	fun currentSnapshotsAreDeliveredAsAddedImmediately() {
+		val id = insertInstallSession()
+
+		publisher.addListener(subscriptionContainer, SessionSnapshotQuery.ALL, listener)
+		drainMainThread()
+
+		val diff = diffs.single()
+		assertEquals(listOf(UUID.fromString(id)), diff.added.map { it.id })
+		assertTrue(diff.removed.isEmpty())
+		assertTrue(diff.changed.isEmpty())
+	}
+
+	@Test
+	fun changesOfSessionsAreDeliveredAsDiffs() {
+		publisher.addListener(subscriptionContainer, SessionSnapshotQuery.ALL, listener)
+		drainMainThread()
+
+		val id = insertInstallSession()
+		drainMainThread()
+		database.sessionProgressDao().updateProgress(id, progress = 50, max = 100)
+		drainMainThread()
+
+		assertEquals(3, diffs.size)
+		assertTrue(diffs[0].added.isEmpty())
+		assertEquals(listOf(UUID.fromString(id)), diffs[1].added.map { it.id })
+		assertEquals(listOf(Progress(50, 100)), diffs[2].changed.map { it.progress })
+		assertTrue(diffs[2].added.isEmpty())
+	}
+
+	@Test
+	fun sessionsNotMatchingQueryAreDeliveredAsRemoved() {
+		val id = insertInstallSession()
+		val query = SessionSnapshotQuery.Builder()
+			.setStateTypes(SessionSnapshotQuery.StateType.PENDING)
+			.build()
+		publisher.addListener(subscriptionContainer, query, listener)
+		drainMainThread()
+
+		database.sessionDao().updateSessionState(id, SessionEntity.State.ACTIVE)
+		drainMainThread()
+
+		assertEquals(listOf(UUID.fromString(id)), diffs.last().removed.map { it.id })
+	}
+
+	@Test
+	fun disposedListenerIsNotNotified() {
+		val subscription = publisher.addListener(subscriptionContainer, SessionSnapshotQuery.ALL, listener)
+		drainMainThread()
+
+		subscription.dispose()
+		insertInstallSession()
+		drainMainThread()
+
+		assertEquals(1, diffs.size)
+	}
+
+	@Test
+	fun addingSameListenerTwiceReturnsDummySubscription() {
+		publisher.addListener(subscriptionContainer, SessionSnapshotQuery.ALL, listener)
+
+		val subscription = publisher.addListener(subscriptionContainer, SessionSnapshotQuery.ALL, listener)
+
+		assertSame(DummyDisposableSubscription, subscription)
+	}
+
+	private fun insertInstallSession(): String {
+		val id = UUID.randomUUID().toString()
+		database.installSessionDao().insertInstallSession(
+			createInstallSessionEntity(
+				id,
+				state = SessionEntity.State.PENDING,
+				installerType = InstallerType.INTENT_BASED,
+				uris = listOf("content://base.apk")
+			)
+		)
+		return id
+	}
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database
+
+import android.content.Context
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import ru.solrudev.ackpine.impl.database.model.SessionEntity
+import ru.solrudev.ackpine.impl.installer.toSessionSnapshot
+import ru.solrudev.ackpine.impl.testutil.createInstallSessionEntity
+import ru.solrudev.ackpine.impl.testutil.createUninstallSessionEntity
+import ru.solrudev.ackpine.impl.uninstaller.toSessionSnapshot
+import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.InstallerType
+import ru.solrudev.ackpine.session.Progress
+import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.uninstaller.UninstallFailure
+import ru.solrudev.ackpine.uninstaller.parameters.UninstallerType
+import java.util.UUID
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+@RunWith(RobolectricTestRunner::class)
+class SessionSnapshotsTest {
+
+	private val context: Context = ApplicationProvider.getApplicationContext()
+
+	private val database = Room
+		.inMemoryDatabaseBuilder(context, AckpineDatabase::class.java)
+		.allowMainThreadQueries()
+		.build()
+
+	@AfterTest
+	fun tearDown() {
+		database.close()
+	}
+
+	@Test
+	fun installSessionSnapshotsAreReturnedNewestFirst() {
+		val first = insertInstallSession(name = "first")
+		val second = insertInstallSession(name = "second")
+		database.sessionProgressDao().updateProgress(second, progress = 40, max = 100)
+		database.sessionDao().updateLastLaunchTimestamp(second, lastLaunchTimestamp = 10)
+		database.sessionDao().updateLastCommitTimestamp(second, lastCommitTimestamp = 20)
+
+		val snapshots = getInstallSessionSnapshots(SessionSnapshotQuery.ALL)
+
+		assertEquals(
+			listOf(
+				SessionSnapshot(
+					UUID.fromString(second), "second", Session.State.Pending, Progress(40, 100),
+					lastLaunchTimestamp = 10, lastCommitTimestamp = 20
+				),
+				SessionSnapshot(
+					UUID.fromString(first), "first", Session.State.Pending, Progress(),
+					lastLaunchTimestamp = 0, lastCommitTimestamp = 0
+				)
+			),
+			snapshots
+		)
+	}
+
+	@Test
+	fun installSessionSnapshotsAreFilteredByStateAndPaged() {
+		val failure = InstallFailure.Aborted("aborted")
+		val failedIds = List(3) { insertInstallSession() }
+		insertInstallSession()
+		for (id in failedIds) {
+			database.installSessionDao().setFailure(id, failure)
+		}
+		val query = SessionSnapshotQuery.Builder()
+			.setStateTypes(SessionSnapshotQuery.StateType.FAILED)
+			.setOffset(1)
+			.setLimit(1)
+			.build()
+
+		val snapshots = getInstallSessionSnapshots(query)
+
+		assertEquals(listOf(UUID.fromString(failedIds[1])), snapshots.map { it.id })
+		assertEquals(Session.State.Failed(failure), snapshots.single().state)
+	}
+
+	@Test
+	fun uninstallSessionSnapshotsContainPackageNameAndFailure() {
+		val failure = UninstallFailure.Aborted("aborted")
+		val id = UUID.randomUUID().toString()
+		database.uninstallSessionDao().insertUninstallSession(
+			createUninstallSessionEntity(
+				id,
+				state = SessionEntity.State.PENDING,
+				uninstallerType = UninstallerType.PACKAGE_INSTALLER_BASED,
+				packageName = "com.example"
+			)
+		)
+		insertInstallSession()
+		database.uninstallSessionDao().setFailure(id, failure)
+
+		val snapshots = database.uninstallSessionDao()
+			.getUninstallSessionSnapshots(SessionSnapshotQuery.ALL.getEntityStates(), Int.MAX_VALUE, offset = 0)
+			.map { it.toSessionSnapshot() }
+
+		assertEquals(
+			listOf(
+				SessionSnapshot(
+					UUID.fromString(id), "com.example", Session.State.Failed(failure), Progress(),
+					lastLaunchTimestamp = 0, lastCommitTimestamp = 0
+				)
+			),
+			snapshots
+		)
+	}
+
+	private fun getInstallSessionSnapshots(query: SessionSnapshotQuery) = database.installSessionDao()
+		.getInstallSessionSnapshots(query.getEntityStates(), query.limit, query.offset)
+		.map { it.toSessionSnapshot() }
+
+	private fun insertInstallSession(name: String? = null): String {
+		val id = UUID.randomUUID().toString()
+		database.installSessionDao().insertInstallSession(
+			createInstallSessionEntity(
+				id,
+				state = SessionEntity.State.PENDING,
+				installerType = InstallerType.INTENT_BASED,
+				uris = listOf("content://base.apk"),
+				name = name
+			)
+		)
+		return id
+	}
+}
\ No newline at end of file
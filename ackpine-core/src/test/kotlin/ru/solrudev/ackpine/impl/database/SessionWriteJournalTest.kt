@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.database
+
+import android.os.Handler
+import android.os.Looper
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import ru.solrudev.ackpine.impl.database.model.SessionEntity
+import ru.solrudev.ackpine.impl.testutil.ImmediateExecutor
+import ru.solrudev.ackpine.impl.testutil.LastCommitUpdate
+import ru.solrudev.ackpine.impl.testutil.LastLaunchUpdate
+import ru.solrudev.ackpine.impl.testutil.RecordingSessionDao
+import ru.solrudev.ackpine.impl.testutil.RecordingSessionProgressDao
+import ru.solrudev.ackpine.impl.testutil.SessionStateUpdate
+import ru.solrudev.ackpine.impl.testutil.TestFailure
+import ru.solrudev.ackpine.impl.testutil.TestSessionFailureDao
+import ru.solrudev.ackpine.impl.testutil.runScheduledMainThreadTasks
+import ru.solrudev.ackpine.session.Progress
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+@RunWith(RobolectricTestRunner::class)
+class SessionWriteJournalTest {
+
+	private val sessionDao = RecordingSessionDao()
+	private val sessionProgressDao = RecordingSessionProgressDao()
+	private var transactionsCount = 0
+
+	private val journal = SessionWriteJournal(
+		sessionDao,
+		sessionProgressDao,
+		runInTransaction = { body ->
+			transactionsCount++
+			body.run()
+		},
+		ImmediateExecutor,
+		Handler(Looper.getMainLooper())
+	)
+
+	@Test
+	fun progressUpdatesAreCoalescedToLatestValue() {
+		journal.updateProgress(SESSION_ID, 10, 100)
+		journal.updateProgress(SESSION_ID, 20, 100)
+		journal.updateProgress(SESSION_ID, 30, 100)
+		assertNull(sessionProgressDao.progressUpdates[SESSION_ID])
+
+		runScheduledMainThreadTasks()
+
+		assertEquals(listOf(Progress(30, 100)), sessionProgressDao.progressUpdates[SESSION_ID])
+	}
+
+	@Test
+	fun writesOfMultipleSessionsAreFlushedInSingleTransaction() {
+		journal.updateProgress(SESSION_ID, 10, 100)
+		journal.updateProgress(OTHER_SESSION_ID, 50, 100)
+
+		runScheduledMainThreadTasks()
+
+		assertEquals(1, transactionsCount)
+		assertEquals(listOf(Progress(10, 100)), sessionProgressDao.progressUpdates[SESSION_ID])
+		assertEquals(listOf(Progress(50, 100)), sessionProgressDao.progressUpdates[OTHER_SESSION_ID])
+	}
+
+	@Test
+	fun timestampsAreWrittenThroughWithoutWaitingForFlush() {
+		journal.updateLastLaunchTimestamp(SESSION_ID, 1)
+		journal.updateLastCommitTimestamp(OTHER_SESSION_ID, 2)
+
+		assertEquals(listOf(LastLaunchUpdate(SESSION_ID, 1)), sessionDao.lastLaunchUpdates)
+		assertEquals(listOf(LastCommitUpdate(OTHER_SESSION_ID, 2)), sessionDao.lastCommitUpdates)
+		runScheduledMainThreadTasks()
+		assertEquals(0, transactionsCount)
+	}
+
+	@Test
+	fun stateUpdateIsWrittenThroughWithPendingWritesOfSession() {
+		journal.updateProgress(SESSION_ID, 10, 100)
+		journal.updateProgress(OTHER_SESSION_ID, 50, 100)
+
+		journal.updateSessionState(SESSION_ID, SessionEntity.State.SUCCEEDED)
+
+		assertEquals(1, transactionsCount)
+		assertEquals(listOf(SessionStateUpdate(SESSION_ID, SessionEntity.State.SUCCEEDED)), sessionDao.stateUpdates)
+		assertEquals(listOf(Progress(10, 100)), sessionProgressDao.progressUpdates[SESSION_ID])
+		assertNull(sessionProgressDao.progressUpdates[OTHER_SESSION_ID])
+		runScheduledMainThreadTasks()
+		assertEquals(listOf(Progress(10, 100)), sessionProgressDao.progressUpdates[SESSION_ID])
+		assertEquals(listOf(Progress(50, 100)), sessionProgressDao.progressUpdates[OTHER_SESSION_ID])
+	}
+
+	@Test
+	fun failureIsWrittenThroughWithPendingWritesOfSession() {
+		val failureDao = TestSessionFailureDao<TestFailure>()
+		val journalingFailureDao = journal.withFailureDao(failureDao)
+		val failure = TestFailure.Aborted("test")
+		journal.updateProgress(SESSION_ID, 10, 100)
+
+		journalingFailureDao.setFailure(SESSION_ID, failure)
+
+		assertEquals(failure, failureDao.getFailure(SESSION_ID))
+		assertEquals(listOf(Progress(10, 100)), sessionProgressDao.progressUpdates[SESSION_ID])
+	}
+
+	@Test
+	fun getProgressReturnsPendingProgress() {
+		journal.updateProgress(SESSION_ID, 10, 100)
+		assertEquals(Progress(10, 100), journal.getProgress(SESSION_ID))
+	}
+
+	@Test
+	fun flushWithoutPendingWritesDoesNotOpenTransaction() {
+		journal.flush()
+		assertEquals(0, transactionsCount)
+		assertTrue(sessionDao.stateUpdates.isEmpty())
+	}
+
+	private companion object {
+		private const val SESSION_ID = "session"
+		private const val OTHER_SESSION_ID = "other"
+	}
+}
\ No newline at end of file
@@ -35,6 +35,7 @@ import ru.solrudev.ackpine.impl.database.model.SessionEntity
 import ru.solrudev.ackpine.impl.helpers.concurrent.BinarySemaphore
 import ru.solrudev.ackpine.impl.installer.session.IntentBasedInstallSession
 import ru.solrudev.ackpine.impl.installer.session.SessionBasedInstallSession
+import ru.solrudev.ackpine.impl.installer.session.helpers.IoGovernor
 import ru.solrudev.ackpine.impl.installer.session.helpers.PROGRESS_MAX
 import ru.solrudev.ackpine.impl.logging.AckpineLoggerProvider
 import ru.solrudev.ackpine.impl.plugability.AckpineServiceProviders
@@ -493,10 +494,13 @@ class InstallSessionFactoryImplTest : HasAckpineDatabaseTest() {
 		sessionDao = database.sessionDao(),
 		sessionProgressDao = database.sessionProgressDao(),
 		nativeSessionIdDao = database.nativeSessionIdDao(),
+		stagingCheckpointDao = database.stagingCheckpointDao(),
+		apkDigestDao = database.apkDigestDao(),
 		installPreapprovalDao = database.installPreapprovalDao(),
 		installConstraintsDao = database.installConstraintsDao(),
 		executor = ImmediateExecutor,
 		parallelism = 1,
+		globalIoGovernor = { IoGovernor.Unlimited },
 		handler = Handler(Looper.getMainLooper()),
 		sessionCallbackHandler = lazy { Handler(Looper.getMainLooper()) },
 		loggerProvider = AckpineLoggerProvider("InstallSessionFactory") { logger }
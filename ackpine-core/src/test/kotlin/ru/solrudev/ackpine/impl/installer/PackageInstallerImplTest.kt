@@ -17,6 +17,8 @@
 package ru.solrudev.ackpine.impl.installer
 
 import android.net.Uri
+import android.os.Handler
+import android.os.Looper
 import kotlinx.coroutines.test.runTest
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
@@ -196,7 +198,9 @@ class PackageInstallerImplTest : HasAckpineDatabaseTest() {
 		logger: RecordingAckpineLogger? = null
 	) = PackageInstallerImpl(
 		installSessionDao = database.installSessionDao(),
+		invalidationTracker = database.invalidationTracker,
 		executor = ImmediateExecutor,
+		handler = Handler(Looper.getMainLooper()),
 		ackpineServiceProviders = AckpineServiceProviders(
 			lazy { emptySet() },
 			AckpineLoggerProvider("AckpineServiceProviders") { logger }
@@ -57,12 +57,14 @@ import ru.solrudev.ackpine.impl.testutil.createAckpineFile
 import ru.solrudev.ackpine.impl.testutil.deleteAckpineFiles
 import ru.solrudev.ackpine.impl.testutil.drainMainThread
 import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.DurabilityPolicy
 import ru.solrudev.ackpine.runtime.R
 import ru.solrudev.ackpine.session.Progress
 import ru.solrudev.ackpine.session.Session
 import ru.solrudev.ackpine.session.parameters.Confirmation
 import ru.solrudev.ackpine.session.parameters.NotificationData
 import java.io.File
+import java.nio.file.Files
 import java.util.UUID
 import kotlin.test.AfterTest
 import kotlin.test.BeforeTest
@@ -121,6 +123,37 @@ class IntentBasedInstallSessionTest {
 		assertEquals(Session.State.Awaiting, states.last())
 	}
 
+	@Test
+	fun launchLinksApkFromPrivateStorageInsteadOfCopying() {
+		val sessionId = UUID.randomUUID()
+		val apkFile = context.createAckpineFile("test/source-link-$sessionId.apk") { writeText("apk content") }
+		val session = createSession(id = sessionId, apk = apkFile.toUri(), initialState = Session.State.Pending)
+
+		session.launch()
+		drainMainThread()
+
+		val copiedApk = File(context.filesDir, "ackpine/sessions/$sessionId/0.apk")
+		assertTrue(Files.isSameFile(apkFile.toPath(), copiedApk.toPath()))
+		assertEquals("apk content", copiedApk.readText())
+	}
+
+	@Test
+	fun launchCopiesApkFromOutsideOfPrivateStorage() {
+		val sessionId = UUID.randomUUID()
+		val apkFile = File.createTempFile("source-$sessionId", ".apk").apply {
+			deleteOnExit()
+			writeText("apk content")
+		}
+		val session = createSession(id = sessionId, apk = apkFile.toUri(), initialState = Session.State.Pending)
+
+		session.launch()
+		drainMainThread()
+
+		val copiedApk = File(context.filesDir, "ackpine/sessions/$sessionId/0.apk")
+		assertFalse(Files.isSameFile(apkFile.toPath(), copiedApk.toPath()))
+		assertEquals("apk content", copiedApk.readText())
+	}
+
 	@Test
 	fun launchUpdatesProgress() {
 		val apkFile = context.createAckpineFile("test.apk")
@@ -358,6 +391,7 @@ class IntentBasedInstallSessionTest {
 		initialProgress = Progress(),
 		confirmation = confirmation,
 		notificationData = NotificationData.DEFAULT,
+		durabilityPolicy = DurabilityPolicy.PER_FILE,
 		lastUpdateTimestampDao = DummyLastUpdateTimestampDao,
 		sessionDao = RecordingSessionDao(),
 		sessionFailureDao = TestSessionFailureDao(),
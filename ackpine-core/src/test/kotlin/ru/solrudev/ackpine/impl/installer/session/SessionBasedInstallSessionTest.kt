@@ -17,6 +17,7 @@
 package ru.solrudev.ackpine.impl.installer.session
 
 import android.content.Context
+import android.content.pm.Checksum
 import android.content.pm.PackageInstaller
 import android.content.pm.PackageInstaller.SessionParams
 import android.content.pm.PackageManager
@@ -28,17 +29,22 @@ import androidx.test.core.app.ApplicationProvider
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
 import org.robolectric.util.ReflectionHelpers
+import ru.solrudev.ackpine.AckpineBufferPool
+import ru.solrudev.ackpine.impl.database.model.StagingCheckpointEntity
 import ru.solrudev.ackpine.impl.helpers.concurrent.BinarySemaphore
+import ru.solrudev.ackpine.impl.installer.session.helpers.IoGovernor
 import ru.solrudev.ackpine.impl.logging.AckpineLoggerProvider
 import ru.solrudev.ackpine.impl.services.PackageInstallerService
 import ru.solrudev.ackpine.impl.testutil.CommitAttemptsUpdate
 import ru.solrudev.ackpine.impl.testutil.ImmediateExecutor
+import ru.solrudev.ackpine.impl.testutil.RecordingApkDigestDao
 import ru.solrudev.ackpine.impl.testutil.RecordingInstallConstraintsDao
 import ru.solrudev.ackpine.impl.testutil.RecordingInstallPreapprovalDao
 import ru.solrudev.ackpine.impl.testutil.RecordingNativeSessionIdDao
 import ru.solrudev.ackpine.impl.testutil.RecordingPackageInstallerService
 import ru.solrudev.ackpine.impl.testutil.RecordingSessionDao
 import ru.solrudev.ackpine.impl.testutil.RecordingSessionProgressDao
+import ru.solrudev.ackpine.impl.testutil.RecordingStagingCheckpointDao
 import ru.solrudev.ackpine.impl.testutil.TestSessionFailureDao
 import ru.solrudev.ackpine.impl.testutil.captureProgress
 import ru.solrudev.ackpine.impl.testutil.captureStates
@@ -46,6 +52,8 @@ import ru.solrudev.ackpine.impl.testutil.createAckpineFile
 import ru.solrudev.ackpine.impl.testutil.deleteAckpineFiles
 import ru.solrudev.ackpine.impl.testutil.drainMainThread
 import ru.solrudev.ackpine.installer.InstallFailure
+import ru.solrudev.ackpine.installer.parameters.ApkDigests
+import ru.solrudev.ackpine.installer.parameters.DurabilityPolicy
 import ru.solrudev.ackpine.installer.parameters.InstallConstraints
 import ru.solrudev.ackpine.installer.parameters.InstallConstraints.TimeoutStrategy
 import ru.solrudev.ackpine.installer.parameters.InstallMode
@@ -59,9 +67,13 @@ import ru.solrudev.ackpine.session.parameters.NotificationData
 import java.io.File
 import java.util.UUID
 import java.util.concurrent.Executor
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
 import kotlin.test.AfterTest
 import kotlin.test.Test
 import kotlin.test.assertContains
+import kotlin.test.assertContentEquals
 import kotlin.test.assertEquals
 import kotlin.test.assertFalse
 import kotlin.test.assertIs
@@ -134,6 +146,216 @@ class SessionBasedInstallSessionTest {
 		assertEquals("apk 3", writtenApk2.toString(Charsets.UTF_8))
 	}
 
+	@Test
+	fun launchWithSplitApksWritesLargestApksFirst() {
+		val sessionId = UUID.randomUUID()
+		val apkFiles = listOf(
+			context.createAckpineFile("test/order-$sessionId-1.apk") { writeText("s") },
+			context.createAckpineFile("test/order-$sessionId-2.apk") { writeText("largest apk") },
+			context.createAckpineFile("test/order-$sessionId-3.apk") { writeText("medium") }
+		)
+		val packageInstaller = RecordingPackageInstallerService()
+		val session = createSessionBasedSession(
+			packageInstaller = packageInstaller,
+			apks = apkFiles.map(File::toUri),
+			id = sessionId,
+			initialState = Session.State.Pending,
+			parallelism = 1
+		)
+
+		session.launch()
+		drainMainThread()
+
+		assertEquals(listOf("1.apk", "2.apk", "0.apk"), packageInstaller.session.writes.keys.toList())
+		assertEquals("largest apk", packageInstaller.session.writes["1.apk"]?.toString(Charsets.UTF_8))
+	}
+
+	@Test
+	fun launchWithArchiveWritesStoredAndDeflatedEntriesToSession() {
+		val sessionId = UUID.randomUUID()
+		val archiveFile = context.createAckpineFile("test/archive-$sessionId.apks") {
+			ZipOutputStream(outputStream()).use { zip ->
+				val storedContent = "stored apk".toByteArray()
+				val storedEntry = ZipEntry("base.apk").apply {
+					method = ZipEntry.STORED
+					size = storedContent.size.toLong()
+					crc = CRC32().apply { update(storedContent) }.value
+				}
+				zip.putNextEntry(storedEntry)
+				zip.write(storedContent)
+				zip.closeEntry()
+				zip.putNextEntry(ZipEntry("split.apk").apply { method = ZipEntry.DEFLATED })
+				zip.write("deflated apk".repeat(100).toByteArray())
+				zip.closeEntry()
+			}
+		}
+		val archive = archiveFile.toUri()
+		val packageInstaller = RecordingPackageInstallerService()
+		val session = createSessionBasedSession(
+			packageInstaller = packageInstaller,
+			apks = listOf("base.apk", "split.apk").map { name -> archive.buildUpon().fragment(name).build() },
+			id = sessionId,
+			initialState = Session.State.Pending,
+			archive = archive,
+			parallelism = 1
+		)
+		val states = session.captureStates()
+
+		session.launch()
+		drainMainThread()
+
+		assertEquals(Session.State.Awaiting, states.last())
+		assertEquals("stored apk", packageInstaller.session.writes["0.apk"]?.toString(Charsets.UTF_8))
+		assertEquals("deflated apk".repeat(100), packageInstaller.session.writes["1.apk"]?.toString(Charsets.UTF_8))
+	}
+
+	@Test
+	fun launchWithNewNativeSessionDiscardsStagingCheckpoints() {
+		val sessionId = UUID.randomUUID()
+		val apkFile = context.createAckpineFile("test/checkpoints-$sessionId.apk") { writeText("apk") }
+		val staleCheckpoint = StagingCheckpointEntity(
+			sessionId.toString(),
+			apkIndex = 0,
+			rangeOffset = 0,
+			rangeLength = 3,
+			stagedBytes = 2,
+			sourceLength = 3,
+			sourceChecksum = 0
+		)
+		val stagingCheckpointDao = RecordingStagingCheckpointDao(listOf(staleCheckpoint))
+		val packageInstaller = RecordingPackageInstallerService()
+		val session = createSessionBasedSession(
+			packageInstaller = packageInstaller,
+			apks = listOf(apkFile.toUri()),
+			id = sessionId,
+			initialState = Session.State.Pending,
+			stagingCheckpointDao = stagingCheckpointDao
+		)
+
+		session.launch()
+		drainMainThread()
+
+		assertTrue(stagingCheckpointDao.checkpoints.isEmpty())
+		assertEquals("apk", packageInstaller.session.writes["0.apk"]?.toString(Charsets.UTF_8))
+	}
+
+	@Test
+	fun launchWithDigestsExposesStagedDigestsAndSetsChecksums() {
+		val sessionId = UUID.randomUUID()
+		val apkFile = context.createAckpineFile("test/digests-$sessionId.apk") { writeText("apk") }
+		val apkDigestDao = RecordingApkDigestDao()
+		val packageInstaller = RecordingPackageInstallerService()
+		val session = createSessionBasedSession(
+			packageInstaller = packageInstaller,
+			apks = listOf(apkFile.toUri()),
+			id = sessionId,
+			initialState = Session.State.Pending,
+			digests = ApkDigests.Builder(ApkDigests.Algorithm.SHA256)
+				.setExpectedDigest(apkFile.toUri(), APK_SHA256.uppercase())
+				.build(),
+			apkDigestDao = apkDigestDao
+		)
+		val states = session.captureStates()
+
+		session.launch()
+		drainMainThread()
+
+		assertEquals(Session.State.Awaiting, states.last())
+		assertEquals(mapOf(apkFile.toUri() to APK_SHA256), session.stagedDigests)
+		assertEquals(mapOf(0 to APK_SHA256), apkDigestDao.stagedDigests)
+		val checksum = packageInstaller.session.checksums["0.apk"]?.single()
+		assertNotNull(checksum)
+		assertEquals(Checksum.TYPE_WHOLE_SHA256, checksum.type)
+	}
+
+	@Test
+	fun launchWithMismatchingDigestFailsWithInvalidFailure() {
+		val sessionId = UUID.randomUUID()
+		val apkFile = context.createAckpineFile("test/digests-mismatch-$sessionId.apk") { writeText("apk") }
+		val session = createSessionBasedSession(
+			apks = listOf(apkFile.toUri()),
+			id = sessionId,
+			initialState = Session.State.Pending,
+			digests = ApkDigests.Builder(ApkDigests.Algorithm.SHA256)
+				.setExpectedDigest(apkFile.toUri(), "00")
+				.build()
+		)
+		val states = session.captureStates()
+
+		session.launch()
+		drainMainThread()
+
+		val failed = assertIs<Session.State.Failed<InstallFailure>>(states.last())
+		assertIs<InstallFailure.Invalid>(failed.failure)
+		assertTrue(session.stagedDigests.isEmpty())
+	}
+
+	@Test
+	fun launchStagesSeekableApkLargerThanPooledBufferToPipeBackedStream() {
+		val sessionId = UUID.randomUUID()
+		val data = ByteArray(AckpineBufferPool.bufferLength * 2 + 1) { (it * 31).toByte() }
+		val apkFile = context.createAckpineFile("test/seekable-$sessionId.apk") { writeBytes(data) }
+		val packageInstaller = RecordingPackageInstallerService()
+		val session = createSessionBasedSession(
+			packageInstaller = packageInstaller,
+			apks = listOf(apkFile.toUri()),
+			id = sessionId,
+			initialState = Session.State.Pending
+		)
+		val states = session.captureStates()
+
+		session.launch()
+		drainMainThread()
+
+		assertEquals(Session.State.Awaiting, states.last())
+		assertContentEquals(data, packageInstaller.session.writes["0.apk"])
+	}
+
+	@Test
+	fun launchWithPerFileDurabilitySyncsEachApkBeforeWritingNext() {
+		val events = stageSplitApks(DurabilityPolicy.PER_FILE)
+		assertEquals(
+			listOf("open 0.apk", "fsync 0.apk", "close 0.apk", "open 1.apk", "fsync 1.apk", "close 1.apk"),
+			events
+		)
+	}
+
+	@Test
+	fun launchWithDeferredDurabilitySyncsAllApksAfterWriting() {
+		val events = stageSplitApks(DurabilityPolicy.DEFERRED)
+		assertEquals(
+			listOf("open 0.apk", "open 1.apk", "fsync 0.apk", "close 0.apk", "fsync 1.apk", "close 1.apk"),
+			events
+		)
+	}
+
+	@Test
+	fun launchWithDeferredDurabilityBoundsOpenStreams() {
+		val events = stageSplitApks(DurabilityPolicy.DEFERRED, apksCount = 20)
+		var openStreams = 0
+		var maxOpenStreams = 0
+		for (event in events) {
+			if (event.startsWith("open ")) {
+				maxOpenStreams = maxOf(maxOpenStreams, ++openStreams)
+			}
+			if (event.startsWith("close ")) {
+				openStreams--
+			}
+		}
+		assertEquals(17, maxOpenStreams)
+		assertEquals(listOf("fsync 0.apk", "close 0.apk"), events.subList(17, 19))
+		assertEquals(20, events.count { event -> event.startsWith("fsync ") })
+	}
+
+	@Test
+	fun launchWithNoneDurabilitySyncsOnlyStreamsNotWritingToFileDirectly() {
+		val events = stageSplitApks(DurabilityPolicy.NONE)
+		assertEquals(
+			listOf("open 0.apk", "fsync 0.apk", "close 0.apk", "open 1.apk", "fsync 1.apk", "close 1.apk"),
+			events
+		)
+	}
+
 	@Test
 	fun commitCommitsPackageInstallerSessionAndPersistsCommitAttempt() {
 		val constraintsDao = RecordingInstallConstraintsDao()
@@ -533,6 +755,33 @@ class SessionBasedInstallSessionTest {
 		val params = packageInstaller.createdSessions.single().params
 		assertTrue(params.installFlags and INSTALL_REQUEST_UPDATE_OWNERSHIP != 0)
 	}
+
+	private fun stageSplitApks(durabilityPolicy: DurabilityPolicy, apksCount: Int = 2): List<String> {
+		val sessionId = UUID.randomUUID()
+		val apkFiles = (1..apksCount).map { number ->
+			context.createAckpineFile("test/durability-$sessionId-$number.apk") { writeText("apk $number") }
+		}
+		val packageInstaller = RecordingPackageInstallerService()
+		val session = createSessionBasedSession(
+			packageInstaller = packageInstaller,
+			apks = apkFiles.map(File::toUri),
+			id = sessionId,
+			initialState = Session.State.Pending,
+			durabilityPolicy = durabilityPolicy,
+			parallelism = 1
+		)
+		val states = session.captureStates()
+
+		session.launch()
+		drainMainThread()
+
+		assertEquals(Session.State.Awaiting, states.last())
+		for (number in 1..apksCount) {
+			val written = packageInstaller.session.writes["${number - 1}.apk"]?.toString(Charsets.UTF_8)
+			assertEquals("apk $number", written)
+		}
+		return packageInstaller.session.events
+	}
 }
 
 internal fun createSessionBasedSession(
@@ -545,12 +794,17 @@ internal fun createSessionBasedSession(
 	commitAttemptsCount: Int = 0,
 	installMode: InstallMode = InstallMode.Full,
 	packageSource: PackageSource = PackageSource.Unspecified,
+	digests: ApkDigests? = null,
+	durabilityPolicy: DurabilityPolicy = DurabilityPolicy.PER_FILE,
+	archive: Uri? = null,
 	requireUserAction: Boolean = true,
 	requestUpdateOwnership: Boolean = false,
 	nativeSessionId: Int = -1,
 	initialPreapprovalState: PreapprovalLifecycle.State = PreapprovalLifecycle.State.IDLE,
 	initialProgress: Progress = Progress(),
 	nativeSessionIdDao: RecordingNativeSessionIdDao = RecordingNativeSessionIdDao(),
+	stagingCheckpointDao: RecordingStagingCheckpointDao = RecordingStagingCheckpointDao(),
+	apkDigestDao: RecordingApkDigestDao = RecordingApkDigestDao(),
 	preapprovalDao: RecordingInstallPreapprovalDao = RecordingInstallPreapprovalDao(),
 	constraintsDao: RecordingInstallConstraintsDao = RecordingInstallConstraintsDao(),
 	executor: Executor = ImmediateExecutor,
@@ -561,11 +815,16 @@ internal fun createSessionBasedSession(
 	lazyOf(packageInstaller), apks, id, initialState, initialProgress,
 	confirmation = Confirmation.DEFERRED,
 	notificationData = NotificationData.DEFAULT,
-	requireUserAction, installMode, preapproval, constraints, requestUpdateOwnership, packageSource,
+	requireUserAction, installMode, preapproval, constraints, requestUpdateOwnership, packageSource, digests,
+	initialStagedDigests = emptyMap(),
+	stagingBandwidth = null,
+	durabilityPolicy,
+	archive,
 	sessionDao = RecordingSessionDao(),
 	sessionFailureDao = TestSessionFailureDao(),
 	sessionProgressDao = RecordingSessionProgressDao(),
-	nativeSessionIdDao, preapprovalDao, constraintsDao, executor, parallelism,
+	nativeSessionIdDao, stagingCheckpointDao, apkDigestDao, preapprovalDao, constraintsDao, executor, parallelism,
+	globalIoGovernor = { IoGovernor.Unlimited },
 	handler = Handler(Looper.getMainLooper()),
 	sessionCallbackHandler = Handler(Looper.getMainLooper()),
 	nativeSessionId,
@@ -583,5 +842,6 @@ private val SessionParams.mode: Int
 private val SessionParams.requireUserAction: Int
 	get() = ReflectionHelpers.getField(this, "requireUserAction")
 
+private const val APK_SHA256 = "dd37c2d7274f7ea982cb83390c36918fee9ce8889073c44b68cdc00bdb8c3e04"
 private const val INSTALL_DONT_KILL_APP = 0x00001000
 private const val INSTALL_REQUEST_UPDATE_OWNERSHIP = 1 shl 25
\ No newline at end of file
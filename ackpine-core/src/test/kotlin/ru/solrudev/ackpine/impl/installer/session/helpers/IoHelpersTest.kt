@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.installer.session.helpers
+
+import android.os.CancellationSignal
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import ru.solrudev.ackpine.AckpineBufferPool
+import java.io.ByteArrayOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertContentEquals
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+
+@RunWith(RobolectricTestRunner::class)
+class IoHelpersTest {
+
+	private val file = File.createTempFile("io-helpers-", ".bin").apply { writeBytes(ByteArray(64) { it.toByte() }) }
+
+	@AfterTest
+	fun tearDown() {
+		file.delete()
+	}
+
+	@Test
+	fun transferToCopiesRequestedRange() {
+		val out = ByteArrayOutputStream()
+		FileInputStream(file).channel.use { channel ->
+			channel.transferTo(position = 16, count = 32, out, CancellationSignal())
+		}
+		assertContentEquals(ByteArray(32) { (it + 16).toByte() }, out.toByteArray())
+	}
+
+	@Test
+	fun transferToCopiesRangeLongerThanPooledBufferToStream() {
+		val length = AckpineBufferPool.bufferLength * 2 + 10
+		val data = ByteArray(length + 16) { (it * 31).toByte() }
+		file.writeBytes(data)
+		val out = ByteArrayOutputStream()
+		val chunks = mutableListOf<Long>()
+		FileInputStream(file).channel.use { channel ->
+			channel.transferTo(position = 16, count = length.toLong(), out, CancellationSignal()) { chunks += it }
+		}
+		assertContentEquals(data.copyOfRange(16, data.size), out.toByteArray())
+		assertEquals(AckpineBufferPool.bufferLength.toLong(), chunks.max())
+	}
+
+	@Test
+	fun transferToCopiesRequestedRangeToFile() {
+		val target = File.createTempFile("io-helpers-", ".out")
+		try {
+			FileInputStream(file).channel.use { channel ->
+				FileOutputStream(target).use { out ->
+					channel.transferTo(position = 16, count = 32, out, CancellationSignal())
+				}
+			}
+			assertContentEquals(ByteArray(32) { (it + 16).toByte() }, target.readBytes())
+		} finally {
+			target.delete()
+		}
+	}
+
+	@Test
+	fun transferToThrowsWhenChannelEndsBeforeCount() {
+		FileInputStream(file).channel.use { channel ->
+			assertFailsWith<EOFException> {
+				channel.transferTo(position = 32, count = 64, ByteArrayOutputStream(), CancellationSignal())
+			}
+		}
+	}
+}
\ No newline at end of file
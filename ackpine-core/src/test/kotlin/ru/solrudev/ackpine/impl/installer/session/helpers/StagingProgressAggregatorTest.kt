@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.installer.session.helpers
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+class StagingProgressAggregatorTest {
+
+	@Test
+	fun progressIsWeightedByFileLength() {
+		val published = mutableListOf<Float>()
+		val aggregator = StagingProgressAggregator(
+			lengths = listOf(900L, 100L),
+			publishIntervalNanos = 0,
+			publish = published::add
+		)
+
+		aggregator.addFileProgress(index = 1, PROGRESS_MAX)
+		aggregator.addFileProgress(index = 0, PROGRESS_MAX / 2)
+
+		assertEquals(listOf(0.1f, 0.55f), published)
+	}
+
+	@Test
+	fun intermediateProgressIsRateLimited() {
+		var now = 0L
+		val published = mutableListOf<Float>()
+		val aggregator = StagingProgressAggregator(
+			lengths = listOf(100L),
+			publishIntervalNanos = 10,
+			clock = { now },
+			publish = published::add
+		)
+
+		aggregator.add(10)
+		now = 5
+		aggregator.add(10)
+		now = 10
+		aggregator.add(10)
+
+		assertEquals(listOf(0.3f), published)
+	}
+
+	@Test
+	fun finalProgressIsAlwaysPublished() {
+		val published = mutableListOf<Float>()
+		val aggregator = StagingProgressAggregator(
+			lengths = listOf(100L, 100L),
+			publishIntervalNanos = Long.MAX_VALUE,
+			clock = { 0L },
+			publish = published::add
+		)
+
+		aggregator.addFileProgress(index = 0, PROGRESS_MAX)
+		aggregator.addFileProgress(index = 1, PROGRESS_MAX)
+
+		assertEquals(listOf(1f), published)
+	}
+
+	@Test
+	fun unknownLengthIsWeightedByAverageKnownLength() {
+		val published = mutableListOf<Float>()
+		val aggregator = StagingProgressAggregator(
+			lengths = listOf(300L, -1L, 100L),
+			publishIntervalNanos = 0,
+			publish = published::add
+		)
+
+		aggregator.addFileProgress(index = 1, PROGRESS_MAX)
+
+		assertEquals(listOf(1f / 3), published)
+	}
+}
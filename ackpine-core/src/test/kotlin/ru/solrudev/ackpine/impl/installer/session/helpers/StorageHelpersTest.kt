@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.installer.session.helpers
+
+import android.content.Context
+import android.os.Build
+import androidx.test.core.app.ApplicationProvider
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+
+@RunWith(RobolectricTestRunner::class)
+class StorageHelpersTest {
+
+	private val context: Context = ApplicationProvider.getApplicationContext()
+
+	@Test
+	fun reserveStagingStorageSucceedsWhenSpaceIsUsable() {
+		context.reserveStagingStorage(bytes = 1)
+	}
+
+	@Test
+	@Config(sdk = [Build.VERSION_CODES.N])
+	fun reserveStagingStorageThrowsWhenSpaceIsInsufficient() {
+		val exception = assertFailsWith<InsufficientStorageException> {
+			context.reserveStagingStorage(bytes = Long.MAX_VALUE)
+		}
+		assertEquals(Long.MAX_VALUE, exception.requiredBytes)
+		assertEquals(context.filesDir.path, exception.storagePath)
+	}
+}
\ No newline at end of file
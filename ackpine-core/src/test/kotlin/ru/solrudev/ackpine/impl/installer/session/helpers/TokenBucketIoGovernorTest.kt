@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.installer.session.helpers
+
+import android.os.CancellationSignal
+import android.os.OperationCanceledException
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+@RunWith(RobolectricTestRunner::class)
+class TokenBucketIoGovernorTest {
+
+	private var now = 0L
+	private var sleptNanos = 0L
+
+	@Test
+	fun writesWithinBurstAreNotDelayed() {
+		val governor = createGovernor(bytesPerSecond = 1000, isAdaptive = false)
+
+		governor.acquire(100, CancellationSignal())
+
+		assertEquals(0L, sleptNanos)
+	}
+
+	@Test
+	fun writesExceedingBurstAreDelayedToMatchRate() {
+		val governor = createGovernor(bytesPerSecond = 1000, isAdaptive = false)
+
+		governor.acquire(100, CancellationSignal())
+		governor.acquire(500, CancellationSignal())
+
+		assertEquals(500_000_000L, sleptNanos)
+	}
+
+	@Test
+	fun waitingIsInterruptedByCancellation() {
+		val signal = CancellationSignal()
+		val governor = TokenBucketIoGovernor(
+			maxBytesPerSecond = 1000,
+			isAdaptive = false,
+			clock = { now },
+			sleep = { nanos ->
+				now += nanos
+				signal.cancel()
+			}
+		)
+
+		assertFailsWith<OperationCanceledException> {
+			governor.acquire(10_000, signal)
+		}
+	}
+
+	@Test
+	fun adaptiveGovernorBacksOffWhenLatencyRises() {
+		val governor = createGovernor(bytesPerSecond = 1600, isAdaptive = true)
+
+		governor.onWritten(bytes = 100, latencyNanos = 1000)
+		governor.onWritten(bytes = 100, latencyNanos = 100_000)
+
+		assertTrue(governor.currentBytesPerSecond < 1600)
+	}
+
+	@Test
+	fun adaptiveGovernorRecoversWhenLatencySettles() {
+		val governor = createGovernor(bytesPerSecond = 1600, isAdaptive = true)
+		governor.onWritten(bytes = 100, latencyNanos = 1000)
+		governor.onWritten(bytes = 100, latencyNanos = 100_000)
+		val reducedRate = governor.currentBytesPerSecond
+
+		repeat(100) {
+			governor.onWritten(bytes = 100, latencyNanos = 1000)
+		}
+
+		assertTrue(governor.currentBytesPerSecond > reducedRate)
+		assertEquals(1600L, governor.currentBytesPerSecond)
+	}
+
+	@Test
+	fun limitedGovernorIgnoresLatency() {
+		val governor = createGovernor(bytesPerSecond = 1600, isAdaptive = false)
+
+		governor.onWritten(bytes = 100, latencyNanos = 1000)
+		governor.onWritten(bytes = 100, latencyNanos = 100_000)
+
+		assertEquals(1600L, governor.currentBytesPerSecond)
+	}
+
+	private fun createGovernor(bytesPerSecond: Long, isAdaptive: Boolean) = TokenBucketIoGovernor(
+		maxBytesPerSecond = bytesPerSecond,
+		isAdaptive = isAdaptive,
+		clock = { now },
+		sleep = { nanos ->
+			now += nanos
+			sleptNanos += nanos
+		}
+	)
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.impl.session
+
+import ru.solrudev.ackpine.impl.testutil.TestCompletableSession
+import ru.solrudev.ackpine.impl.testutil.TestFailure
+import ru.solrudev.ackpine.session.Session
+import java.util.UUID
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class SessionRegistryTest {
+
+	@Test
+	fun nonTerminalSessionsAreRetainedRegardlessOfCapacity() {
+		val registry = SessionRegistry<TestCompletableSession<TestFailure>>(terminalSessionsCapacity = 0)
+		val sessions = List(3) { TestCompletableSession<TestFailure>(UUID.randomUUID()) }
+
+		for (session in sessions) {
+			registry[session.id] = session
+		}
+
+		assertEquals(sessions.toSet(), registry.values().toSet())
+		for (session in sessions) {
+			assertSame(session, registry[session.id])
+		}
+	}
+
+	@Test
+	fun evictedTerminalSessionIsReturnedWhileReachable() {
+		val registry = SessionRegistry<TestCompletableSession<TestFailure>>(terminalSessionsCapacity = 1)
+		val first = TestCompletableSession<TestFailure>(UUID.randomUUID())
+		val second = TestCompletableSession<TestFailure>(UUID.randomUUID(), Session.State.Succeeded)
+		registry[first.id] = first
+		first.cancel()
+		registry[second.id] = second
+
+		assertSame(first, registry[first.id])
+		assertSame(second, registry[second.id])
+		assertEquals(setOf(first, second), registry.values().toSet())
+	}
+
+	@Test
+	fun getOrPutLoadsOnlyAbsentSessions() {
+		val registry = SessionRegistry<TestCompletableSession<TestFailure>>(terminalSessionsCapacity = 1)
+		val session = TestCompletableSession<TestFailure>(UUID.randomUUID())
+		var loadsCount = 0
+
+		val loaded = registry.getOrPut(session.id) {
+			loadsCount++
+			session
+		}
+		val cached = registry.getOrPut(session.id) {
+			loadsCount++
+			TestCompletableSession(session.id)
+		}
+		val missing = registry.getOrPut(UUID.randomUUID()) { null }
+
+		assertSame(session, loaded)
+		assertSame(session, cached)
+		assertNull(missing)
+		assertEquals(1, loadsCount)
+	}
+
+	@Test
+	fun populatedValuesAreReturnedOnlyAfterPopulating() {
+		val registry = SessionRegistry<TestCompletableSession<TestFailure>>(terminalSessionsCapacity = 1)
+		val session = TestCompletableSession<TestFailure>(UUID.randomUUID())
+		registry[session.id] = session
+		assertNull(registry.populatedValues())
+
+		registry.populate {}
+
+		assertEquals(listOf(session), registry.populatedValues())
+		assertTrue(registry.values().contains(session))
+	}
+}
\ No newline at end of file
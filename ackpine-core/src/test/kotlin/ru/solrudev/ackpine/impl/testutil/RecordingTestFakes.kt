@@ -17,15 +17,19 @@
 package ru.solrudev.ackpine.impl.testutil
 
 import android.content.IntentSender
+import android.content.pm.Checksum
 import android.content.pm.PackageInstaller
 import android.os.Handler
 import org.robolectric.util.ReflectionHelpers
+import ru.solrudev.ackpine.impl.database.dao.ApkDigestDao
 import ru.solrudev.ackpine.impl.database.dao.InstallConstraintsDao
 import ru.solrudev.ackpine.impl.database.dao.InstallPreapprovalDao
 import ru.solrudev.ackpine.impl.database.dao.NativeSessionIdDao
 import ru.solrudev.ackpine.impl.database.dao.SessionDao
 import ru.solrudev.ackpine.impl.database.dao.SessionProgressDao
+import ru.solrudev.ackpine.impl.database.dao.StagingCheckpointDao
 import ru.solrudev.ackpine.impl.database.model.SessionEntity
+import ru.solrudev.ackpine.impl.database.model.StagingCheckpointEntity
 import ru.solrudev.ackpine.impl.services.PackageInstallerService
 import ru.solrudev.ackpine.plugability.AckpinePlugin
 import ru.solrudev.ackpine.session.Progress
@@ -91,6 +95,59 @@ internal class RecordingNativeSessionIdDao : NativeSessionIdDao {
 	}
 }
 
+internal class RecordingStagingCheckpointDao(
+	initialCheckpoints: List<StagingCheckpointEntity> = emptyList()
+) : StagingCheckpointDao {
+
+	private val _checkpoints = initialCheckpoints.toMutableList()
+	val checkpoints: List<StagingCheckpointEntity> = _checkpoints
+
+	override fun getCheckpoints(sessionId: String): List<StagingCheckpointEntity> {
+		return _checkpoints.filter { checkpoint -> checkpoint.sessionId == sessionId }
+	}
+
+	override fun setCheckpoint(
+		sessionId: String,
+		apkIndex: Int,
+		rangeOffset: Long,
+		rangeLength: Long,
+		stagedBytes: Long,
+		sourceLength: Long,
+		sourceChecksum: Long
+	) {
+		_checkpoints.removeAll { checkpoint ->
+			checkpoint.sessionId == sessionId
+					&& checkpoint.apkIndex == apkIndex
+					&& checkpoint.rangeOffset == rangeOffset
+		}
+		_checkpoints += StagingCheckpointEntity(
+			sessionId, apkIndex, rangeOffset, rangeLength, stagedBytes, sourceLength, sourceChecksum
+		)
+	}
+
+	override fun clearApkCheckpoints(sessionId: String, apkIndex: Int) {
+		_checkpoints.removeAll { checkpoint -> checkpoint.sessionId == sessionId && checkpoint.apkIndex == apkIndex }
+	}
+
+	override fun clearCheckpoints(sessionId: String) {
+		_checkpoints.removeAll { checkpoint -> checkpoint.sessionId == sessionId }
+	}
+}
+
+internal class RecordingApkDigestDao : ApkDigestDao {
+
+	private val _stagedDigests = mutableMapOf<Int, String>()
+	val stagedDigests: Map<Int, String> = _stagedDigests
+
+	override fun setStagedDigest(sessionId: String, apkIndex: Int, stagedDigest: String) {
+		_stagedDigests[apkIndex] = stagedDigest
+	}
+
+	override fun clearStagedDigests(sessionId: String) {
+		_stagedDigests.clear()
+	}
+}
+
 internal class RecordingInstallPreapprovalDao(
 	private val onPreapprovalConsumed: () -> Unit = {}
 ) : InstallPreapprovalDao {
@@ -260,6 +317,12 @@ internal class RecordingPackageInstallerService(override val uid: Int = 10000) :
 		private val _writes = mutableMapOf<String, ByteArray>()
 		val writes: Map<String, ByteArray> = _writes
 
+		private val _checksums = mutableMapOf<String, List<Checksum>>()
+		val checksums: Map<String, List<Checksum>> = _checksums
+
+		private val _events = mutableListOf<String>()
+		val events: List<String> = _events
+
 		private val _commits = mutableListOf<IntentSender>()
 		val commits: List<IntentSender> = _commits
 
@@ -267,19 +330,21 @@ internal class RecordingPackageInstallerService(override val uid: Int = 10000) :
 		val preapprovalRequests: List<PreapprovalRequest> = _preapprovalRequests
 
 		override fun openWrite(name: String, offsetBytes: Long, lengthBytes: Long): OutputStream {
-			return object : ByteArrayOutputStream() {
-				override fun close() {
-					_writes[name] = toByteArray()
-				}
-			}
+			_events += "open $name"
+			return RecordingOutputStream(name)
 		}
 
-		override fun fsync(out: OutputStream) { // no-op
+		override fun fsync(out: OutputStream) {
+			_events += "fsync ${(out as RecordingOutputStream).name}"
 		}
 
 		override fun setStagingProgress(progress: Float) { // no-op
 		}
 
+		override fun setChecksums(name: String, checksums: List<Checksum>, signature: ByteArray?) {
+			_checksums[name] = checksums
+		}
+
 		override fun commit(statusReceiver: IntentSender) {
 			_commits += statusReceiver
 		}
@@ -301,6 +366,14 @@ internal class RecordingPackageInstallerService(override val uid: Int = 10000) :
 			val details: PackageInstaller.PreapprovalDetails,
 			val statusReceiver: IntentSender
 		)
+
+		private inner class RecordingOutputStream(val name: String) : ByteArrayOutputStream() {
+
+			override fun close() {
+				_writes[name] = toByteArray()
+				_events += "close $name"
+			}
+		}
 	}
 }
 
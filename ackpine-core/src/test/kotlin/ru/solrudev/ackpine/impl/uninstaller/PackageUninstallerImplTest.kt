@@ -16,6 +16,8 @@
 
 package ru.solrudev.ackpine.impl.uninstaller
 
+import android.os.Handler
+import android.os.Looper
 import kotlinx.coroutines.test.runTest
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
@@ -163,7 +165,9 @@ class PackageUninstallerImplTest : HasAckpineDatabaseTest() {
 		logger: RecordingAckpineLogger? = null
 	) = PackageUninstallerImpl(
 		uninstallSessionDao = database.uninstallSessionDao(),
+		invalidationTracker = database.invalidationTracker,
 		executor = ImmediateExecutor,
+		handler = Handler(Looper.getMainLooper()),
 		ackpineServiceProviders = AckpineServiceProviders(
 			lazy { emptySet() },
 			AckpineLoggerProvider("AckpineServiceProviders") { logger }
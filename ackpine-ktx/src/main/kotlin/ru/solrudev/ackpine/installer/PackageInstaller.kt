@@ -20,6 +20,12 @@ import android.net.Uri
 import android.os.Build
 import androidx.annotation.RequiresApi
 import androidx.concurrent.futures.await
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.callbackFlow
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
 import ru.solrudev.ackpine.capabilities.InstallerCapabilities
 import ru.solrudev.ackpine.exceptions.SplitPackagesNotSupportedException
 import ru.solrudev.ackpine.installer.parameters.InstallParameters
@@ -28,6 +34,9 @@ import ru.solrudev.ackpine.installer.parameters.InstallerType
 import ru.solrudev.ackpine.plugability.AckpineInstallPlugin
 import ru.solrudev.ackpine.session.ProgressSession
 import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsDiff
 import java.util.UUID
 import kotlin.reflect.KClass
 
@@ -92,6 +101,40 @@ public suspend fun PackageInstaller.getActiveSessions(): List<ProgressSession<In
 	return getActiveSessionsAsync().await()
 }
 
+/**
+ * A suspending variant of [PackageInstaller.getSessionSnapshotsAsync].
+ * @param query an instance of [SessionSnapshotQuery] which configures filtering and paging. By default, snapshots of
+ * all sessions are returned.
+ * @return List of [SessionSnapshots][SessionSnapshot].
+ */
+public suspend fun PackageInstaller.getSessionSnapshots(
+	query: SessionSnapshotQuery = SessionSnapshotQuery.ALL
+): List<SessionSnapshot<InstallFailure>> {
+	return getSessionSnapshotsAsync(query).await()
+}
+
+/**
+ * Returns a cold [Flow] of changes of [session snapshots][SessionSnapshot] matching the [query]. It will emit all
+ * current snapshots as [added][SessionSnapshotsDiff.added] immediately when collecting is triggered, and then emit
+ * differences with previously emitted snapshots whenever sessions change.
+ *
+ * Emitted differences are buffered and never dropped, so applying them in order to the first emitted snapshots always
+ * reproduces the latest known snapshots.
+ *
+ * @see PackageInstaller.addSessionSnapshotsListener
+ * @param query an instance of [SessionSnapshotQuery] which configures filtering and paging. By default, snapshots of
+ * all sessions are observed.
+ */
+public fun PackageInstaller.sessionSnapshots(
+	query: SessionSnapshotQuery = SessionSnapshotQuery.ALL
+): Flow<SessionSnapshotsDiff<InstallFailure>> = callbackFlow {
+	val subscriptionContainer = DisposableSubscriptionContainer()
+	addSessionSnapshotsListener(subscriptionContainer, query) { diff ->
+		trySend(diff)
+	}
+	awaitClose(subscriptionContainer::dispose)
+}.buffer(Channel.UNLIMITED)
+
 /**
  * Kotlin-friendly variant of [PackageInstaller.getCapabilities].
  * @param installerType the requested installer backend type.
@@ -39,4 +39,15 @@ public inline fun InstallParameters(
 	configure: InstallParametersDsl.() -> Unit
 ): InstallParameters {
 	return InstallParametersDslBuilder(apks).apply(configure).build()
+}
+
+/**
+ * Constructs a new instance of [InstallParameters] for installing selected entries of the [archive].
+ */
+@RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+public inline fun InstallParameters(
+	archive: ApkArchive,
+	configure: InstallParametersDsl.() -> Unit
+): InstallParameters {
+	return InstallParametersDslBuilder(archive).apply(configure).build()
 }
\ No newline at end of file
@@ -134,6 +134,29 @@ public interface InstallParametersDsl : ConfirmationDsl, AckpinePluginRegistryDs
 	 */
 	public var packageSource: PackageSource
 
+	/**
+	 * Configuration of APK digests computed while APKs are being written to an install session. Takes effect only
+	 * with [InstallerType.SESSION_BASED] installer type.
+	 *
+	 * Default value is `null`, which means that digests are not computed.
+	 */
+	public var digests: ApkDigests?
+
+	/**
+	 * Storage bandwidth available for writing APKs into an install session. Takes effect only with
+	 * [InstallerType.SESSION_BASED] installer type.
+	 *
+	 * Default value is `null`, which means that the global default set with `Ackpine.setStagingBandwidth()` is used.
+	 */
+	public var stagingBandwidth: StagingBandwidth?
+
+	/**
+	 * Policy of syncing APKs written to an install session to storage.
+	 *
+	 * Default value is [DurabilityPolicy.PER_FILE].
+	 */
+	public var durabilityPolicy: DurabilityPolicy
+
 	/**
 	 * Registers a [plugin] for the install session.
 	 * @param plugin Kotlin class of a registered plugin, implementing [AckpineInstallPlugin].
@@ -163,6 +186,11 @@ internal class InstallParametersDslBuilder : InstallParametersDsl {
 		builder = InstallParameters.Builder(apks)
 	}
 
+	@RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+	constructor(archive: ApkArchive) {
+		builder = InstallParameters.Builder(archive)
+	}
+
 	private val builder: InstallParameters.Builder
 
 	override val apks: MutableApkList
@@ -229,6 +257,24 @@ internal class InstallParametersDslBuilder : InstallParametersDsl {
 			builder.setPackageSource(value)
 		}
 
+	override var digests: ApkDigests?
+		get() = builder.digests
+		set(value) {
+			builder.setDigests(value)
+		}
+
+	override var stagingBandwidth: StagingBandwidth?
+		get() = builder.stagingBandwidth
+		set(value) {
+			builder.setStagingBandwidth(value)
+		}
+
+	override var durabilityPolicy: DurabilityPolicy
+		get() = builder.durabilityPolicy
+		set(value) {
+			builder.setDurabilityPolicy(value)
+		}
+
 	override fun <Params : Parameters> plugin(
 		plugin: KClass<out AckpineInstallPlugin<Params>>,
 		parameters: Params
@@ -17,9 +17,18 @@
 package ru.solrudev.ackpine.uninstaller
 
 import androidx.concurrent.futures.await
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.callbackFlow
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
 import ru.solrudev.ackpine.capabilities.UninstallerCapabilities
 import ru.solrudev.ackpine.plugability.AckpineUninstallPlugin
 import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsDiff
 import ru.solrudev.ackpine.uninstaller.parameters.UninstallParameters
 import ru.solrudev.ackpine.uninstaller.parameters.UninstallParametersDsl
 import ru.solrudev.ackpine.uninstaller.parameters.UninstallerType
@@ -65,6 +74,40 @@ public suspend fun PackageUninstaller.getActiveSessions(): List<Session<Uninstal
 	return getActiveSessionsAsync().await()
 }
 
+/**
+ * A suspending variant of [PackageUninstaller.getSessionSnapshotsAsync].
+ * @param query an instance of [SessionSnapshotQuery] which configures filtering and paging. By default, snapshots of
+ * all sessions are returned.
+ * @return List of [SessionSnapshots][SessionSnapshot].
+ */
+public suspend fun PackageUninstaller.getSessionSnapshots(
+	query: SessionSnapshotQuery = SessionSnapshotQuery.ALL
+): List<SessionSnapshot<UninstallFailure>> {
+	return getSessionSnapshotsAsync(query).await()
+}
+
+/**
+ * Returns a cold [Flow] of changes of [session snapshots][SessionSnapshot] matching the [query]. It will emit all
+ * current snapshots as [added][SessionSnapshotsDiff.added] immediately when collecting is triggered, and then emit
+ * differences with previously emitted snapshots whenever sessions change.
+ *
+ * Emitted differences are buffered and never dropped, so applying them in order to the first emitted snapshots always
+ * reproduces the latest known snapshots.
+ *
+ * @see PackageUninstaller.addSessionSnapshotsListener
+ * @param query an instance of [SessionSnapshotQuery] which configures filtering and paging. By default, snapshots of
+ * all sessions are observed.
+ */
+public fun PackageUninstaller.sessionSnapshots(
+	query: SessionSnapshotQuery = SessionSnapshotQuery.ALL
+): Flow<SessionSnapshotsDiff<UninstallFailure>> = callbackFlow {
+	val subscriptionContainer = DisposableSubscriptionContainer()
+	addSessionSnapshotsListener(subscriptionContainer, query) { diff ->
+		trySend(diff)
+	}
+	awaitClose(subscriptionContainer::dispose)
+}.buffer(Channel.UNLIMITED)
+
 /**
  * Kotlin-friendly variant of [PackageUninstaller.getCapabilities].
  * @param uninstallerType the requested uninstaller backend type.
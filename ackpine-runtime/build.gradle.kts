@@ -23,6 +23,9 @@ plugins {
 
 ackpine {
 	id = "runtime"
+	testing {
+		enableHostTests = true
+	}
 	artifact {
 		name = "Ackpine Runtime"
 	}
@@ -33,4 +36,5 @@ dependencies {
 	compileOnly(libs.listenableFuture)
 	implementation(androidx.core.ktx)
 	implementation(androidx.concurrent.futures.core)
+	testImplementation(libs.kotlin.test)
 }
\ No newline at end of file
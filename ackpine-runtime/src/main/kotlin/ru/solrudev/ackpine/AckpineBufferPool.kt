@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine
+
+import androidx.annotation.RestrictTo
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.atomic.AtomicLong
+
+private const val ACKPINE_BUFFER_LENGTH = 128 * 1024
+
+/**
+ * A bounded pool of I/O buffers shared between all Ackpine modules.
+ *
+ * Buffers are borrowed for the duration of a single copy operation. The pool retains at most one buffer per
+ * [AckpineThreadPool] thread, so that it never holds more memory than copies running concurrently on it need. If
+ * the pool is empty, a new buffer is allocated, and if it's full, a returned buffer is left to GC.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public object AckpineBufferPool {
+
+	private val buffers = ArrayBlockingQueue<ByteArray>(AckpineThreadPool.threadCount)
+	private val hits = AtomicLong(0)
+	private val misses = AtomicLong(0)
+
+	/**
+	 * Length of the buffers provided by the pool.
+	 */
+	@get:RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public val bufferLength: Int = ACKPINE_BUFFER_LENGTH
+
+	/**
+	 * Amount of buffer requests which were served by a pooled buffer.
+	 */
+	@get:RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public val hitCount: Long
+		get() = hits.get()
+
+	/**
+	 * Amount of buffer requests which required allocating a new buffer.
+	 */
+	@get:RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public val missCount: Long
+		get() = misses.get()
+
+	/**
+	 * Ratio of [hitCount] to the total amount of buffer requests, or `0` if there were none.
+	 */
+	@get:RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public val hitRate: Double
+		get() {
+			val hitCount = hits.get()
+			val requestCount = hitCount + misses.get()
+			return if (requestCount == 0L) 0.0 else hitCount.toDouble() / requestCount
+		}
+
+	/**
+	 * Borrows a buffer of [bufferLength] from the pool. The buffer must be returned with [release] after use and must
+	 * not be used afterwards.
+	 */
+	@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public fun acquire(): ByteArray {
+		val buffer = buffers.poll()
+		if (buffer != null) {
+			hits.incrementAndGet()
+			return buffer
+		}
+		misses.incrementAndGet()
+		return ByteArray(ACKPINE_BUFFER_LENGTH)
+	}
+
+	/**
+	 * Returns a [buffer] borrowed with [acquire] to the pool.
+	 */
+	@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public fun release(buffer: ByteArray) {
+		if (buffer.size == ACKPINE_BUFFER_LENGTH) {
+			buffers.offer(buffer)
+		}
+	}
+
+	/**
+	 * Executes the given [block] function with a buffer borrowed from the pool and returns the buffer afterwards.
+	 */
+	@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public inline fun <R> withBuffer(block: (ByteArray) -> R): R {
+		val buffer = acquire()
+		try {
+			return block(buffer)
+		} finally {
+			release(buffer)
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine
+
+import androidx.annotation.RestrictTo
+import java.io.EOFException
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.util.zip.ZipFile
+
+private const val RES_STRING_POOL_TYPE = 0x0001
+private const val RES_XML_TYPE = 0x0003
+private const val RES_XML_START_ELEMENT_TYPE = 0x0102
+private const val CHUNK_HEADER_SIZE = 8
+private const val MAX_CHUNK_SIZE = 16 * 1024 * 1024
+private const val UTF8_FLAG = 1 shl 8
+private const val NO_ENTRY = -1
+private const val TYPE_REFERENCE = 0x01
+private const val TYPE_STRING = 0x03
+private const val TYPE_INT_DEC = 0x10
+private const val TYPE_INT_HEX = 0x11
+private const val TYPE_INT_BOOLEAN = 0x12
+
+/**
+ * Reads attributes of the root `<manifest>` element from binary `AndroidManifest.xml` of an APK without parsing
+ * the whole APK with `PackageManager`.
+ *
+ * The probe streams the manifest chunk by chunk, keeps only its string pool in a buffer borrowed from
+ * [AckpineBufferPool] and stops as soon as the root element is read.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public object AndroidManifestProbe {
+
+	/**
+	 * Name of the manifest entry in APK.
+	 */
+	@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public const val ANDROID_MANIFEST_FILE_NAME: String = "AndroidManifest.xml"
+
+	/**
+	 * Returns package name declared in manifest of the APK [file], or `null` if the file is not a valid APK.
+	 */
+	@JvmStatic
+	@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public fun readPackageName(file: File): String? = try {
+		ZipFile(file).use { zipFile ->
+			val entry = zipFile.getEntry(ANDROID_MANIFEST_FILE_NAME) ?: return null
+			var packageName: String? = null
+			zipFile.getInputStream(entry).use { manifest ->
+				readManifestAttributes(manifest) { namespace, name, value ->
+					if (namespace.isEmpty() && name == "package") {
+						packageName = value
+					}
+				}
+			}
+			packageName
+		}
+	} catch (_: IOException) {
+		null
+	}
+
+	/**
+	 * Reads attributes of the root `<manifest>` element from binary XML [manifest] and passes them to [visitor].
+	 * Attribute values are coerced to strings the same way as `AndroidBinXmlParser` from apksig does.
+	 *
+	 * Returns `false` if the root element is not `<manifest>` or the document has no elements.
+	 *
+	 * @throws IOException if [manifest] is not a valid binary XML.
+	 */
+	@JvmStatic
+	@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public fun readManifestAttributes(manifest: InputStream, visitor: AttributeVisitor): Boolean {
+		val reader = ChunkReader(manifest)
+		if (reader.readChunkHeader() != RES_XML_TYPE) {
+			throw IOException("Not a binary XML")
+		}
+		reader.skipChunkHeaderRemainder()
+		var stringPool: StringPool? = null
+		try {
+			while (true) {
+				val type = reader.readChunkHeaderOrEnd() ?: return false
+				when (type) {
+					RES_STRING_POOL_TYPE -> {
+						stringPool?.close()
+						stringPool = StringPool(reader.readChunkBody())
+					}
+
+					RES_XML_START_ELEMENT_TYPE -> {
+						val pool = stringPool ?: throw IOException("String pool not found before first element")
+						return readManifestElement(reader.readChunkBody(), pool, visitor)
+					}
+
+					else -> reader.skipChunkBody()
+				}
+			}
+		} catch (exception: IndexOutOfBoundsException) {
+			throw IOException("Malformed binary XML", exception)
+		} finally {
+			stringPool?.close()
+		}
+	}
+
+	private fun readManifestElement(element: ChunkBody, strings: StringPool, visitor: AttributeVisitor): Boolean {
+		try {
+			// Offsets are relative to chunk start, header is already consumed
+			val extensionOffset = element.headerSize - CHUNK_HEADER_SIZE
+			val namespace = element.int(extensionOffset)
+			val name = element.int(extensionOffset + 4)
+			if (namespace != NO_ENTRY || strings.getString(name) != "manifest") {
+				return false
+			}
+			val attributeStart = element.ushort(extensionOffset + 8)
+			val attributeSize = element.ushort(extensionOffset + 10)
+			val attributeCount = element.ushort(extensionOffset + 12)
+			for (index in 0..<attributeCount) {
+				val offset = extensionOffset + attributeStart + index * attributeSize
+				val attributeName = strings.getString(element.int(offset + 4))
+				if (attributeName.isEmpty()) {
+					continue
+				}
+				val attributeNamespace = strings.getStringOrEmpty(element.int(offset))
+				val rawValue = element.int(offset + 8)
+				val value = when (val dataType = element.ubyte(offset + 15)) {
+					TYPE_STRING -> strings.getString(element.int(offset + 16))
+					TYPE_INT_DEC -> element.int(offset + 16).toString()
+					TYPE_INT_HEX -> "0x" + Integer.toHexString(element.int(offset + 16))
+					TYPE_INT_BOOLEAN -> (element.int(offset + 16) != 0).toString()
+					TYPE_REFERENCE -> "@" + Integer.toHexString(element.int(offset + 16))
+					else -> if (rawValue != NO_ENTRY) {
+						strings.getString(rawValue)
+					} else {
+						throw IOException("Cannot coerce to string: value type $dataType")
+					}
+				}
+				visitor.visit(attributeNamespace, attributeName, value)
+			}
+			return true
+		} finally {
+			element.close()
+		}
+	}
+
+	/**
+	 * Receives attributes of the `<manifest>` element.
+	 */
+	@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+	public fun interface AttributeVisitor {
+
+		/**
+		 * Called for each attribute of the `<manifest>` element. [namespace] is empty if attribute has no namespace.
+		 */
+		@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+		public fun visit(namespace: String, name: String, value: String)
+	}
+}
+
+private class ChunkReader(private val input: InputStream) {
+
+	private val header = ByteArray(CHUNK_HEADER_SIZE)
+	private var headerSize = 0
+	private var chunkSize = 0
+
+	fun readChunkHeader(): Int {
+		return readChunkHeaderOrEnd() ?: throw EOFException("Unexpected end of binary XML")
+	}
+
+	fun readChunkHeaderOrEnd(): Int? {
+		val firstByte = input.read()
+		if (firstByte == -1) {
+			return null
+		}
+		header[0] = firstByte.toByte()
+		input.readFully(header, offset = 1, length = CHUNK_HEADER_SIZE - 1)
+		headerSize = header.ushort(2)
+		chunkSize = header.int(4)
+		if (headerSize < CHUNK_HEADER_SIZE || chunkSize < headerSize || chunkSize > MAX_CHUNK_SIZE) {
+			throw IOException("Malformed chunk: headerSize=$headerSize, size=$chunkSize")
+		}
+		return header.ushort(0)
+	}
+
+	fun skipChunkHeaderRemainder() = input.skipFully(headerSize - CHUNK_HEADER_SIZE.toLong())
+	fun skipChunkBody() = input.skipFully(chunkSize - CHUNK_HEADER_SIZE.toLong())
+
+	fun readChunkBody(): ChunkBody {
+		val length = chunkSize - CHUNK_HEADER_SIZE
+		val isPooled = length <= AckpineBufferPool.bufferLength
+		val bytes = if (isPooled) AckpineBufferPool.acquire() else ByteArray(length)
+		try {
+			input.readFully(bytes, offset = 0, length)
+		} catch (exception: IOException) {
+			if (isPooled) {
+				AckpineBufferPool.release(bytes)
+			}
+			throw exception
+		}
+		return ChunkBody(bytes, length, headerSize, isPooled)
+	}
+}
+
+/**
+ * Chunk contents without the common 8-byte chunk header. Must be [closed][close] after use to return the buffer.
+ */
+private class ChunkBody(
+	private val bytes: ByteArray,
+	val length: Int,
+	val headerSize: Int,
+	private val isPooled: Boolean
+) {
+
+	fun int(offset: Int) = bytes.int(checkOffset(offset, 4))
+	fun ushort(offset: Int) = bytes.ushort(checkOffset(offset, 2))
+	fun ubyte(offset: Int) = bytes[checkOffset(offset, 1)].toInt() and 0xFF
+
+	fun close() {
+		if (isPooled) {
+			AckpineBufferPool.release(bytes)
+		}
+	}
+
+	private fun checkOffset(offset: Int, size: Int): Int {
+		if (offset < 0 || offset + size > length) {
+			throw IndexOutOfBoundsException("Offset $offset is out of chunk bounds")
+		}
+		return offset
+	}
+}
+
+private class StringPool(private val chunk: ChunkBody) {
+
+	// Offsets are relative to chunk start, header is already consumed
+	private val stringCount = chunk.int(0)
+	private val isUtf8 = chunk.int(8) and UTF8_FLAG != 0
+	private val stringsStart = chunk.int(12) - CHUNK_HEADER_SIZE
+	private val offsetsStart = chunk.headerSize - CHUNK_HEADER_SIZE
+
+	fun getStringOrEmpty(index: Int) = if (index == NO_ENTRY) "" else getString(index)
+
+	fun getString(index: Int): String {
+		if (index < 0 || index >= stringCount) {
+			throw IOException("String index $index is out of bounds, string count = $stringCount")
+		}
+		val offset = stringsStart + chunk.int(offsetsStart + index * 4)
+		return if (isUtf8) getUtf8String(offset) else getUtf16String(offset)
+	}
+
+	fun close() = chunk.close()
+
+	private fun getUtf8String(offset: Int): String {
+		var position = offset
+		// Skip length in UTF-16 code units
+		position += if (chunk.ubyte(position) and 0x80 != 0) 2 else 1
+		var length = chunk.ubyte(position++)
+		if (length and 0x80 != 0) {
+			length = (length and 0x7F shl 8) or chunk.ubyte(position++)
+		}
+		val bytes = ByteArray(length)
+		for (index in 0..<length) {
+			bytes[index] = chunk.ubyte(position + index).toByte()
+		}
+		return String(bytes, Charsets.UTF_8)
+	}
+
+	private fun getUtf16String(offset: Int): String {
+		var position = offset
+		var length = chunk.ushort(position)
+		position += 2
+		if (length and 0x8000 != 0) {
+			length = (length and 0x7FFF shl 16) or chunk.ushort(position)
+			position += 2
+		}
+		val chars = CharArray(length)
+		for (index in 0..<length) {
+			chars[index] = chunk.ushort(position + index * 2).toChar()
+		}
+		return String(chars)
+	}
+}
+
+private fun ByteArray.ushort(offset: Int): Int {
+	return (this[offset].toInt() and 0xFF) or (this[offset + 1].toInt() and 0xFF shl 8)
+}
+
+private fun ByteArray.int(offset: Int): Int {
+	return ushort(offset) or (ushort(offset + 2) shl 16)
+}
+
+private fun InputStream.readFully(buffer: ByteArray, offset: Int, length: Int) {
+	var position = offset
+	val end = offset + length
+	while (position < end) {
+		val read = read(buffer, position, end - position)
+		if (read == -1) {
+			throw EOFException("Unexpected end of binary XML")
+		}
+		position += read
+	}
+}
+
+private fun InputStream.skipFully(count: Long) {
+	var remaining = count
+	while (remaining > 0) {
+		val skipped = skip(remaining)
+		if (skipped > 0) {
+			remaining -= skipped
+			continue
+		}
+		if (read() == -1) {
+			throw EOFException("Unexpected end of binary XML")
+		}
+		remaining--
+	}
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine
+
+import android.content.ContentResolver
+import android.content.Context
+import android.net.Uri
+import androidx.annotation.RestrictTo
+
+/**
+ * Options of opening entries through `ZippedFileProvider` which are available only to Ackpine itself.
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public object ZippedFileProviderOptions {
+
+	/**
+	 * Boolean option in `opts` of [ContentResolver.openTypedAssetFileDescriptor]. If `true`, STORED entries are
+	 * opened as a region of the ZIP file with a known length instead of being streamed through a pipe.
+	 */
+	public const val OPEN_STORED_ENTRY_AS_REGION: String =
+		"ru.solrudev.ackpine.ZippedFileProvider.OPEN_STORED_ENTRY_AS_REGION"
+
+	/**
+	 * Returns whether [uri] points to an entry served by `ZippedFileProvider` of the app with the [context].
+	 */
+	@JvmStatic
+	public fun isOwnZippedFileProviderUri(context: Context, uri: Uri): Boolean {
+		return uri.scheme == ContentResolver.SCHEME_CONTENT
+				&& uri.authority == "${context.packageName}.ZippedFileProvider"
+	}
+}
\ No newline at end of file
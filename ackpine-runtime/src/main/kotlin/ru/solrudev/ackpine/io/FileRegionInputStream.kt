@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.io
+
+import androidx.annotation.RestrictTo
+import java.io.EOFException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+
+/**
+ * Reads a region of the file with positional reads, so that the [channel] position is not affected and several
+ * streams may read the same channel concurrently. Doesn't own the [channel].
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class FileRegionInputStream(
+	private val channel: FileChannel,
+	private var position: Long,
+	length: Long
+) : InputStream() {
+
+	private val end = position + length
+
+	override fun read(): Int {
+		val byte = ByteArray(1)
+		return if (read(byte, 0, 1) == -1) -1 else byte[0].toInt() and 0xFF
+	}
+
+	override fun read(b: ByteArray, off: Int, len: Int): Int {
+		if (len == 0) {
+			return 0
+		}
+		val remaining = end - position
+		if (remaining <= 0) {
+			return -1
+		}
+		val bytesRead = channel.read(ByteBuffer.wrap(b, off, minOf(len.toLong(), remaining).toInt()), position)
+		if (bytesRead == -1) {
+			throw EOFException("Unexpected end of file region")
+		}
+		position += bytesRead
+		return bytesRead
+	}
+
+	override fun skip(n: Long): Long {
+		if (n <= 0) {
+			return 0
+		}
+		val skipped = minOf(n, end - position).coerceAtLeast(0)
+		position += skipped
+		return skipped
+	}
+
+	override fun available(): Int = (end - position).coerceIn(0, Int.MAX_VALUE.toLong()).toInt()
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.io
+
+import androidx.annotation.RestrictTo
+import java.io.EOFException
+import java.io.InputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+private const val INFLATER_BUFFER_LENGTH = 64 * 1024
+
+/**
+ * Inflates raw DEFLATED data of a ZIP entry read from [input]. Owns the [input] and its [Inflater].
+ */
+@RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+public class ZipEntryInflaterInputStream(
+	input: InputStream
+) : InflaterInputStream(input, Inflater(true), INFLATER_BUFFER_LENGTH) {
+
+	private var isEndOfInput = false
+	private var isClosed = false
+
+	// Inflater without ZLIB header may need an extra dummy byte to finish inflating
+	override fun fill() {
+		val bytesRead = `in`.read(buf, 0, buf.size)
+		if (bytesRead == -1) {
+			if (isEndOfInput) {
+				throw EOFException("Unexpected end of deflated entry")
+			}
+			isEndOfInput = true
+			buf[0] = 0
+			len = 1
+		} else {
+			len = bytesRead
+		}
+		inf.setInput(buf, 0, len)
+	}
+
+	override fun close() {
+		if (isClosed) {
+			return
+		}
+		isClosed = true
+		try {
+			super.close()
+		} finally {
+			inf.end()
+		}
+	}
+}
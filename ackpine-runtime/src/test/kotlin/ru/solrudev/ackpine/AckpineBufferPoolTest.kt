@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine
+
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
+
+class AckpineBufferPoolTest {
+
+	@BeforeTest
+	fun setUp() {
+		drainPool()
+	}
+
+	@Test
+	fun acquireReturnsReleasedBuffer() {
+		val buffer = AckpineBufferPool.acquire()
+		AckpineBufferPool.release(buffer)
+		val hitCount = AckpineBufferPool.hitCount
+
+		val reused = AckpineBufferPool.acquire()
+
+		assertSame(buffer, reused)
+		assertEquals(hitCount + 1, AckpineBufferPool.hitCount)
+	}
+
+	@Test
+	fun acquireAllocatesBufferOfPoolLengthWhenPoolIsEmpty() {
+		val missCount = AckpineBufferPool.missCount
+
+		val buffer = AckpineBufferPool.acquire()
+
+		assertEquals(AckpineBufferPool.bufferLength, buffer.size)
+		assertEquals(missCount + 1, AckpineBufferPool.missCount)
+	}
+
+	@Test
+	fun releaseRejectsArraysOfForeignLength() {
+		val foreignBuffer = ByteArray(AckpineBufferPool.bufferLength / 2)
+		AckpineBufferPool.release(foreignBuffer)
+
+		val buffer = AckpineBufferPool.acquire()
+
+		assertNotSame(foreignBuffer, buffer)
+		assertEquals(AckpineBufferPool.bufferLength, buffer.size)
+	}
+
+	@Test
+	fun poolRetainsAtMostOneBufferPerThread() {
+		val threadCount = AckpineThreadPool.threadCount
+		val released = List(threadCount + 1) { ByteArray(AckpineBufferPool.bufferLength) }
+		released.forEach(AckpineBufferPool::release)
+		val missCount = AckpineBufferPool.missCount
+
+		val acquired = List(threadCount + 1) { AckpineBufferPool.acquire() }
+
+		for (index in 0 until threadCount) {
+			assertSame(released[index], acquired[index])
+		}
+		assertNotSame(released.last(), acquired.last())
+		assertEquals(missCount + 1, AckpineBufferPool.missCount)
+	}
+
+	@Test
+	fun withBufferReleasesBufferWhenBlockThrows() {
+		var borrowed: ByteArray? = null
+
+		assertFailsWith<IllegalStateException> {
+			AckpineBufferPool.withBuffer { buffer ->
+				borrowed = buffer
+				throw IllegalStateException()
+			}
+		}
+
+		assertSame(borrowed, AckpineBufferPool.acquire())
+	}
+
+	private fun drainPool() {
+		while (true) {
+			val missCount = AckpineBufferPool.missCount
+			AckpineBufferPool.acquire()
+			if (AckpineBufferPool.missCount > missCount) {
+				return
+			}
+		}
+	}
+}
\ No newline at end of file
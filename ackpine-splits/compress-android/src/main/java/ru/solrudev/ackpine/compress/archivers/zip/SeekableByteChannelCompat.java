@@ -23,7 +23,9 @@ import androidx.annotation.RequiresApi;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
 
 interface SeekableByteChannelCompat extends ByteChannel {
@@ -50,6 +52,13 @@ interface SeekableByteChannelCompat extends ByteChannel {
 			delegate = fileChannel;
 		}
 
+		/**
+		 * Returns the wrapped channel.
+		 */
+		FileChannel getDelegate() {
+			return delegate;
+		}
+
 		@Override
 		public int read(ByteBuffer dst) throws IOException {
 			return delegate.read(dst);
@@ -97,10 +106,112 @@ interface SeekableByteChannelCompat extends ByteChannel {
 		}
 	}
 
+	/**
+	 * Read-only view of a region of a file channel, e.g. of a ZIP entry stored inside of another ZIP file. Positions
+	 * are relative to the start of the region. All reads are positional, so the wrapped channel's position is not
+	 * affected. Closing the region doesn't close the wrapped channel.
+	 */
+	class FileChannelRegionWrapper extends FileChannelWrapper {
+
+		private final long offset;
+		private final long length;
+		private long position = 0;
+		private boolean isOpen = true;
+
+		FileChannelRegionWrapper(FileChannel fileChannel, long offset, long length) {
+			super(fileChannel);
+			if (offset < 0 || length < 0) {
+				throw new IllegalArgumentException("Invalid region: offset=" + offset + ", length=" + length);
+			}
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			final int read = read(dst, position);
+			if (read > 0) {
+				position += read;
+			}
+			return read;
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			ensureOpen();
+			if (position >= length) {
+				return -1;
+			}
+			final long remaining = length - position;
+			if (dst.remaining() <= remaining) {
+				return getDelegate().read(dst, offset + position);
+			}
+			final int limit = dst.limit();
+			dst.limit(dst.position() + (int) remaining);
+			try {
+				return getDelegate().read(dst, offset + position);
+			} finally {
+				dst.limit(limit);
+			}
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public long position() throws IOException {
+			ensureOpen();
+			return position;
+		}
+
+		@Override
+		public SeekableByteChannelCompat position(long newPosition) throws IOException {
+			ensureOpen();
+			if (newPosition < 0) {
+				throw new IllegalArgumentException("Negative position: " + newPosition);
+			}
+			position = newPosition;
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			ensureOpen();
+			return length;
+		}
+
+		@Override
+		public SeekableByteChannelCompat truncate(long size) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return isOpen && getDelegate().isOpen();
+		}
+
+		@Override
+		public void close() {
+			isOpen = false;
+		}
+
+		private void ensureOpen() throws ClosedChannelException {
+			if (!isOpen()) {
+				throw new ClosedChannelException();
+			}
+		}
+	}
+
 	static SeekableByteChannelCompat wrap(FileChannel fileChannel) {
 		return new FileChannelWrapper(fileChannel);
 	}
 
+	static SeekableByteChannelCompat wrap(FileChannel fileChannel, long offset, long length) {
+		return new FileChannelRegionWrapper(fileChannel, offset, length);
+	}
+
 	@RequiresApi(Build.VERSION_CODES.N)
 	static SeekableByteChannelCompat wrap(SeekableByteChannel seekableByteChannel) {
 		return new SeekableByteChannelCompat() {
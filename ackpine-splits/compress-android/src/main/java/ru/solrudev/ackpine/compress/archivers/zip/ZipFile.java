@@ -150,6 +150,23 @@ public class ZipFile implements Closeable {
 			return this;
 		}
 
+		/**
+		 * Reads the archive from a region of the channel, e.g. from a ZIP entry stored without compression inside of
+		 * another ZIP file. Overrides any other input aspects like a File, Path, and so on.
+		 * <p>
+		 * Closing the built {@link ZipFile} doesn't close the channel.
+		 * </p>
+		 *
+		 * @param fileChannel The channel containing the archive.
+		 * @param offset Offset of the archive in the channel.
+		 * @param length Length of the archive.
+		 * @return {@code this} instance.
+		 */
+		public Builder setFileChannel(final FileChannel fileChannel, final long offset, final long length) {
+			this.channel = SeekableByteChannelCompat.wrap(fileChannel, offset, length);
+			return this;
+		}
+
 		/**
 		 * The actual channel, overrides any other input aspects like a File, Path, and so on.
 		 *
@@ -29,4 +29,16 @@ import kotlinx.coroutines.Job
  */
 public suspend fun SplitPackage.Provider.get(): SplitPackage {
 	return getAsync().await()
+}
+
+/**
+ * A suspending variant of [getAsync][SplitPackage.Provider.getAsync] which reports every [APK split][Apk] to the
+ * [listener] as soon as it's discovered.
+ *
+ * This suspending function is cancellable.
+ * If the [Job] of the current coroutine is cancelled or completed while this suspending function is waiting, this
+ * function immediately resumes with [CancellationException].
+ */
+public suspend fun SplitPackage.Provider.get(listener: SplitPackage.ApkListener): SplitPackage {
+	return getAsync(listener).await()
 }
\ No newline at end of file
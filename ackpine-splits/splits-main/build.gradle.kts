@@ -56,7 +56,7 @@ dependencies {
 	implementation(projects.ackpineSplits.compressAndroid)
 	implementation(androidx.core.ktx)
 	implementation(androidx.concurrent.futures.core)
-	implementation(libs.apksig)
+	testImplementation(libs.apksig)
 	testImplementation(libs.kotlin.test)
 	testImplementation(kotlinx.coroutines.test)
 	testImplementation(libs.robolectric)
@@ -100,15 +100,34 @@ public class ZippedFileProvider : ContentProvider() {
 		signal: CancellationSignal?
 	): AssetFileDescriptor {
 		if ("*/*" == mimeTypeFilter) {
-			return openAssetFile(uri, "r", signal)
+			return openAssetFile(uri, "r", opts, signal)
 		}
 		val baseType = getType(uri)
 		if (baseType != null && ClipDescription.compareMimeTypes(baseType, mimeTypeFilter)) {
-			return openAssetFile(uri, "r", signal)
+			return openAssetFile(uri, "r", opts, signal)
 		}
 		throw FileNotFoundException("Can't open $uri as type $mimeTypeFilter")
 	}
 
+	// Region of the ZIP file is returned only on request of Ackpine itself, because other callers expect the
+	// descriptor's contents to be the entry's contents
+	private fun openAssetFile(
+		uri: Uri,
+		mode: String,
+		opts: Bundle?,
+		signal: CancellationSignal?
+	): AssetFileDescriptor {
+		if (opts?.getBoolean(ZippedFileProviderOptions.OPEN_STORED_ENTRY_AS_REGION) == true) {
+			checkReadMode(mode)
+			signal?.throwIfCanceled()
+			val storedEntry = openStoredZipEntry(uri.toZipEntryUri(), signal)
+			if (storedEntry != null) {
+				return storedEntry
+			}
+		}
+		return openAssetFile(uri, mode, signal)
+	}
+
 	override fun query(
 		uri: Uri,
 		projection: Array<out String>?,
@@ -153,9 +172,7 @@ public class ZippedFileProvider : ContentProvider() {
 		val row = arrayOfNulls<Any>(columnNames.size)
 		row.setColumn(OpenableColumns.DISPLAY_NAME, zipEntryUri.entryName)
 		if (OpenableColumns.SIZE in columnNames) {
-			openZipEntryStream(zipEntryUri, signal).use { zipStream ->
-				row.setColumn(OpenableColumns.SIZE, zipStream.size)
-			}
+			row.setColumn(OpenableColumns.SIZE, getZipEntrySize(zipEntryUri, signal))
 		}
 		cursor.addRow(row)
 		return cursor
@@ -166,9 +183,7 @@ public class ZippedFileProvider : ContentProvider() {
 		signal: CancellationSignal?,
 		block: (inputFd: ParcelFileDescriptor, outputFd: ParcelFileDescriptor) -> R
 	): R {
-		if ('w' in mode || 'W' in mode) {
-			throw UnsupportedOperationException("Write mode is not supported by ZippedFileProvider")
-		}
+		checkReadMode(mode)
 		val (inputFd, outputFd) = ParcelFileDescriptor.createReliablePipe()
 		return try {
 			try {
@@ -183,14 +198,28 @@ public class ZippedFileProvider : ContentProvider() {
 		}
 	}
 
+	private fun checkReadMode(mode: String) {
+		if ('w' in mode || 'W' in mode) {
+			throw UnsupportedOperationException("Write mode is not supported by ZippedFileProvider")
+		}
+	}
+
+	// STORED entries are returned as a region of the ZIP file, so there's nothing to copy
+	private fun openStoredZipEntry(uri: ZipEntryUri, signal: CancellationSignal?): AssetFileDescriptor? {
+		try {
+			return ZipEntryStream.openStoredEntry(uri.zipFileUri, uri.entryName, context!!, signal)
+		} catch (exception: ZipEntryStreamException) {
+			throw IOException("Failed to open ZIP source at ${uri.zipFileUri}", exception)
+		}
+	}
+
 	private fun openZipEntry(uri: Uri, outputFd: ParcelFileDescriptor, signal: CancellationSignal?) {
 		val zipEntryStream = openZipEntryStream(uri.toZipEntryUri(), signal)
 		try {
 			AckpineThreadPool.execute {
 				zipEntryStream.use {
 					outputFd.safeWrite { outputStream ->
-						zipEntryStream.buffered().copyTo(outputStream, signal)
-						outputStream.flush()
+						zipEntryStream.copyTo(outputStream, signal)
 					}
 				}
 			}
@@ -209,6 +238,15 @@ public class ZippedFileProvider : ContentProvider() {
 		}
 	}
 
+	private fun getZipEntrySize(uri: ZipEntryUri, signal: CancellationSignal?): Long {
+		try {
+			return ZipEntryStream.getSize(uri.zipFileUri, uri.entryName, context!!, signal)
+				?: throw IOException("Zip entry ${uri.entryName} not found at ${uri.zipFileUri}")
+		} catch (exception: ZipEntryStreamException) {
+			throw IOException("Failed to open ZIP source at ${uri.zipFileUri}", exception)
+		}
+	}
+
 	private fun Uri.toZipEntryUri() = when {
 		authority != providerAuthority -> throw FileNotFoundException("uri=$this")
 		pathSegments.firstOrNull() == CURRENT_URI_VERSION -> parseV2Uri(this)
@@ -262,7 +300,7 @@ public class ZippedFileProvider : ContentProvider() {
 	private inline fun ParcelFileDescriptor.safeWrite(block: (outputStream: OutputStream) -> Unit) {
 		var exception: Throwable? = null
 		try {
-			FileOutputStream(fileDescriptor).buffered().use(block)
+			FileOutputStream(fileDescriptor).use(block)
 		} catch (throwable: Throwable) {
 			exception = throwable
 		} finally {
@@ -287,13 +325,15 @@ public class ZippedFileProvider : ContentProvider() {
 		}
 	}
 
+	// Streams are not buffered, as copying is done in chunks of pooled buffer's length
 	private fun InputStream.copyTo(out: OutputStream, signal: CancellationSignal?) {
-		val buffer = ByteArray(DEFAULT_BUFFER_SIZE)
-		var bytesRead = read(buffer)
-		while (bytesRead >= 0) {
-			signal?.throwIfCanceled()
-			out.write(buffer, 0, bytesRead)
-			bytesRead = read(buffer)
+		AckpineBufferPool.withBuffer { buffer ->
+			var bytesRead = read(buffer)
+			while (bytesRead >= 0) {
+				signal?.throwIfCanceled()
+				out.write(buffer, 0, bytesRead)
+				bytesRead = read(buffer)
+			}
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2024 Ilya Fomichev
+ * Copyright (C) 2026 Ilya Fomichev
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,13 @@
 
 package ru.solrudev.ackpine.io
 
-import java.io.ByteArrayOutputStream
-import java.io.InputStream
-import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
 
-@JvmSynthetic
-internal fun InputStream.toByteBuffer(): ByteBuffer {
-	val buffer = ByteArrayOutputStream()
-	copyTo(buffer)
-	return ByteBuffer.wrap(buffer.toByteArray())
-}
\ No newline at end of file
+/**
+ * A region of the file opened with [channel], e.g. data of an uncompressed ZIP entry. Doesn't own the [channel].
+ */
+internal class FileRegion(
+	val channel: FileChannel,
+	val offset: Long,
+	val length: Long
+)
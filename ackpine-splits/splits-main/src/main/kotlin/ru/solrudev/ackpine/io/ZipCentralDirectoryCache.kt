@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.io
+
+import android.net.Uri
+import android.os.Build
+import android.os.ParcelFileDescriptor
+import android.system.ErrnoException
+import android.system.Os
+import android.system.StructStat
+import android.util.LruCache
+import androidx.annotation.RequiresApi
+import androidx.annotation.VisibleForTesting
+import ru.solrudev.ackpine.compress.archivers.EntryStreamOffsets
+import ru.solrudev.ackpine.compress.archivers.zip.ZipFile
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.zip.ZipException
+
+private const val MAX_CACHED_ENTRIES = 8192
+private const val LOCAL_HEADER_SIGNATURE = 0x04034b50
+private const val LOCAL_HEADER_SIZE = 30
+
+/**
+ * Process-wide cache of parsed ZIP central directories.
+ *
+ * Directories are keyed by ZIP file [Uri] and are valid only for the same file identity (device, inode, size,
+ * modification and status change times), so a replaced or modified file is parsed again. Entries with known data
+ * offsets are additionally checked against their local headers when requested with [getEntry], as the identity may
+ * not change when the file is rewritten in place on old devices where times have only seconds precision.
+ *
+ * The cache is bounded by the total count of cached entries and evicts least recently used directories.
+ */
+internal object ZipCentralDirectoryCache {
+
+	private val directories = object : LruCache<Uri, ZipCentralDirectory>(MAX_CACHED_ENTRIES) {
+		override fun sizeOf(key: Uri, value: ZipCentralDirectory) = value.entryCount.coerceAtLeast(1)
+	}
+
+	/**
+	 * Returns central directory of the ZIP file opened at [fd], parsing it if it's not cached for the current file
+	 * identity. Doesn't close the [fd].
+	 *
+	 * @throws java.util.zip.ZipException if the file is not a valid ZIP.
+	 */
+	@JvmSynthetic
+	internal fun get(uri: Uri, fd: ParcelFileDescriptor): ZipCentralDirectory {
+		val identity = fd.fileIdentity()
+		if (identity != null) {
+			val cached = directories[uri]
+			if (cached != null && cached.identity == identity) {
+				return cached
+			}
+		}
+		val directory = parse(fd, identity)
+		if (identity != null) {
+			directories.put(uri, directory)
+		} else {
+			directories.remove(uri)
+		}
+		return directory
+	}
+
+	/**
+	 * Returns record of the entry with [entryName] from central directory of the ZIP file opened at [fd], or `null` if
+	 * there's no such entry. If entry's data offset is known, its local header is checked to be consistent with the
+	 * cached record, and the ZIP file is parsed again if it's not. Doesn't close the [fd].
+	 *
+	 * @throws ZipException if the file is not a valid ZIP or the entry's local header is inconsistent with the
+	 * central directory.
+	 */
+	@JvmSynthetic
+	internal fun getEntry(uri: Uri, fd: ParcelFileDescriptor, entryName: String): ZipEntryRecord? {
+		val zipEntry = get(uri, fd)[entryName] ?: return null
+		if (zipEntry.hasConsistentLocalHeader(fd)) {
+			return zipEntry
+		}
+		invalidate(uri)
+		val reparsedZipEntry = get(uri, fd)[entryName] ?: return null
+		if (!reparsedZipEntry.hasConsistentLocalHeader(fd)) {
+			invalidate(uri)
+			throw ZipException("Local header of $entryName is inconsistent with central directory")
+		}
+		return reparsedZipEntry
+	}
+
+	/**
+	 * Removes cached central directory of the ZIP file at [uri], e.g. when it turned out to be inconsistent with
+	 * file contents.
+	 */
+	@JvmSynthetic
+	internal fun invalidate(uri: Uri) {
+		directories.remove(uri)
+	}
+
+	@JvmSynthetic
+	@VisibleForTesting
+	internal fun clear() {
+		directories.evictAll()
+	}
+
+	private fun parse(fd: ParcelFileDescriptor, identity: FileIdentity?): ZipCentralDirectory {
+		// Closing the ZIP file closes its channel together with the file descriptor, so a duplicate is used
+		val zipFile = ParcelFileDescriptor.AutoCloseInputStream(fd.dup()).let { stream ->
+			ZipFile.builder()
+				.setFileChannel(stream.channel)
+				.get()
+		}
+		zipFile.use {
+			val entries = HashMap<String, ZipEntryRecord>()
+			for (entry in zipFile.entries) {
+				// The first entry with a given name wins, same as with ZipFile.getEntry()
+				if (entry.name !in entries) {
+					entries[entry.name] = ZipEntryRecord(
+						method = entry.method,
+						localHeaderOffset = entry.localHeaderOffset,
+						dataOffset = entry.dataOffset,
+						compressedSize = entry.compressedSize,
+						size = entry.size
+					)
+				}
+			}
+			return ZipCentralDirectory(identity, entries)
+		}
+	}
+
+	private fun ZipEntryRecord.hasConsistentLocalHeader(fd: ParcelFileDescriptor): Boolean {
+		if (localHeaderOffset == EntryStreamOffsets.OFFSET_UNKNOWN
+			|| dataOffset == EntryStreamOffsets.OFFSET_UNKNOWN
+		) {
+			return true
+		}
+		val header = ByteArray(LOCAL_HEADER_SIZE)
+		val bytesRead = try {
+			Os.pread(fd.fileDescriptor, header, 0, LOCAL_HEADER_SIZE, localHeaderOffset)
+		} catch (_: ErrnoException) {
+			return false
+		}
+		if (bytesRead < LOCAL_HEADER_SIZE) {
+			return false
+		}
+		val buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN)
+		val nameLength = buffer.getShort(26).toInt() and 0xFFFF
+		val extraLength = buffer.getShort(28).toInt() and 0xFFFF
+		return buffer.getInt(0) == LOCAL_HEADER_SIGNATURE
+				&& (buffer.getShort(8).toInt() and 0xFFFF) == method
+				&& localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength == dataOffset
+	}
+
+}
+
+/**
+ * Returns identity of the file opened at this file descriptor, or `null` if it can't be determined.
+ */
+@JvmSynthetic
+internal fun ParcelFileDescriptor.fileIdentity() = try {
+	Os.fstat(fileDescriptor).toFileIdentity()
+} catch (_: ErrnoException) {
+	null
+}
+
+@JvmSynthetic
+internal fun File.fileIdentity() = try {
+	Os.stat(path).toFileIdentity()
+} catch (_: ErrnoException) {
+	null
+}
+
+private fun StructStat.toFileIdentity(): FileIdentity {
+	if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+		return FileIdentity(st_dev, st_ino, st_size, modifiedTimeNanos(), statusChangedTimeNanos())
+	}
+	val nanosInSecond = 1_000_000_000L
+	return FileIdentity(st_dev, st_ino, st_size, st_mtime * nanosInSecond, st_ctime * nanosInSecond)
+}
+
+@RequiresApi(Build.VERSION_CODES.O_MR1)
+private fun StructStat.modifiedTimeNanos() = st_mtim.tv_sec * 1_000_000_000L + st_mtim.tv_nsec
+
+@RequiresApi(Build.VERSION_CODES.O_MR1)
+private fun StructStat.statusChangedTimeNanos() = st_ctim.tv_sec * 1_000_000_000L + st_ctim.tv_nsec
+
+/**
+ * Parsed central directory of a ZIP file.
+ */
+internal class ZipCentralDirectory(
+	val identity: FileIdentity?,
+	private val entries: Map<String, ZipEntryRecord>
+) {
+
+	val entryCount: Int
+		get() = entries.size
+
+	operator fun get(entryName: String): ZipEntryRecord? = entries[entryName]
+}
+
+/**
+ * Location and sizes of a ZIP entry's data inside of the ZIP file.
+ */
+internal data class ZipEntryRecord(
+	val method: Int,
+	val localHeaderOffset: Long,
+	val dataOffset: Long,
+	val compressedSize: Long,
+	val size: Long
+)
+
+/**
+ * Identity of a file. Times are in nanoseconds, but may have only seconds precision on older Android versions.
+ */
+internal data class FileIdentity(
+	val device: Long,
+	val inode: Long,
+	val size: Long,
+	val modifiedTimeNanos: Long,
+	val statusChangedTimeNanos: Long
+)
@@ -17,21 +17,23 @@
 package ru.solrudev.ackpine.io
 
 import android.content.Context
+import android.content.res.AssetFileDescriptor
 import android.net.Uri
 import android.os.CancellationSignal
+import android.os.ParcelFileDescriptor
 import androidx.annotation.RestrictTo
+import ru.solrudev.ackpine.compress.archivers.EntryStreamOffsets
+import ru.solrudev.ackpine.compress.archivers.zip.ZipFile
 import ru.solrudev.ackpine.helpers.closeAll
 import ru.solrudev.ackpine.helpers.closeAllWithException
 import ru.solrudev.ackpine.helpers.closeWithException
-import ru.solrudev.ackpine.helpers.getFileFromUri
 import java.io.EOFException
-import java.io.File
 import java.io.FileInputStream
 import java.io.FilterInputStream
 import java.io.IOException
 import java.io.InputStream
+import java.util.zip.ZipEntry
 import java.util.zip.ZipException
-import java.util.zip.ZipFile
 
 internal class ZipEntryStream private constructor(
 	private val inputStream: InputStream,
@@ -72,6 +74,12 @@ internal class ZipEntryStream private constructor(
 
 	internal companion object {
 
+		/**
+		 * Opens a stream of ZIP entry contents. Central directory of the ZIP file is taken from
+		 * [ZipCentralDirectoryCache], so the ZIP file is parsed only once while it stays the same.
+		 *
+		 * Returns `null` if there's no such entry.
+		 */
 		@JvmSynthetic
 		internal fun open(
 			uri: Uri,
@@ -79,43 +87,81 @@ internal class ZipEntryStream private constructor(
 			context: Context,
 			signal: CancellationSignal? = null
 		): ZipEntryStream? {
-			val file = context.getFileFromUri(uri, signal)
-			if (file.canRead()) {
-				return openUsingZipFile(file, zipEntryName)
-			}
-			return openUsingFileChannel(uri, zipEntryName, context, signal)
-		}
-
-		private fun openUsingZipFile(file: File, zipEntryName: String): ZipEntryStream? {
-			val zipFile = try {
-				ZipFile(file)
-			} catch (exception: ZipException) {
-				throw ZipEntryStreamException(exception)
-			}
-			try {
-				val zipEntry = zipFile.getEntry(zipEntryName)
+			val fd = context.openZipFileDescriptor(uri, signal)
+			wrapZipExceptions(fd) {
+				val zipEntry = ZipCentralDirectoryCache.getEntry(uri, fd, zipEntryName)
 				if (zipEntry == null) {
-					zipFile.close()
+					fd.close()
 					return null
 				}
-				return ZipEntryStream(zipFile.getInputStream(zipEntry), zipEntry.size, zipFile)
-			} catch (exception: ZipException) {
-				closeAndThrow(ZipEntryStreamException(exception), zipFile)
-			} catch (exception: EOFException) {
-				closeAndThrow(ZipEntryStreamException(exception), zipFile)
-			} catch (throwable: Throwable) {
-				closeAndThrow(throwable, zipFile)
+				if (zipEntry.dataOffset == EntryStreamOffsets.OFFSET_UNKNOWN
+					|| zipEntry.method != ZipEntry.STORED && zipEntry.method != ZipEntry.DEFLATED
+				) {
+					return openUsingZipFile(fd, zipEntryName)
+				}
+				return openRegion(fd, zipEntry)
 			}
 		}
 
-		private fun openUsingFileChannel(
+		/**
+		 * Returns uncompressed size of ZIP entry, `-1` if it's unknown, or `null` if there's no such entry.
+		 */
+		@JvmSynthetic
+		internal fun getSize(
 			uri: Uri,
 			zipEntryName: String,
 			context: Context,
-			signal: CancellationSignal?
-		): ZipEntryStream? {
-			val fd = context.contentResolver.openFileDescriptor(uri, "r", signal)
+			signal: CancellationSignal? = null
+		): Long? {
+			val fd = context.openZipFileDescriptor(uri, signal)
+			wrapZipExceptions(fd) {
+				val size = ZipCentralDirectoryCache.get(uri, fd)[zipEntryName]?.size
+				fd.close()
+				return size
+			}
+		}
+
+		/**
+		 * Opens a STORED ZIP entry as a region of the ZIP file, so that it can be read without copying.
+		 *
+		 * Returns `null` if there's no such entry, if it's compressed or if its data offset is unknown.
+		 */
+		@JvmSynthetic
+		internal fun openStoredEntry(
+			uri: Uri,
+			zipEntryName: String,
+			context: Context,
+			signal: CancellationSignal? = null
+		): AssetFileDescriptor? {
+			val fd = context.openZipFileDescriptor(uri, signal)
+			wrapZipExceptions(fd) {
+				val zipEntry = ZipCentralDirectoryCache.getEntry(uri, fd, zipEntryName)
+				if (zipEntry == null
+					|| zipEntry.method != ZipEntry.STORED
+					|| zipEntry.dataOffset == EntryStreamOffsets.OFFSET_UNKNOWN
+				) {
+					fd.close()
+					return null
+				}
+				return AssetFileDescriptor(fd, zipEntry.dataOffset, zipEntry.size)
+			}
+		}
+
+		private fun Context.openZipFileDescriptor(uri: Uri, signal: CancellationSignal?): ParcelFileDescriptor {
+			return contentResolver.openFileDescriptor(uri, "r", signal)
 				?: throw NullPointerException("ParcelFileDescriptor was null: $uri")
+		}
+
+		// Entry data is read with positional reads, so channel position is not shared between streams
+		private fun openRegion(fd: ParcelFileDescriptor, zipEntry: ZipEntryRecord): ZipEntryStream {
+			val fileInputStream = FileInputStream(fd.fileDescriptor)
+			val region = FileRegionInputStream(fileInputStream.channel, zipEntry.dataOffset, zipEntry.compressedSize)
+			val inputStream = if (zipEntry.method == ZipEntry.STORED) region else ZipEntryInflaterInputStream(region)
+			return ZipEntryStream(inputStream, zipEntry.size, fileInputStream, fd)
+		}
+
+		// Fallback for compression methods other than STORED and DEFLATED
+		private fun openUsingZipFile(fd: ParcelFileDescriptor, zipEntryName: String): ZipEntryStream? {
 			val fileInputStream = try {
 				FileInputStream(fd.fileDescriptor)
 			} catch (throwable: Throwable) {
@@ -123,7 +169,7 @@ internal class ZipEntryStream private constructor(
 				throw throwable
 			}
 			val zipFile = wrapZipExceptions(fd, fileInputStream) {
-				ru.solrudev.ackpine.compress.archivers.zip.ZipFile.builder()
+				ZipFile.builder()
 					.setFileChannel(fileInputStream.channel)
 					.get()
 			}
@@ -155,11 +201,6 @@ internal class ZipEntryStream private constructor(
 			closeAllWithException(resources, throwable)
 			throw throwable
 		}
-
-		private fun closeAndThrow(throwable: Throwable, resource: AutoCloseable): Nothing {
-			resource.closeWithException(throwable)
-			throw throwable
-		}
 	}
 }
 
@@ -23,12 +23,13 @@ import android.os.OperationCanceledException
 import androidx.core.content.FileProvider
 import ru.solrudev.ackpine.AckpineFileProvider
 import ru.solrudev.ackpine.ZippedFileProvider
+import ru.solrudev.ackpine.compress.archivers.zip.ZipFile as CompressZipFile
 import ru.solrudev.ackpine.helpers.entries
 import ru.solrudev.ackpine.helpers.getFileFromUri
+import ru.solrudev.ackpine.io.FileRegion
 import ru.solrudev.ackpine.io.ZipEntryStream
 import ru.solrudev.ackpine.io.ZipEntryStreamException
 import ru.solrudev.ackpine.io.nonClosing
-import ru.solrudev.ackpine.io.toByteBuffer
 import ru.solrudev.ackpine.splits.Dpi.Companion.dpi
 import ru.solrudev.ackpine.splits.helpers.deviceLocales
 import ru.solrudev.ackpine.splits.helpers.displayNameAndSize
@@ -39,8 +40,8 @@ import ru.solrudev.ackpine.splits.parsing.ANDROID_MANIFEST_FILE_NAME
 import ru.solrudev.ackpine.splits.parsing.AndroidManifest
 import java.io.EOFException
 import java.io.File
+import java.io.IOException
 import java.io.InputStream
-import java.nio.ByteBuffer
 import java.util.Locale
 import java.util.zip.ZipEntry
 import java.util.zip.ZipException
@@ -257,58 +258,117 @@ public sealed class Apk(
 			if (file.canRead()) {
 				return fromFile(file, uri)
 			}
-			val androidManifest = try {
-				ZipEntryStream
-					.open(uri, ANDROID_MANIFEST_FILE_NAME, context, cancellationSignal)
-					?.use(InputStream::toByteBuffer) ?: return null
+			val androidManifestStream = try {
+				ZipEntryStream.open(uri, ANDROID_MANIFEST_FILE_NAME, context, cancellationSignal) ?: return null
 			} catch (_: ZipEntryStreamException) {
 				return null
 			}
-			val (displayName, size) = uri.displayNameAndSize(context, cancellationSignal)
-			val name = displayName.substringAfterLast('/').substringBeforeLast('.')
-			return createApkSplit(androidManifest, name, uri, size)
+			androidManifestStream.use {
+				val (displayName, size) = uri.displayNameAndSize(context, cancellationSignal)
+				val name = displayName.substringAfterLast('/').substringBeforeLast('.')
+				val androidManifest = AndroidManifest(androidManifestStream, name) ?: return null
+				return createApkSplit(androidManifest, name, uri, size)
+			}
 		}
 
+		/**
+		 * Parses APK from a ZIP entry. If [storedRegion] of the ZIP file where the entry data resides is provided, the
+		 * entry is read as a ZIP file itself, seeking directly to its manifest. Otherwise, or if it fails, the entry
+		 * is scanned sequentially from [inputStream]. Parsed metadata is cached within the ZIP file identified by
+		 * [archiveKey] obtained from [ApkMetadataCache.keyOf], if it's not `null`.
+		 */
 		@JvmSynthetic
 		internal fun fromZipEntry(
 			zipPath: String,
+			archiveKey: String?,
 			zipEntry: ZipEntry,
 			inputStream: InputStream,
-			scope: CloseableSequenceScope<Apk>
+			scope: CloseableSequenceScope<Apk>,
+			storedRegion: FileRegion? = null
 		): Apk? {
 			if (!zipEntry.isApk) {
 				return null
 			}
 			val uri = ZippedFileProvider.getUriForZipEntry(zipPath, zipEntry.name)
 			val name = zipEntry.name.substringAfterLast('/').substringBeforeLast('.')
-			val androidManifest = ZipInputStream(inputStream.nonClosing()).use { zipInputStream ->
+			val cacheKey = ApkMetadataCache.keyOf(archiveKey, zipEntry)
+			ApkMetadataCache[cacheKey]?.let { attributes ->
+				return createApkSplit(AndroidManifest(attributes, name), name, uri, zipEntry.size)
+			}
+			val androidManifest = if (storedRegion != null) {
+				try {
+					readAndroidManifest(storedRegion, name) ?: return null
+				} catch (_: IOException) {
+					readAndroidManifestSequentially(inputStream, name, scope) ?: return null
+				} catch (_: IllegalArgumentException) {
+					readAndroidManifestSequentially(inputStream, name, scope) ?: return null
+				}
+			} else {
+				readAndroidManifestSequentially(inputStream, name, scope) ?: return null
+			}
+			return createApkSplit(androidManifest, name, uri, zipEntry.size, cacheKey)
+		}
+
+		private fun readAndroidManifest(region: FileRegion, name: String): AndroidManifest? {
+			// Reads only the APK's central directory and local headers instead of its whole contents
+			val apk = CompressZipFile.builder()
+				.setFileChannel(region.channel, region.offset, region.length)
+				.get()
+			apk.use {
+				val zipEntry = apk.getEntry(ANDROID_MANIFEST_FILE_NAME) ?: return null
+				return apk.getInputStream(zipEntry).use { AndroidManifest(it, name) }
+			}
+		}
+
+		private fun readAndroidManifestSequentially(
+			inputStream: InputStream,
+			name: String,
+			scope: CloseableSequenceScope<Apk>
+		): AndroidManifest? {
+			ZipInputStream(inputStream.nonClosing()).use { zipInputStream ->
 				zipInputStream.entries()
 					.filterNot { scope.isClosed }
 					.firstOrNull { it.name == ANDROID_MANIFEST_FILE_NAME } ?: return null
-				zipInputStream.toByteBuffer()
+				return AndroidManifest(zipInputStream, name)
 			}
-			return createApkSplit(androidManifest, name, uri, zipEntry.size)
 		}
 
 		private fun fromFile(file: File, uri: Uri): Apk? {
 			if (!file.isApk) {
 				return null
 			}
+			val cacheKey = ApkMetadataCache.keyOf(file)
+			ApkMetadataCache[cacheKey]?.let { attributes ->
+				val name = file.nameWithoutExtension
+				return createApkSplit(AndroidManifest(attributes, name), name, uri, file.length())
+			}
 			val androidManifest = try {
 				ZipFile(file).use { zipFile ->
 					val zipEntry = zipFile.getEntry(ANDROID_MANIFEST_FILE_NAME) ?: return null
-					zipFile.getInputStream(zipEntry).toByteBuffer()
-				}
+					zipFile.getInputStream(zipEntry).use { AndroidManifest(it, file.nameWithoutExtension) }
+				} ?: return null
 			} catch (_: ZipException) {
 				return null
 			} catch (_: EOFException) {
 				return null
 			}
-			return createApkSplit(androidManifest, file.nameWithoutExtension, uri, file.length())
+			return createApkSplit(androidManifest, file.nameWithoutExtension, uri, file.length(), cacheKey)
+		}
+
+		private fun createApkSplit(
+			manifest: AndroidManifest,
+			name: String,
+			uri: Uri,
+			size: Long,
+			cacheKey: String?
+		): Apk? {
+			if (cacheKey != null) {
+				ApkMetadataCache[cacheKey] = manifest.attributes
+			}
+			return createApkSplit(manifest, name, uri, size)
 		}
 
-		private fun createApkSplit(manifestByteBuffer: ByteBuffer, name: String, uri: Uri, size: Long): Apk? {
-			val manifest = AndroidManifest(manifestByteBuffer, name) ?: return null
+		private fun createApkSplit(manifest: AndroidManifest, name: String, uri: Uri, size: Long): Apk? {
 			return when {
 				manifest.splitName.isEmpty() -> {
 					Base(uri, name, size, manifest.packageName, manifest.versionCode, manifest.versionName)
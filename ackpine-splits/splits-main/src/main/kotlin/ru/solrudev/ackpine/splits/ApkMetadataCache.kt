@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.splits
+
+import android.content.Context
+import android.net.Uri
+import android.os.ParcelFileDescriptor
+import android.util.AtomicFile
+import androidx.annotation.VisibleForTesting
+import ru.solrudev.ackpine.AckpineThreadPool
+import ru.solrudev.ackpine.io.FileIdentity
+import ru.solrudev.ackpine.io.fileIdentity
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileNotFoundException
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.ZipEntry
+
+private const val CACHE_FILE_NAME = "ackpine_apk_metadata.cache"
+private const val CACHE_FORMAT_VERSION = 2
+private const val DEFAULT_MAX_ENTRY_COUNT = 1024
+
+/**
+ * Opt-in persistent cache of parsed APK manifests used by [Apk.fromFile], [Apk.fromUri] and [ZippedApkSplits].
+ *
+ * When enabled, APKs which were parsed before are created from cached metadata without reading ZIP files again.
+ * Cached metadata is keyed by file identity: path, device, inode, size, modification and status change times of APK
+ * files, and identity of the ZIP archive together with entry name, CRC-32 and size for APKs inside of ZIP archives.
+ * The cache is stored in application's cache directory and is bounded by the count of cached APKs, evicting least
+ * recently used ones.
+ *
+ * Disabled by default.
+ */
+public object ApkMetadataCache {
+
+	private val lock = Any()
+
+	// Serializes writes to disk, so that an older snapshot of the cache can't overwrite a newer one
+	private val writeLock = Any()
+	private val isWriteScheduled = AtomicBoolean(false)
+	private var file: AtomicFile? = null
+	private var maxEntryCount = DEFAULT_MAX_ENTRY_COUNT
+	private var manifests: LinkedHashMap<String, Map<String, String>>? = null
+
+	/**
+	 * Returns whether the cache is enabled.
+	 */
+	@JvmStatic
+	public val isEnabled: Boolean
+		get() = synchronized(lock) { file != null }
+
+	/**
+	 * Enables the cache. Cached metadata is loaded from disk lazily on first access.
+	 *
+	 * @param maxEntryCount maximum count of cached APKs.
+	 */
+	@JvmStatic
+	@JvmOverloads
+	public fun enable(context: Context, maxEntryCount: Int = DEFAULT_MAX_ENTRY_COUNT) {
+		require(maxEntryCount > 0) { "maxEntryCount must be positive, but was $maxEntryCount" }
+		val cacheFile = AtomicFile(File(context.applicationContext.cacheDir, CACHE_FILE_NAME))
+		synchronized(lock) {
+			if (file?.baseFile != cacheFile.baseFile) {
+				manifests = null
+			}
+			file = cacheFile
+			this.maxEntryCount = maxEntryCount
+			manifests?.trimToSize()
+		}
+	}
+
+	/**
+	 * Disables the cache. Cached metadata remains on disk.
+	 */
+	@JvmStatic
+	public fun disable() {
+		synchronized(lock) {
+			file = null
+			manifests = null
+		}
+	}
+
+	/**
+	 * Removes all cached metadata, including from disk.
+	 */
+	@JvmStatic
+	public fun clear() {
+		synchronized(writeLock) {
+			synchronized(lock) {
+				manifests?.clear()
+				file?.delete()
+			}
+		}
+	}
+
+	/**
+	 * Returns cache key of the APK [file], or `null` if the cache is disabled or the file's identity can't be
+	 * determined.
+	 */
+	@JvmSynthetic
+	internal fun keyOf(file: File): String? {
+		if (!isEnabled) {
+			return null
+		}
+		val identity = file.fileIdentity() ?: return null
+		return "file:${file.absolutePath}:${identity.toKey()}"
+	}
+
+	/**
+	 * Returns cache key of the ZIP archive at [uri] opened at [fd], or `null` if the cache is disabled or the
+	 * archive's identity can't be determined.
+	 */
+	@JvmSynthetic
+	internal fun keyOf(uri: Uri, fd: ParcelFileDescriptor): String? {
+		if (!isEnabled) {
+			return null
+		}
+		val identity = fd.fileIdentity() ?: return null
+		return "zip:$uri:${identity.toKey()}"
+	}
+
+	/**
+	 * Returns cache key of the APK stored in [zipEntry] of the ZIP archive with [archiveKey], or `null` if the cache
+	 * is disabled, archive key is `null` or entry's CRC-32 is unknown.
+	 *
+	 * CRC-32 is not a content identity on its own, as its collisions are easy to construct, so the entry is keyed
+	 * within its archive.
+	 */
+	@JvmSynthetic
+	internal fun keyOf(archiveKey: String?, zipEntry: ZipEntry): String? {
+		if (!isEnabled || archiveKey == null || zipEntry.crc == -1L || zipEntry.size == -1L) {
+			return null
+		}
+		return "$archiveKey!${zipEntry.name}:${zipEntry.crc}:${zipEntry.size}"
+	}
+
+	@JvmSynthetic
+	internal operator fun get(key: String?): Map<String, String>? {
+		key ?: return null
+		synchronized(lock) {
+			return loadedManifests()?.get(key)
+		}
+	}
+
+	@JvmSynthetic
+	internal operator fun set(key: String?, manifest: Map<String, String>) {
+		key ?: return
+		synchronized(lock) {
+			val manifests = loadedManifests() ?: return
+			manifests[key] = manifest
+			manifests.trimToSize()
+		}
+		scheduleWrite()
+	}
+
+	@JvmSynthetic
+	@VisibleForTesting
+	internal fun awaitWrite() {
+		AckpineThreadPool.submit(::write).get()
+	}
+
+	private fun FileIdentity.toKey(): String {
+		return "$device:$inode:$size:$modifiedTimeNanos:$statusChangedTimeNanos"
+	}
+
+	private fun loadedManifests(): LinkedHashMap<String, Map<String, String>>? {
+		val file = file ?: return null
+		return manifests ?: read(file).also { manifests = it }
+	}
+
+	private fun LinkedHashMap<String, Map<String, String>>.trimToSize() {
+		val iterator = entries.iterator()
+		while (size > maxEntryCount && iterator.hasNext()) {
+			iterator.next()
+			iterator.remove()
+		}
+	}
+
+	// Writes are coalesced, so that parsing a lot of APKs in a row writes the cache only a few times
+	private fun scheduleWrite() {
+		if (isWriteScheduled.compareAndSet(false, true)) {
+			AckpineThreadPool.execute {
+				isWriteScheduled.set(false)
+				write()
+			}
+		}
+	}
+
+	// Manifests are copied under the lock and written outside of it, so that parsing isn't blocked by disk I/O
+	private fun write() {
+		synchronized(writeLock) {
+			val (file, manifests) = synchronized(lock) {
+				val file = file ?: return
+				val manifests = manifests ?: return
+				file to manifests.toList()
+			}
+			val outputStream = try {
+				file.startWrite()
+			} catch (_: IOException) {
+				return
+			}
+			try {
+				DataOutputStream(outputStream.buffered()).run {
+					writeInt(CACHE_FORMAT_VERSION)
+					writeInt(manifests.size)
+					for ((key, manifest) in manifests) {
+						writeUTF(key)
+						writeInt(manifest.size)
+						for ((name, value) in manifest) {
+							writeUTF(name)
+							writeUTF(value)
+						}
+					}
+					flush()
+				}
+				file.finishWrite(outputStream)
+			} catch (_: IOException) {
+				file.failWrite(outputStream)
+			}
+		}
+	}
+
+	private fun read(file: AtomicFile): LinkedHashMap<String, Map<String, String>> {
+		val manifests = LinkedHashMap<String, Map<String, String>>(16, 0.75f, /* accessOrder = */ true)
+		try {
+			DataInputStream(file.openRead().buffered()).use { inputStream ->
+				if (inputStream.readInt() != CACHE_FORMAT_VERSION) {
+					return manifests
+				}
+				repeat(inputStream.readInt()) {
+					val key = inputStream.readUTF()
+					val manifest = HashMap<String, String>()
+					repeat(inputStream.readInt()) {
+						manifest[inputStream.readUTF()] = inputStream.readUTF()
+					}
+					manifests[key] = manifest
+				}
+			}
+		} catch (_: FileNotFoundException) {
+			return manifests
+		} catch (_: IOException) {
+			// Corrupted cache is discarded
+			manifests.clear()
+		}
+		manifests.trimToSize()
+		return manifests
+	}
+}
@@ -23,7 +23,6 @@ import ru.solrudev.ackpine.AckpineThreadPool
 import ru.solrudev.ackpine.helpers.ImmediateListenableFuture
 import ru.solrudev.ackpine.helpers.concurrent.map
 import ru.solrudev.ackpine.helpers.onCancellation
-import ru.solrudev.ackpine.splits.SplitPackage.Provider
 import ru.solrudev.ackpine.splits.helpers.deviceLocales
 import ru.solrudev.ackpine.splits.helpers.matchScore
 import kotlin.math.abs
@@ -196,6 +195,20 @@ public open class SplitPackage(
 				")"
 	}
 
+	/**
+	 * A listener of [APK splits][Apk] which are discovered while [SplitPackage] is being created.
+	 */
+	public fun interface ApkListener {
+
+		/**
+		 * Called for each [apk] as soon as it's read from the split package source, in the order of the source.
+		 *
+		 * This callback is invoked on a worker thread. If it throws, creation of the split package fails with the
+		 * thrown exception.
+		 */
+		public fun onApk(apk: Apk)
+	}
+
 	/**
 	 * A lazy provider of [SplitPackage] which also allows to form a transformation pipeline before actual creation will
 	 * take place.
@@ -211,6 +224,32 @@ public open class SplitPackage(
 		 */
 		public fun getAsync(): ListenableFuture<SplitPackage>
 
+		/**
+		 * Creates a [SplitPackage] with transformations applied via this provider, reporting every [APK split][Apk] to
+		 * the [listener] as soon as it's discovered.
+		 *
+		 * APK splits are reported before grouping into [dynamic features][DynamicFeature], sorting and filtering are
+		 * applied, so some of them may be absent from the resulting [SplitPackage], and their preference is not known
+		 * until it's created. This allows to start processing of APK splits, such as the base APK, without waiting for
+		 * all of them to be read.
+		 *
+		 * For providers created from a [Sequence] or an [Iterable], the [listener] is notified while the source is
+		 * being iterated. For other providers, the [listener] is notified with all APK splits when the resulting
+		 * [SplitPackage] is created, before the returned future completes.
+		 *
+		 * This future may be cancelled if the split package source supports it (such as [CloseableSequence]).
+		 *
+		 * The resulting [SplitPackage] is not cached.
+		 */
+		public fun getAsync(listener: ApkListener): ListenableFuture<SplitPackage> {
+			return getAsync().map { splitPackage ->
+				for (entry in splitPackage.toList()) {
+					listener.onApk(entry.apk)
+				}
+				splitPackage
+			}
+		}
+
 		/**
 		 * Returns a [Provider] giving out only [APK splits][Apk] which are the most compatible with the device by
 		 * applying [sortedByCompatibility] operation and calling [filterPreferred] on the resulting [SplitPackage].
@@ -261,9 +300,14 @@ public open class SplitPackage(
 	}
 
 	private class FilteringProvider(private val provider: Provider) : Provider {
+
 		override fun getAsync(): ListenableFuture<SplitPackage> {
 			return provider.getAsync().map(SplitPackage::filterPreferred)
 		}
+
+		override fun getAsync(listener: ApkListener): ListenableFuture<SplitPackage> {
+			return provider.getAsync(listener).map(SplitPackage::filterPreferred)
+		}
 	}
 
 	private class SortingProvider(
@@ -275,6 +319,10 @@ public open class SplitPackage(
 			return provider.getAsync().map(::sortedByCompatibility)
 		}
 
+		override fun getAsync(listener: ApkListener): ListenableFuture<SplitPackage> {
+			return provider.getAsync(listener).map(::sortedByCompatibility)
+		}
+
 		private fun sortedByCompatibility(splitPackage: SplitPackage): SplitPackage {
 			if (splitPackage is SortedSplitPackage || splitPackage is FilteredSplitPackage) {
 				return splitPackage
@@ -349,9 +397,51 @@ public open class SplitPackage(
 	}
 
 	private object EmptyProvider : Provider {
+
 		override fun getAsync(): ListenableFuture<SplitPackage> {
 			return ImmediateListenableFuture(EmptySplitPackage)
 		}
+
+		override fun getAsync(listener: ApkListener): ListenableFuture<SplitPackage> {
+			return ImmediateListenableFuture(EmptySplitPackage)
+		}
+	}
+
+	private class SequenceProvider(private val source: Sequence<Apk>) : Provider {
+
+		override fun getAsync(): ListenableFuture<SplitPackage> {
+			return createSplitPackageAsync(listener = null)
+		}
+
+		override fun getAsync(listener: ApkListener): ListenableFuture<SplitPackage> {
+			return createSplitPackageAsync(listener)
+		}
+
+		private fun createSplitPackageAsync(listener: ApkListener?): ListenableFuture<SplitPackage> {
+			return CallbackToFutureAdapter.getFuture { completer ->
+				completer.onCancellation(::closeSource)
+				AckpineThreadPool.execute {
+					try {
+						completer.set(createSplitPackage(source, listener))
+					} catch (exception: Exception) {
+						// Iteration could have been stopped midway, leaving resources held by the source open
+						try {
+							closeSource()
+						} catch (closeException: Exception) {
+							exception.addSuppressed(closeException)
+						}
+						completer.setException(exception)
+					}
+				}
+				"SplitPackageProvider"
+			}
+		}
+
+		private fun closeSource() {
+			if (source is CloseableSequence) {
+				source.close()
+			}
+		}
 	}
 
 	/**
@@ -374,24 +464,10 @@ public open class SplitPackage(
 		@JvmStatic
 		@JvmName("from")
 		public fun Sequence<Apk>.toSplitPackage(): Provider {
-			val source = this
-			return SplitPackageProvider { completer ->
-				completer.onCancellation {
-					if (source is CloseableSequence) {
-						source.close()
-					}
-				}
-				AckpineThreadPool.execute {
-					try {
-						completer.set(createSplitPackage(source))
-					} catch (exception: Exception) {
-						completer.setException(exception)
-					}
-				}
-			}
+			return SequenceProvider(source = this)
 		}
 
-		private fun createSplitPackage(source: Sequence<Apk>): SequenceSplitPackage {
+		private fun createSplitPackage(source: Sequence<Apk>, listener: ApkListener?): SequenceSplitPackage {
 			val base = mutableListOf<Entry<Apk.Base>>()
 			val libs = mutableListOf<Entry<Apk.Libs>>()
 			val density = mutableListOf<Entry<Apk.ScreenDensity>>()
@@ -399,6 +475,7 @@ public open class SplitPackage(
 			val other = mutableListOf<Entry<Apk.Other>>()
 			val features = mutableListOf<Apk.Feature>()
 			for (apk in source) {
+				listener?.onApk(apk)
 				when (apk) {
 					is Apk.Base -> base += Entry(isPreferred = true, apk)
 					is Apk.Libs -> libs += Entry(isPreferred = true, apk)
@@ -467,18 +544,4 @@ public open class SplitPackage(
 	private object EmptySplitPackage : SplitPackage(
 		emptyList(), emptyList(), emptyList(), emptyList(), emptyList(), emptyList()
 	)
-}
-
-@Suppress("FunctionName")
-private inline fun SplitPackageProvider(
-	crossinline block: (CallbackToFutureAdapter.Completer<SplitPackage>) -> Unit
-) = Provider {
-	CallbackToFutureAdapter.getFuture { completer ->
-		try {
-			block(completer)
-		} catch (exception: Exception) {
-			completer.setException(exception)
-		}
-		"SplitPackageProvider"
-	}
 }
\ No newline at end of file
@@ -19,10 +19,23 @@ package ru.solrudev.ackpine.splits
 import android.content.Context
 import android.net.Uri
 import android.os.ParcelFileDescriptor
+import ru.solrudev.ackpine.AckpineThreadPool
+import ru.solrudev.ackpine.compress.archivers.EntryStreamOffsets
+import ru.solrudev.ackpine.compress.archivers.zip.ZipFile as CompressZipFile
 import ru.solrudev.ackpine.helpers.closeWithException
 import ru.solrudev.ackpine.helpers.getFileFromUri
+import ru.solrudev.ackpine.io.FileRegion
+import ru.solrudev.ackpine.io.ZipCentralDirectory
+import ru.solrudev.ackpine.io.ZipCentralDirectoryCache
 import java.io.File
 import java.io.FileInputStream
+import java.io.IOException
+import java.nio.channels.FileChannel
+import java.util.concurrent.Callable
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+import java.util.zip.ZipEntry
 import java.util.zip.ZipFile
 
 /**
@@ -41,8 +54,28 @@ public object ZippedApkSplits {
 	 * @return [CloseableSequence]
 	 */
 	@JvmStatic
-	public fun getApksForFile(file: File): CloseableSequence<Apk> = closeableSequence {
-		yieldAllUsingFile(file)
+	public fun getApksForFile(file: File): CloseableSequence<Apk> = getApksForFile(file, parallelism = 1)
+
+	/**
+	 * Returns a lazy sequence of [APK splits][Apk] contained within zipped [file] (such as APKS, APKM, XAPK, ZIP).
+	 * This sequence supports cancellation when used with [SplitPackage] API and [ApkSplits] transformations.
+	 *
+	 * Up to [parallelism] APK splits are parsed concurrently in background, ahead of iteration. APK splits are
+	 * yielded in the same order as with sequential parsing.
+	 *
+	 * **Attention:** iteration of this sequence is blocking due to I/O operations.
+	 *
+	 * The returned sequence is constrained to be iterated only once.
+	 *
+	 * @param parallelism maximum amount of APK splits parsed concurrently. `1` means sequential parsing.
+	 * @return [CloseableSequence]
+	 */
+	@JvmStatic
+	public fun getApksForFile(file: File, parallelism: Int): CloseableSequence<Apk> {
+		require(parallelism > 0) { "parallelism must be positive, but was $parallelism" }
+		return closeableSequence {
+			yieldAllUsingFile(file, parallelism)
+		}
 	}
 
 	/**
@@ -60,40 +93,80 @@ public object ZippedApkSplits {
 	 */
 	@JvmStatic
 	public fun getApksForUri(uri: Uri, context: Context): CloseableSequence<Apk> {
+		return getApksForUri(uri, context, parallelism = 1)
+	}
+
+	/**
+	 * Returns a lazy sequence of [APK splits][Apk] contained within zipped file (such as APKS, APKM, XAPK, ZIP) at
+	 * provided [uri].
+	 * This sequence supports cancellation when used with [SplitPackage] API and [ApkSplits] transformations.
+	 *
+	 * Up to [parallelism] APK splits are parsed concurrently in background, ahead of iteration. APK splits are
+	 * yielded in the same order as with sequential parsing.
+	 *
+	 * This function will call [Context.getApplicationContext] internally, so it's safe to pass in any Context.
+	 *
+	 * **Attention:** iteration of this sequence is blocking due to I/O operations.
+	 *
+	 * The returned sequence is constrained to be iterated only once.
+	 *
+	 * @param parallelism maximum amount of APK splits parsed concurrently. `1` means sequential parsing.
+	 * @return [CloseableSequence]
+	 */
+	@JvmStatic
+	public fun getApksForUri(uri: Uri, context: Context, parallelism: Int): CloseableSequence<Apk> {
+		require(parallelism > 0) { "parallelism must be positive, but was $parallelism" }
 		val applicationContext = context.applicationContext // avoid capturing context into closure
 		return closeableSequence {
 			val file = applicationContext.getFileFromUri(uri)
 			if (file.canRead()) {
-				yieldAllUsingFile(file)
+				yieldAllUsingFile(file, parallelism)
 			} else {
-				yieldAllUsingFileChannel(applicationContext, uri)
+				yieldAllUsingFileChannel(applicationContext, uri, parallelism)
 			}
 		}
 	}
 
-	private suspend inline fun CloseableSequenceScope<Apk>.yieldAllUsingFile(file: File) {
+	private suspend inline fun CloseableSequenceScope<Apk>.yieldAllUsingFile(file: File, parallelism: Int) {
 		val zipFile = ZipFile(file).use()
-		zipFile.entries()
-			.asSequence()
-			.filterNot { isClosed }
-			.mapNotNull { zipEntry ->
-				zipFile.getInputStream(zipEntry).use { entryStream ->
-					// java.util.zip.ZipFile closes all entry streams when closed, no need to apply .use()
-					Apk.fromZipEntry(file.absolutePath, zipEntry, entryStream, scope = this)
-				}
+		val storedEntries = openStoredEntries(file)
+		val archiveKey = ApkMetadataCache.keyOf(file)
+		yieldAllParsed(zipFile.entries().asSequence(), parallelism) { zipEntry ->
+			zipFile.getInputStream(zipEntry).use { entryStream ->
+				// java.util.zip.ZipFile closes all entry streams when closed, no need to apply .use()
+				val storedRegion = storedEntries?.regionOf(zipEntry.name)
+				Apk.fromZipEntry(file.absolutePath, archiveKey, zipEntry, entryStream, scope = this, storedRegion)
 			}
-			.forEach { yield(it) }
+		}
 	}
 
-	private suspend inline fun CloseableSequenceScope<Apk>.yieldAllUsingFileChannel(context: Context, uri: Uri) {
+	// java.util.zip.ZipFile doesn't expose entries' data offsets, so they're taken from the cached central directory
+	private fun CloseableSequenceScope<Apk>.openStoredEntries(file: File): StoredEntries? {
+		try {
+			val fd = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY).use()
+			val fileInputStream = FileInputStream(fd.fileDescriptor).use()
+			val centralDirectory = ZipCentralDirectoryCache.get(Uri.fromFile(file), fd)
+			return StoredEntries(fileInputStream.channel, centralDirectory)
+		} catch (_: IOException) {
+			return null
+		} catch (_: IllegalArgumentException) {
+			return null
+		}
+	}
+
+	private suspend inline fun CloseableSequenceScope<Apk>.yieldAllUsingFileChannel(
+		context: Context,
+		uri: Uri,
+		parallelism: Int
+	) {
 		var fd: ParcelFileDescriptor? = null
 		var fileInputStream: FileInputStream? = null
-		val zipFile: ru.solrudev.ackpine.compress.archivers.zip.ZipFile
+		val zipFile: CompressZipFile
 		try {
 			fd = context.contentResolver.openFileDescriptor(uri, "r")?.use()
 				?: throw NullPointerException("ParcelFileDescriptor was null: $uri")
 			fileInputStream = FileInputStream(fd.fileDescriptor).use()
-			zipFile = ru.solrudev.ackpine.compress.archivers.zip.ZipFile.builder()
+			zipFile = CompressZipFile.builder()
 				.setFileChannel(fileInputStream.channel)
 				.get()
 				.use()
@@ -102,15 +175,108 @@ public object ZippedApkSplits {
 			fileInputStream?.closeWithException(throwable)
 			throw throwable
 		}
-		zipFile.entries
-			.asSequence()
-			.filterNot { isClosed }
-			.mapNotNull { zipEntry ->
-				zipFile.getInputStream(zipEntry).use { entryStream ->
-					entryStream.use()
-					Apk.fromZipEntry(uri.toString(), zipEntry, entryStream, scope = this)
+		val archiveKey = ApkMetadataCache.keyOf(uri, fd)
+		yieldAllParsed(zipFile.entries.asSequence(), parallelism) { zipEntry ->
+			zipFile.getInputStream(zipEntry).use { entryStream ->
+				entryStream.use()
+				val storedRegion = if (
+					zipEntry.method == ZipEntry.STORED
+					&& zipEntry.dataOffset != EntryStreamOffsets.OFFSET_UNKNOWN
+				) {
+					FileRegion(fileInputStream.channel, zipEntry.dataOffset, zipEntry.size)
+				} else {
+					null
 				}
+				Apk.fromZipEntry(uri.toString(), archiveKey, zipEntry, entryStream, scope = this, storedRegion)
+			}
+		}
+	}
+
+	// Entries are read with positional reads, so they can be parsed concurrently
+	private suspend inline fun <E : ZipEntry> CloseableSequenceScope<Apk>.yieldAllParsed(
+		zipEntries: Sequence<E>,
+		parallelism: Int,
+		crossinline parse: (E) -> Apk?
+	) {
+		if (parallelism == 1) {
+			zipEntries
+				.filterNot { isClosed }
+				.mapNotNull { parse(it) }
+				.forEach { yield(it) }
+			return
+		}
+		val tasks = ParsingTasks(parallelism).use()
+		val iterator = zipEntries.iterator()
+		while (!isClosed) {
+			while (!tasks.isFull && iterator.hasNext()) {
+				val zipEntry = iterator.next()
+				tasks.submit { parse(zipEntry) }
 			}
-			.forEach { yield(it) }
+			if (tasks.isEmpty) {
+				break
+			}
+			val apk = tasks.awaitNext() ?: continue
+			yield(apk)
+		}
+	}
+
+	/**
+	 * Window of APK parsing tasks running on [AckpineThreadPool] which are awaited in submission order.
+	 */
+	private class ParsingTasks(private val parallelism: Int) : AutoCloseable {
+
+		// Guarded by itself, as the sequence may be closed from another thread
+		private val tasks = ArrayDeque<FutureTask<Apk?>>(parallelism)
+
+		val isEmpty: Boolean
+			get() = synchronized(tasks) { tasks.isEmpty() }
+
+		val isFull: Boolean
+			get() = synchronized(tasks) { tasks.size >= parallelism }
+
+		fun submit(parse: Callable<Apk?>) {
+			val task = FutureTask(parse)
+			synchronized(tasks) {
+				tasks.addLast(task)
+			}
+			AckpineThreadPool.execute(task)
+		}
+
+		fun awaitNext(): Apk? {
+			val task = synchronized(tasks) { tasks.removeFirstOrNull() } ?: return null
+			// If the pool hasn't started the task yet, it's run on the current thread, so parsing always progresses
+			// even when all pool threads are busy, e.g. iterating such sequences themselves
+			task.run()
+			try {
+				return task.get()
+			} catch (_: CancellationException) {
+				return null
+			} catch (exception: ExecutionException) {
+				throw exception.cause ?: exception
+			}
+		}
+
+		override fun close() {
+			synchronized(tasks) {
+				for (task in tasks) {
+					task.cancel(false)
+				}
+				tasks.clear()
+			}
+		}
+	}
+
+	private class StoredEntries(
+		private val channel: FileChannel,
+		private val centralDirectory: ZipCentralDirectory
+	) {
+
+		fun regionOf(entryName: String): FileRegion? {
+			val zipEntry = centralDirectory[entryName] ?: return null
+			if (zipEntry.method != ZipEntry.STORED || zipEntry.dataOffset == EntryStreamOffsets.OFFSET_UNKNOWN) {
+				return null
+			}
+			return FileRegion(channel, zipEntry.dataOffset, zipEntry.size)
+		}
 	}
 }
\ No newline at end of file
@@ -19,42 +19,69 @@ package ru.solrudev.ackpine.splits.parsing
 import androidx.annotation.RestrictTo
 import ru.solrudev.ackpine.exceptions.InvalidManifestAttributeException
 
-private const val ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android"
+internal const val ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android"
 
 @RestrictTo(RestrictTo.Scope.LIBRARY)
 internal class AndroidManifest internal constructor(
-	private val manifest: Map<String, String>,
+	private val packageNameValue: String?,
+	private val versionCodeValue: String?,
+	private val versionCodeMajorValue: String?,
+	@get:JvmSynthetic internal val versionName: String,
+	@get:JvmSynthetic internal val splitName: String,
+	private val isFeatureSplitValue: String?,
+	@get:JvmSynthetic internal val configForSplit: String,
 	private val apkName: String
 ) {
 
+	/**
+	 * Raw attributes of the `<manifest>` element which are read by the parser. Attributes with namespace are keyed as
+	 * `namespace:name`.
+	 */
 	@get:JvmSynthetic
-	internal val splitName: String
-		get() = manifest["split"].orEmpty()
+	internal val attributes: Map<String, String>
+		get() = buildMap {
+			packageNameValue?.let { put("package", it) }
+			versionCodeValue?.let { put("$ANDROID_NAMESPACE:versionCode", it) }
+			versionCodeMajorValue?.let { put("$ANDROID_NAMESPACE:versionCodeMajor", it) }
+			put("$ANDROID_NAMESPACE:versionName", versionName)
+			put("split", splitName)
+			isFeatureSplitValue?.let { put("$ANDROID_NAMESPACE:isFeatureSplit", it) }
+			put("configForSplit", configForSplit)
+		}
 
 	@get:JvmSynthetic
 	internal val packageName: String
-		get() = manifest["package"] ?: throw InvalidManifestAttributeException("package", apkName)
+		get() = packageNameValue ?: throw InvalidManifestAttributeException("package", apkName)
+
+	@get:JvmSynthetic
+	internal val isFeatureSplit: Boolean
+		get() = isFeatureSplitValue?.let { value ->
+			value.toBooleanStrictOrNull() ?: throw InvalidManifestAttributeException("isFeatureSplit", apkName)
+		} ?: false
 
 	@get:JvmSynthetic
 	internal val versionCode: Long
 		get() {
-			val versionCode = manifest["$ANDROID_NAMESPACE:versionCode"]?.toLongOrNull()
+			val versionCode = versionCodeValue?.toLongOrNull()
 				?: throw InvalidManifestAttributeException("versionCode", apkName)
-			val versionCodeMajor = manifest["$ANDROID_NAMESPACE:versionCodeMajor"]?.let { value ->
+			val versionCodeMajor = versionCodeMajorValue?.let { value ->
 				value.toLongOrNull() ?: throw InvalidManifestAttributeException("versionCodeMajor", apkName)
 			} ?: 0L
 			return (versionCodeMajor shl 32) or (versionCode and 0xFFFF_FFFFL)
 		}
+}
 
-	@get:JvmSynthetic
-	internal val versionName: String
-		get() = manifest["$ANDROID_NAMESPACE:versionName"].orEmpty()
-
-	@get:JvmSynthetic
-	internal val isFeatureSplit: Boolean
-		get() = manifest["$ANDROID_NAMESPACE:isFeatureSplit"]?.toBooleanStrict() == true
-
-	@get:JvmSynthetic
-	internal val configForSplit: String
-		get() = manifest["configForSplit"].orEmpty()
-}
\ No newline at end of file
+/**
+ * Creates [AndroidManifest] from raw [attributes] of the `<manifest>` element keyed as `namespace:name`.
+ */
+@JvmSynthetic
+internal fun AndroidManifest(attributes: Map<String, String>, apkName: String) = AndroidManifest(
+	packageNameValue = attributes["package"],
+	versionCodeValue = attributes["$ANDROID_NAMESPACE:versionCode"],
+	versionCodeMajorValue = attributes["$ANDROID_NAMESPACE:versionCodeMajor"],
+	versionName = attributes["$ANDROID_NAMESPACE:versionName"].orEmpty(),
+	splitName = attributes["split"].orEmpty(),
+	isFeatureSplitValue = attributes["$ANDROID_NAMESPACE:isFeatureSplit"],
+	configForSplit = attributes["configForSplit"].orEmpty(),
+	apkName = apkName
+)
@@ -16,42 +16,58 @@
 
 package ru.solrudev.ackpine.splits.parsing
 
-import com.android.apksig.internal.apk.AndroidBinXmlParser
-import java.nio.ByteBuffer
+import ru.solrudev.ackpine.AndroidManifestProbe
+import java.io.IOException
+import java.io.InputStream
 
 @JvmSynthetic
-internal const val ANDROID_MANIFEST_FILE_NAME = "AndroidManifest.xml"
+internal const val ANDROID_MANIFEST_FILE_NAME = AndroidManifestProbe.ANDROID_MANIFEST_FILE_NAME
 
+/**
+ * Reads attributes of the root `<manifest>` element from binary XML [androidManifest] stream. Reading stops right
+ * after the root element, the rest of the document is not consumed.
+ *
+ * Returns `null` if the root element is not `<manifest>`.
+ *
+ * @throws IOException if [androidManifest] is not a valid binary XML.
+ */
 @JvmSynthetic
-internal fun AndroidManifest(androidManifest: ByteBuffer, apkName: String): AndroidManifest? {
-	var seenManifestElement = false
-	val manifest = mutableMapOf<String, String>()
-	val parser = AndroidBinXmlParser(androidManifest)
-	while (parser.next() != AndroidBinXmlParser.EVENT_END_DOCUMENT) {
-		if (parser.eventType != AndroidBinXmlParser.EVENT_START_ELEMENT) {
-			continue
-		}
-		if (parser.name != "manifest" || parser.namespace.isNotEmpty() || parser.depth != 1) {
-			continue
-		}
-		if (seenManifestElement) {
-			return null
-		}
-		seenManifestElement = true
-		for (index in 0..<parser.attributeCount) {
-			if (parser.getAttributeName(index).isEmpty()) {
-				continue
+internal fun AndroidManifest(androidManifest: InputStream, apkName: String): AndroidManifest? {
+	val collector = ManifestAttributesCollector()
+	if (!AndroidManifestProbe.readManifestAttributes(androidManifest, collector)) {
+		return null
+	}
+	return collector.toAndroidManifest(apkName)
+}
+
+private class ManifestAttributesCollector : AndroidManifestProbe.AttributeVisitor {
+
+	private var packageName: String? = null
+	private var versionCode: String? = null
+	private var versionCodeMajor: String? = null
+	private var versionName = ""
+	private var splitName = ""
+	private var isFeatureSplit: String? = null
+	private var configForSplit = ""
+
+	override fun visit(namespace: String, name: String, value: String) {
+		when (namespace) {
+			"" -> when (name) {
+				"package" -> packageName = value
+				"split" -> splitName = value
+				"configForSplit" -> configForSplit = value
+			}
+
+			ANDROID_NAMESPACE -> when (name) {
+				"versionCode" -> versionCode = value
+				"versionCodeMajor" -> versionCodeMajor = value
+				"versionName" -> versionName = value
+				"isFeatureSplit" -> isFeatureSplit = value
 			}
-			val namespace = parser.getAttributeNamespace(index)
-				.takeIf { it.isNotEmpty() }
-				?.plus(':')
-				.orEmpty()
-			val attribute = parser.getAttributeName(index)
-			manifest["$namespace$attribute"] = parser.getAttributeStringValue(index)
 		}
 	}
-	if (!seenManifestElement) {
-		return null
-	}
-	return AndroidManifest(manifest, apkName)
+
+	fun toAndroidManifest(apkName: String) = AndroidManifest(
+		packageName, versionCode, versionCodeMajor, versionName, splitName, isFeatureSplit, configForSplit, apkName
+	)
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.splits
+
+import android.content.Context
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import ru.solrudev.ackpine.splits.testutil.SplitFixtures
+import ru.solrudev.ackpine.splits.testutil.SyntheticPayloads
+import java.io.File
+import java.util.zip.ZipEntry
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertIs
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+@RunWith(RobolectricTestRunner::class)
+class ApkMetadataCacheTest {
+
+	private val context: Context = ApplicationProvider.getApplicationContext()
+	private val files = mutableListOf<File>()
+
+	@BeforeTest
+	fun setUp() {
+		ApkMetadataCache.enable(context)
+		ApkMetadataCache.clear()
+	}
+
+	@AfterTest
+	fun tearDown() {
+		ApkMetadataCache.clear()
+		ApkMetadataCache.disable()
+		files.forEach(File::delete)
+	}
+
+	@Test
+	fun cachedApkIsCreatedWithoutReadingFile() {
+		val file = baseApkCopy()
+		assertNotNull(Apk.fromUri(Uri.fromFile(file), context))
+		overrideCachedPackageName(file)
+		val cached = assertIs<Apk.Base>(Apk.fromUri(Uri.fromFile(file), context))
+		assertEquals(CACHED_PACKAGE_NAME, cached.packageName)
+		assertEquals(file.nameWithoutExtension, cached.name)
+	}
+
+	@Test
+	fun cachedMetadataIsPersisted() {
+		val file = baseApkCopy()
+		assertNotNull(Apk.fromUri(Uri.fromFile(file), context))
+		overrideCachedPackageName(file)
+		ApkMetadataCache.awaitWrite()
+		ApkMetadataCache.disable()
+		ApkMetadataCache.enable(context)
+		val cached = assertIs<Apk.Base>(Apk.fromUri(Uri.fromFile(file), context))
+		assertEquals(CACHED_PACKAGE_NAME, cached.packageName)
+	}
+
+	@Test
+	fun modifiedFileIsParsedAgain() {
+		val file = baseApkCopy()
+		assertIs<Apk.Base>(Apk.fromUri(Uri.fromFile(file), context))
+		file.writeBytes("not a zip file".toByteArray())
+		assertNull(Apk.fromUri(Uri.fromFile(file), context))
+	}
+
+	@Test
+	fun fileRewrittenInPlaceWithSameSizeAndModificationTimeIsParsedAgain() {
+		val file = baseApkCopy()
+		assertNotNull(Apk.fromUri(Uri.fromFile(file), context))
+		val lastModified = file.lastModified()
+		file.writeBytes(ByteArray(file.length().toInt()))
+		file.setLastModified(lastModified)
+		assertNull(Apk.fromUri(Uri.fromFile(file), context))
+	}
+
+	@Test
+	fun leastRecentlyUsedMetadataIsEvicted() {
+		ApkMetadataCache.enable(context, maxEntryCount = 1)
+		val first = baseApkCopy()
+		val second = baseApkCopy()
+		assertNotNull(Apk.fromUri(Uri.fromFile(first), context))
+		assertNotNull(Apk.fromUri(Uri.fromFile(second), context))
+		assertNull(ApkMetadataCache[ApkMetadataCache.keyOf(first)])
+		assertNotNull(ApkMetadataCache[ApkMetadataCache.keyOf(second)])
+	}
+
+	@Test
+	fun disabledCacheIsNotUsed() {
+		ApkMetadataCache.disable()
+		val file = baseApkCopy()
+		assertNotNull(Apk.fromUri(Uri.fromFile(file), context))
+		assertNull(ApkMetadataCache.keyOf(file))
+		ApkMetadataCache.enable(context)
+		assertNull(ApkMetadataCache[ApkMetadataCache.keyOf(file)])
+	}
+
+	@Test
+	fun nestedApkIsNotRestoredFromCacheOfAnotherArchive() {
+		val apkBytes = SplitFixtures.apkFile(SplitFixtures.BASE_APK).readBytes()
+		val archiveBytes = SyntheticPayloads.zipBytesOf(mapOf("base.apk" to apkBytes), ZipEntry.STORED)
+		val first = tempFile(".zip").apply { writeBytes(archiveBytes) }
+		assertEquals(1, ZippedApkSplits.getApksForFile(first).toList().size)
+		// Entry data of the second archive is corrupted, but its CRC-32 and size in ZIP headers are the same
+		val apkOffset = archiveBytes.indexOf(apkBytes)
+		val second = tempFile(".zip").apply {
+			writeBytes(archiveBytes.copyOf().also { it.fill(0, apkOffset, apkOffset + apkBytes.size) })
+		}
+		assertTrue(ZippedApkSplits.getApksForFile(second).toList().isEmpty())
+	}
+
+	private fun baseApkCopy(): File {
+		val file = tempFile(".apk")
+		SplitFixtures.apkFile(SplitFixtures.BASE_APK).copyTo(file, overwrite = true)
+		return file
+	}
+
+	private fun overrideCachedPackageName(file: File) {
+		val key = assertNotNull(ApkMetadataCache.keyOf(file))
+		val manifest = assertNotNull(ApkMetadataCache[key])
+		ApkMetadataCache[key] = manifest + ("package" to CACHED_PACKAGE_NAME)
+	}
+
+	private fun tempFile(suffix: String): File {
+		val file = File.createTempFile("cached-", suffix)
+		files += file
+		return file
+	}
+
+	private fun ByteArray.indexOf(bytes: ByteArray): Int {
+		return (0..size - bytes.size).first { start ->
+			bytes.indices.all { index -> this[start + index] == bytes[index] }
+		}
+	}
+
+	private companion object {
+		private const val CACHED_PACKAGE_NAME = "ru.solrudev.ackpine.cached"
+	}
+}
\ No newline at end of file
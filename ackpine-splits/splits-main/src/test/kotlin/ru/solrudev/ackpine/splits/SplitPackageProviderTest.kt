@@ -30,10 +30,12 @@ import ru.solrudev.ackpine.splits.testutil.createLibsApk
 import ru.solrudev.ackpine.splits.testutil.createLocalizationApk
 import ru.solrudev.ackpine.splits.testutil.createScreenDensityApk
 import java.util.Locale
+import java.util.concurrent.ExecutionException
 import kotlin.test.AfterTest
 import kotlin.test.BeforeTest
 import kotlin.test.Test
 import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
 import kotlin.test.assertFalse
 import kotlin.test.assertSame
 import kotlin.test.assertTrue
@@ -244,6 +246,89 @@ class SplitPackageProviderTest {
 		assertEquals(Dpi.XXHDPI, dynamicFeature.screenDensity.single().apk.dpi)
 	}
 
+	@Test
+	fun listenerReceivesApksInSourceOrder() {
+		val base = createBaseApk()
+		val feature = createFeatureApk(name = "camera")
+		val density = createScreenDensityApk(name = "camera.config.xxhdpi", configForSplit = "camera")
+		val libs = createLibsApk()
+		val apks = listOf(base, feature, density, libs)
+		val received = mutableListOf<Apk>()
+
+		val splitPackage = apks.toSplitPackage().getAsync { received += it }.get()
+
+		assertEquals(apks, received)
+		assertEquals(density, splitPackage.dynamicFeatures.single().screenDensity.single().apk)
+	}
+
+	@Test
+	fun listenerIsNotifiedBeforeSourceIsExhausted() {
+		val base = createBaseApk()
+		var isBaseReceivedBeforeLibs = false
+		var isBaseReceived = false
+		val source = sequence {
+			yield(base)
+			isBaseReceivedBeforeLibs = isBaseReceived
+			yield(createLibsApk())
+		}
+
+		source.toSplitPackage().getAsync { apk -> isBaseReceived = isBaseReceived || apk == base }.get()
+
+		assertTrue(isBaseReceivedBeforeLibs)
+	}
+
+	@Test
+	fun listenerReceivesUnfilteredApksOfFilteringProvider() {
+		val ldpi = createScreenDensityApk(name = "config.ldpi", dpi = Dpi.LDPI)
+		val xxhdpi = createScreenDensityApk(name = "config.xxhdpi", dpi = Dpi.XXHDPI)
+		val base = createBaseApk()
+		val received = mutableListOf<Apk>()
+
+		val filtered = listOf(ldpi, xxhdpi, base)
+			.toSplitPackage()
+			.filterCompatible(context)
+			.getAsync { received += it }
+			.get()
+
+		assertEquals(listOf(ldpi, xxhdpi, base), received)
+		assertEquals(Dpi.XXHDPI, filtered.screenDensity.single().apk.dpi)
+	}
+
+	@Test
+	fun listenerOfCustomProviderReceivesApksOfResult() {
+		val splitPackage = createProvider().getAsync().get()
+		val wrappingProvider = SplitPackage.Provider { ImmediateListenableFuture(splitPackage) }
+		val received = mutableListOf<Apk>()
+
+		val result = wrappingProvider.getAsync { received += it }.get()
+
+		assertSame(splitPackage, result)
+		assertEquals(splitPackage.toList().map { it.apk }, received)
+	}
+
+	@Test
+	fun listenerExceptionFailsProvider() {
+		val exception = IllegalStateException()
+		val future = createProvider().getAsync { throw exception }
+
+		val thrown = assertFailsWith<ExecutionException> { future.get() }
+
+		assertSame(exception, thrown.cause)
+	}
+
+	@Test
+	fun listenerExceptionClosesSource() {
+		val source = closeableSequence<Apk> {
+			yield(createBaseApk())
+			yield(createLibsApk())
+		}
+		val future = source.toSplitPackage().getAsync { throw IllegalStateException() }
+
+		assertFailsWith<ExecutionException> { future.get() }
+
+		assertTrue(source.isClosed)
+	}
+
 	private fun createProvider(): SplitPackage.Provider {
 		return listOf(createBaseApk(), createLibsApk(), createScreenDensityApk()).toSplitPackage()
 	}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.splits
+
+import android.content.Context
+import android.net.Uri
+import android.os.ParcelFileDescriptor
+import androidx.test.core.app.ApplicationProvider
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import ru.solrudev.ackpine.io.ZipCentralDirectoryCache
+import ru.solrudev.ackpine.io.ZipEntryStream
+import ru.solrudev.ackpine.splits.testutil.SyntheticPayloads
+import java.io.File
+import java.util.zip.ZipEntry
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertContentEquals
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+
+@RunWith(RobolectricTestRunner::class)
+class ZipCentralDirectoryCacheTest {
+
+	private val context: Context = ApplicationProvider.getApplicationContext()
+	private lateinit var archive: File
+
+	@BeforeTest
+	fun setUp() {
+		ZipCentralDirectoryCache.clear()
+		archive = File.createTempFile("central-directory-", ".zip")
+	}
+
+	@AfterTest
+	fun tearDown() {
+		ZipCentralDirectoryCache.clear()
+		archive.delete()
+	}
+
+	@Test
+	fun centralDirectoryContainsEntryLocations() {
+		val stored = ByteArray(1024) { it.toByte() }
+		archive.writeBytes(SyntheticPayloads.zipBytesOf(mapOf("stored.apk" to stored), ZipEntry.STORED))
+		val directory = ParcelFileDescriptor.open(archive, ParcelFileDescriptor.MODE_READ_ONLY).use { fd ->
+			ZipCentralDirectoryCache.get(Uri.fromFile(archive), fd)
+		}
+		val entry = assertNotNull(directory["stored.apk"])
+		assertEquals(ZipEntry.STORED, entry.method)
+		assertEquals(stored.size.toLong(), entry.size)
+		assertEquals(stored.size.toLong(), entry.compressedSize)
+		val data = archive.readBytes().copyOfRange(entry.dataOffset.toInt(), entry.dataOffset.toInt() + stored.size)
+		assertContentEquals(stored, data)
+		assertNull(directory["missing.apk"])
+	}
+
+	@Test
+	fun repeatedOpeningReadsExactEntryBytes() {
+		val deflated = ByteArray(4096) { (it % 7).toByte() }
+		archive.writeBytes(SyntheticPayloads.zipBytesOf(mapOf("deflated.apk" to deflated)))
+		val uri = Uri.fromFile(archive)
+		repeat(3) {
+			val stream = assertNotNull(ZipEntryStream.open(uri, "deflated.apk", context))
+			stream.use {
+				assertEquals(deflated.size.toLong(), stream.size)
+				assertContentEquals(deflated, stream.readBytes())
+			}
+		}
+	}
+
+	@Test
+	fun modifiedArchiveIsParsedAgain() {
+		val uri = Uri.fromFile(archive)
+		archive.writeBytes(SyntheticPayloads.zipBytesOf(mapOf("first.apk" to ByteArray(16))))
+		assertEquals(16L, ZipEntryStream.getSize(uri, "first.apk", context))
+		val second = ByteArray(2048) { it.toByte() }
+		archive.writeBytes(SyntheticPayloads.zipBytesOf(mapOf("second.apk" to second), ZipEntry.STORED))
+		assertNull(ZipEntryStream.getSize(uri, "first.apk", context))
+		val stream = assertNotNull(ZipEntryStream.open(uri, "second.apk", context))
+		stream.use {
+			assertContentEquals(second, stream.readBytes())
+		}
+	}
+
+	@Test
+	fun archiveRewrittenInPlaceWithSameSizeAndModificationTimeIsParsedAgain() {
+		val uri = Uri.fromFile(archive)
+		val first = ByteArray(256) { it.toByte() }
+		val second = ByteArray(256) { (255 - it).toByte() }
+		// Longer name of the first entry is compensated by its shorter data, so the archives are of the same size,
+		// but the target entry is shifted
+		val firstArchive = SyntheticPayloads.zipBytesOf(
+			mapOf("x.apk" to ByteArray(10), "target.apk" to first),
+			ZipEntry.STORED
+		)
+		val secondArchive = SyntheticPayloads.zipBytesOf(
+			mapOf("xy.apk" to ByteArray(8), "target.apk" to second),
+			ZipEntry.STORED
+		)
+		assertEquals(firstArchive.size, secondArchive.size)
+		archive.writeBytes(firstArchive)
+		val lastModified = archive.lastModified()
+		assertNotNull(ZipEntryStream.open(uri, "target.apk", context)).use { stream ->
+			assertContentEquals(first, stream.readBytes())
+		}
+
+		archive.writeBytes(secondArchive)
+		archive.setLastModified(lastModified)
+
+		assertNotNull(ZipEntryStream.open(uri, "target.apk", context)).use { stream ->
+			assertContentEquals(second, stream.readBytes())
+		}
+		assertNotNull(ZipEntryStream.openStoredEntry(uri, "target.apk", context)).use { afd ->
+			val data = afd.createInputStream().use { it.readBytes() }
+			assertContentEquals(second, data)
+		}
+	}
+}
\ No newline at end of file
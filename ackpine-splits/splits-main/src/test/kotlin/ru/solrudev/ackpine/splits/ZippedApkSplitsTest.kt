@@ -30,6 +30,7 @@ import ru.solrudev.ackpine.splits.testutil.assertFixturePackage
 import ru.solrudev.ackpine.splits.testutil.setup
 import java.io.File
 import java.io.IOException
+import java.util.zip.ZipEntry
 import java.util.zip.ZipException
 import kotlin.test.BeforeTest
 import kotlin.test.Test
@@ -169,6 +170,75 @@ class ZippedApkSplitsTest {
 		assertContainsOnlyValidBaseApk(apks, "valid")
 	}
 
+	@Test
+	fun getApksForFileSkipsMalformedStoredApkEntryAndReturnsValidStoredBaseApk() {
+		val validApkBytes = SplitFixtures.apkFile(SplitFixtures.BASE_APK).readBytes()
+		val apks = getApksForFile(
+			SyntheticPayloads.zipBytesOf(
+				entries = mapOf(
+					"valid.apk" to validApkBytes,
+					"malformed.apk" to "not a zip file".toByteArray()
+				),
+				method = ZipEntry.STORED
+			)
+		)
+		assertContainsOnlyValidBaseApk(apks, "valid")
+	}
+
+	@Test
+	fun getApksForUriSkipsMalformedStoredApkEntryAndReturnsValidStoredBaseApk() {
+		val validApkBytes = SplitFixtures.apkFile(SplitFixtures.BASE_APK).readBytes()
+		val uri = SyntheticPayloads.zipUriOf(
+			name = "stored-apks-with-malformed-entry.apks",
+			entries = mapOf(
+				"valid.apk" to validApkBytes,
+				"malformed.apk" to "not a zip file".toByteArray()
+			),
+			method = ZipEntry.STORED
+		)
+		val apks = ZippedApkSplits.getApksForUri(uri, context).use { it.toList() }
+		assertContainsOnlyValidBaseApk(apks, "valid")
+	}
+
+	@Test
+	fun parallelParsingReturnsSameSplitsInSameOrder() {
+		val sequential = getApksForFile()
+		val archiveContentUri = TestFileProvider.getUri(SplitFixtures.apksArchive())
+		val sequentialFromUri = ZippedApkSplits.getApksForUri(archiveContentUri, context).use { it.toList() }
+		for (parallelism in listOf(2, 8)) {
+			val parallel = ZippedApkSplits
+				.getApksForFile(SplitFixtures.apksArchive(), parallelism)
+				.use { it.toList() }
+			assertEquals(sequential, parallel, "parallelism=$parallelism")
+			val parallelFromUri = ZippedApkSplits
+				.getApksForUri(archiveContentUri, context, parallelism)
+				.use { it.toList() }
+			assertEquals(sequentialFromUri, parallelFromUri, "parallelism=$parallelism")
+		}
+	}
+
+	@Test
+	fun parallelParsingSkipsMalformedApkEntry() {
+		val validApkBytes = SplitFixtures.apkFile(SplitFixtures.BASE_APK).readBytes()
+		val archive = tempFile(
+			SyntheticPayloads.zipBytesOf(
+				entries = mapOf(
+					"malformed.apk" to "not a zip file".toByteArray(),
+					"valid.apk" to validApkBytes
+				)
+			)
+		)
+		val apks = ZippedApkSplits.getApksForFile(archive, parallelism = 4).use { it.toList() }
+		assertContainsOnlyValidBaseApk(apks, "valid")
+	}
+
+	@Test
+	fun nonPositiveParallelismThrows() {
+		assertFailsWith<IllegalArgumentException> {
+			ZippedApkSplits.getApksForFile(SplitFixtures.apksArchive(), parallelism = 0)
+		}
+	}
+
 	private fun getApksForFile() = ZippedApkSplits.getApksForFile(SplitFixtures.apksArchive()).use { it.toList() }
 
 	private fun getApksForFile(bytes: ByteArray): List<Apk> {
@@ -20,6 +20,7 @@ import android.content.ContentValues
 import android.content.Context
 import android.content.res.AssetFileDescriptor.UNKNOWN_LENGTH
 import android.net.Uri
+import android.os.Bundle
 import android.os.CancellationSignal
 import android.os.OperationCanceledException
 import android.os.ParcelFileDescriptor
@@ -28,13 +29,16 @@ import androidx.test.core.app.ApplicationProvider
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
 import ru.solrudev.ackpine.ZippedFileProvider
+import ru.solrudev.ackpine.ZippedFileProviderOptions
 import ru.solrudev.ackpine.splits.testutil.SplitFixtures
+import ru.solrudev.ackpine.splits.testutil.SyntheticPayloads
 import ru.solrudev.ackpine.splits.testutil.TestFileProvider
 import ru.solrudev.ackpine.splits.testutil.ZIPPED_FILE_PROVIDER_AUTHORITY
 import ru.solrudev.ackpine.splits.testutil.legacyUri
 import ru.solrudev.ackpine.splits.testutil.setup
 import java.io.FileNotFoundException
 import java.io.IOException
+import java.util.zip.ZipEntry
 import kotlin.test.BeforeTest
 import kotlin.test.Test
 import kotlin.test.assertContentEquals
@@ -88,6 +92,49 @@ class ZippedFileProviderTest {
 		}
 	}
 
+	@Test
+	fun openAssetFileReturnsUnboundedDescriptorStartingAtZeroOffsetForStoredEntry() {
+		val data = ByteArray(4096) { it.toByte() }
+		val archiveUri = SyntheticPayloads.zipUriOf("stored.zip", mapOf("stored.apk" to data), ZipEntry.STORED)
+		provider.openAssetFile(ZippedFileProvider.getUriForZipEntry(archiveUri, "stored.apk"), "r").use { afd ->
+			assertEquals(0L, afd.startOffset)
+			assertEquals(UNKNOWN_LENGTH, afd.declaredLength)
+			afd.createInputStream().use { stream ->
+				assertContentEquals(data, stream.readBytes())
+			}
+		}
+	}
+
+	@Test
+	fun openTypedAssetFileReturnsRegionOfArchiveForStoredEntryWhenRequested() {
+		val data = ByteArray(4096) { it.toByte() }
+		val archiveUri = SyntheticPayloads.zipUriOf("stored.zip", mapOf("stored.apk" to data), ZipEntry.STORED)
+		val uri = ZippedFileProvider.getUriForZipEntry(archiveUri, "stored.apk")
+		val opts = Bundle().apply { putBoolean(ZippedFileProviderOptions.OPEN_STORED_ENTRY_AS_REGION, true) }
+		provider.openTypedAssetFile(uri, "*/*", opts).use { afd ->
+			assertTrue(afd.startOffset > 0)
+			assertEquals(data.size.toLong(), afd.declaredLength)
+			afd.createInputStream().use { stream ->
+				assertContentEquals(data, stream.readBytes())
+			}
+		}
+	}
+
+	@Test
+	fun openTypedAssetFileStreamsDeflatedEntryWhenRegionIsRequested() {
+		val data = ByteArray(4096) { it.toByte() }
+		val archiveUri = SyntheticPayloads.zipUriOf("deflated.zip", mapOf("deflated.apk" to data))
+		val uri = ZippedFileProvider.getUriForZipEntry(archiveUri, "deflated.apk")
+		val opts = Bundle().apply { putBoolean(ZippedFileProviderOptions.OPEN_STORED_ENTRY_AS_REGION, true) }
+		provider.openTypedAssetFile(uri, "*/*", opts).use { afd ->
+			assertEquals(0L, afd.startOffset)
+			assertEquals(UNKNOWN_LENGTH, afd.declaredLength)
+			afd.createInputStream().use { stream ->
+				assertContentEquals(data, stream.readBytes())
+			}
+		}
+	}
+
 	@Test
 	fun openTypedAssetFileReturnsDescriptorForMatchingMimeTypes() {
 		val entryName = SplitFixtures.firstApkEntryMetadata().name
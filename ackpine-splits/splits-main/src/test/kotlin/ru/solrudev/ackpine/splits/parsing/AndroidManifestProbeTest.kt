@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.splits.parsing
+
+import com.android.apksig.internal.apk.AndroidBinXmlParser
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import ru.solrudev.ackpine.AndroidManifestProbe
+import ru.solrudev.ackpine.splits.testutil.SplitFixtures
+import java.io.ByteArrayInputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.util.zip.ZipFile
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+@RunWith(RobolectricTestRunner::class)
+class AndroidManifestProbeTest {
+
+	@Test
+	fun readPackageNameReturnsPackageNameOfApk() {
+		val packageName = AndroidManifestProbe.readPackageName(SplitFixtures.apkFile(SplitFixtures.BASE_APK))
+		assertEquals(SplitFixtures.PACKAGE_NAME, packageName)
+	}
+
+	@Test
+	fun readPackageNameReturnsNullForNonApkFile() {
+		val packageName = AndroidManifestProbe.readPackageName(SplitFixtures.apksArchive())
+		assertNull(packageName)
+	}
+
+	@Test
+	fun readManifestAttributesMatchesFullParser() {
+		val apks = listOf(
+			SplitFixtures.BASE_APK,
+			SplitFixtures.FEATURE_APK,
+			SplitFixtures.ARM64_V8A_APK,
+			SplitFixtures.FEATURE_LOCALE_APK,
+			SplitFixtures.ASSET_PACK_MASTER_APK
+		)
+		for (apk in apks) {
+			val manifestBytes = ZipFile(SplitFixtures.apkFile(apk)).use { zipFile ->
+				val entry = zipFile.getEntry(AndroidManifestProbe.ANDROID_MANIFEST_FILE_NAME)
+				zipFile.getInputStream(entry).use { it.readBytes() }
+			}
+			val attributes = mutableMapOf<String, String>()
+			val isManifest = AndroidManifestProbe.readManifestAttributes(
+				ByteArrayInputStream(manifestBytes)
+			) { namespace, name, value ->
+				val prefix = if (namespace.isEmpty()) "" else "$namespace:"
+				attributes["$prefix$name"] = value
+			}
+			val probed = AndroidManifest(attributes, apk)
+			val streamed = AndroidManifest(ByteArrayInputStream(manifestBytes), apk)!!
+			val expected = AndroidManifest(readAttributesWithApksig(ByteBuffer.wrap(manifestBytes)), apk)
+			assertTrue(isManifest)
+			assertEquals(expected.packageName, probed.packageName, apk)
+			assertEquals(expected.versionCode, probed.versionCode, apk)
+			assertEquals(expected.versionName, probed.versionName, apk)
+			assertEquals(expected.splitName, probed.splitName, apk)
+			assertEquals(expected.isFeatureSplit, probed.isFeatureSplit, apk)
+			assertEquals(expected.configForSplit, probed.configForSplit, apk)
+			assertEquals(expected.attributes, streamed.attributes, apk)
+		}
+	}
+
+	@Test
+	fun readManifestAttributesThrowsForInvalidData() {
+		assertFailsWith<IOException> {
+			AndroidManifestProbe.readManifestAttributes(ByteArrayInputStream(byteArrayOf(0, 1, 2, 3))) { _, _, _ -> }
+		}
+	}
+
+	@Test
+	fun readManifestAttributesThrowsForTruncatedData() {
+		val manifestBytes = ZipFile(SplitFixtures.apkFile(SplitFixtures.BASE_APK)).use { zipFile ->
+			val entry = zipFile.getEntry(AndroidManifestProbe.ANDROID_MANIFEST_FILE_NAME)
+			zipFile.getInputStream(entry).use { it.readBytes() }
+		}
+		val truncated = manifestBytes.copyOf(16)
+		assertFailsWith<IOException> {
+			AndroidManifestProbe.readManifestAttributes(ByteArrayInputStream(truncated)) { _, _, _ -> }
+		}
+	}
+
+	private fun readAttributesWithApksig(manifest: ByteBuffer): Map<String, String> {
+		val attributes = mutableMapOf<String, String>()
+		val parser = AndroidBinXmlParser(manifest)
+		while (parser.next() != AndroidBinXmlParser.EVENT_END_DOCUMENT) {
+			if (parser.eventType != AndroidBinXmlParser.EVENT_START_ELEMENT || parser.depth != 1) {
+				continue
+			}
+			for (index in 0..<parser.attributeCount) {
+				val namespace = parser.getAttributeNamespace(index)
+				val prefix = if (namespace.isEmpty()) "" else "$namespace:"
+				attributes["$prefix${parser.getAttributeName(index)}"] = parser.getAttributeStringValue(index)
+			}
+			break
+		}
+		return attributes
+	}
+}
\ No newline at end of file
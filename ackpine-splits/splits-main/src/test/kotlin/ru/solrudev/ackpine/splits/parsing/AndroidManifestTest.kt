@@ -16,17 +16,21 @@
 
 package ru.solrudev.ackpine.splits.parsing
 
-import com.android.apksig.internal.apk.AndroidBinXmlParser
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
 import ru.solrudev.ackpine.exceptions.InvalidManifestAttributeException
-import java.nio.ByteBuffer
+import ru.solrudev.ackpine.splits.testutil.SplitFixtures
+import java.io.ByteArrayInputStream
+import java.io.IOException
+import java.util.zip.ZipFile
 import kotlin.test.Test
 import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
 import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
 import kotlin.test.assertTrue
 
-private const val ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android"
-
+@RunWith(RobolectricTestRunner::class)
 class AndroidManifestTest {
 
 	@Test
@@ -153,6 +157,18 @@ class AndroidManifestTest {
 		assertFalse(notFeatureSplit.isFeatureSplit)
 	}
 
+	@Test
+	fun isFeatureSplitThrowsWhenNotBoolean() {
+		val manifest = AndroidManifest(
+			mapOf("$ANDROID_NAMESPACE:isFeatureSplit" to "yes"),
+			"test"
+		)
+		val exception = assertFailsWith<InvalidManifestAttributeException> {
+			manifest.isFeatureSplit
+		}
+		assertEquals("isFeatureSplit", exception.attribute)
+	}
+
 	@Test
 	fun isFeatureSplitReturnsFalseWhenAbsent() {
 		val manifest = AndroidManifest(emptyMap(), "test")
@@ -172,18 +188,51 @@ class AndroidManifestTest {
 	}
 
 	@Test
-	fun emptyByteBufferThrowsXmlParserException() {
-		val empty = ByteBuffer.allocate(0)
-		assertFailsWith<AndroidBinXmlParser.XmlParserException> {
-			AndroidManifest(empty, "empty")
+	fun emptyStreamThrowsIOException() {
+		assertFailsWith<IOException> {
+			AndroidManifest(ByteArrayInputStream(ByteArray(0)), "empty")
+		}
+	}
+
+	@Test
+	fun invalidDataThrowsIOException() {
+		assertFailsWith<IOException> {
+			AndroidManifest(ByteArrayInputStream(byteArrayOf(0, 1, 2, 3)), "invalid")
 		}
 	}
 
 	@Test
-	fun invalidDataThrowsXmlParserException() {
-		val invalid = ByteBuffer.wrap(byteArrayOf(0, 1, 2, 3))
-		assertFailsWith<AndroidBinXmlParser.XmlParserException> {
-			AndroidManifest(invalid, "invalid")
+	fun streamIsNotConsumedPastManifestElement() {
+		val manifestBytes = ZipFile(SplitFixtures.apkFile(SplitFixtures.BASE_APK)).use { zipFile ->
+			val entry = zipFile.getEntry(ANDROID_MANIFEST_FILE_NAME)
+			zipFile.getInputStream(entry).use { it.readBytes() }
 		}
+		val stream = ByteArrayInputStream(manifestBytes)
+		val manifest = assertNotNull(AndroidManifest(stream, SplitFixtures.BASE_APK))
+		assertEquals(SplitFixtures.PACKAGE_NAME, manifest.packageName)
+		assertTrue(stream.available() > 0)
+	}
+
+	@Test
+	fun attributesRoundTrip() {
+		val manifest = AndroidManifest(
+			mapOf(
+				"package" to "com.example.app",
+				"split" to "config.hdpi",
+				"configForSplit" to "base",
+				"$ANDROID_NAMESPACE:versionCode" to "1",
+				"$ANDROID_NAMESPACE:versionCodeMajor" to "2",
+				"$ANDROID_NAMESPACE:versionName" to "1.0",
+				"$ANDROID_NAMESPACE:isFeatureSplit" to "true"
+			),
+			"test"
+		)
+		val restored = AndroidManifest(manifest.attributes, "test")
+		assertEquals(manifest.packageName, restored.packageName)
+		assertEquals(manifest.splitName, restored.splitName)
+		assertEquals(manifest.configForSplit, restored.configForSplit)
+		assertEquals(manifest.versionCode, restored.versionCode)
+		assertEquals(manifest.versionName, restored.versionName)
+		assertEquals(manifest.isFeatureSplit, restored.isFeatureSplit)
 	}
 }
\ No newline at end of file
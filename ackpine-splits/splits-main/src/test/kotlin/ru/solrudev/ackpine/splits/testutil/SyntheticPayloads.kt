@@ -17,6 +17,7 @@
 package ru.solrudev.ackpine.splits.testutil
 
 import java.io.ByteArrayOutputStream
+import java.util.zip.CRC32
 import java.util.zip.ZipEntry
 import java.util.zip.ZipOutputStream
 
@@ -44,11 +45,14 @@ object SyntheticPayloads {
 		return outputStream.toByteArray()
 	}
 
-	fun zipBytesOf(entries: Map<String, ByteArray>): ByteArray {
+	fun zipBytesOf(
+		entries: Map<String, ByteArray>,
+		method: Int = ZipEntry.DEFLATED
+	): ByteArray {
 		val outputStream = ByteArrayOutputStream()
 		ZipOutputStream(outputStream).use { zipOutputStream ->
 			for ((entryName, data) in entries) {
-				zipOutputStream.putNextEntry(ZipEntry(entryName))
+				zipOutputStream.putNextEntry(zipEntryOf(entryName, data, method))
 				zipOutputStream.write(data)
 				zipOutputStream.closeEntry()
 			}
@@ -58,8 +62,18 @@ object SyntheticPayloads {
 
 	fun zipUriOf(
 		name: String,
-		entries: Map<String, ByteArray>
+		entries: Map<String, ByteArray>,
+		method: Int = ZipEntry.DEFLATED
 	) = TestFileProvider.createSource(name) { outputStream ->
-		outputStream.write(zipBytesOf(entries))
+		outputStream.write(zipBytesOf(entries, method))
+	}
+
+	private fun zipEntryOf(name: String, data: ByteArray, method: Int) = ZipEntry(name).apply {
+		this.method = method
+		if (method == ZipEntry.STORED) {
+			size = data.size.toLong()
+			compressedSize = data.size.toLong()
+			crc = CRC32().apply { update(data) }.value
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2026 Ilya Fomichev
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.solrudev.ackpine.test
+
+import ru.solrudev.ackpine.DisposableSubscription
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
+import ru.solrudev.ackpine.DummyDisposableSubscription
+import ru.solrudev.ackpine.session.Failure
+import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsDiff
+import ru.solrudev.ackpine.session.SessionSnapshotsListener
+import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Applies the [query] to [snapshots] listed in order of session creation.
+ */
+internal fun <F : Failure> List<SessionSnapshot<F>>.applyQuery(query: SessionSnapshotQuery): List<SessionSnapshot<F>> {
+	return asReversed()
+		.asSequence()
+		.filter { snapshot -> query.stateTypes.isEmpty() || snapshot.state.toStateType() in query.stateTypes }
+		.drop(query.offset)
+		.take(query.limit)
+		.toList()
+}
+
+/**
+ * Holds [SessionSnapshotsListener]s of a test repository along with snapshots they were last notified with.
+ *
+ * Listeners are invoked on the calling thread.
+ */
+internal class SessionSnapshotsListeners<F : Failure> {
+
+	private val subscriptions = ConcurrentHashMap<SessionSnapshotsListener<F>, Subscription<F>>()
+
+	fun add(
+		subscriptionContainer: DisposableSubscriptionContainer,
+		query: SessionSnapshotQuery,
+		listener: SessionSnapshotsListener<F>,
+		snapshots: List<SessionSnapshot<F>>
+	): DisposableSubscription {
+		val subscription = Subscription(this, query, listener)
+		if (subscriptions.putIfAbsent(listener, subscription) != null) {
+			return DummyDisposableSubscription
+		}
+		subscription.notify(snapshots, isInitial = true)
+		subscriptionContainer.add(subscription)
+		return subscription
+	}
+
+	fun remove(listener: SessionSnapshotsListener<F>) {
+		subscriptions.remove(listener)
+	}
+
+	fun notifyChanged(snapshots: List<SessionSnapshot<F>>) {
+		for (subscription in subscriptions.values) {
+			subscription.notify(snapshots, isInitial = false)
+		}
+	}
+
+	private class Subscription<F : Failure>(
+		private val listeners: SessionSnapshotsListeners<F>,
+		private val query: SessionSnapshotQuery,
+		private val listener: SessionSnapshotsListener<F>
+	) : DisposableSubscription {
+
+		override var isDisposed: Boolean = false
+			private set
+
+		private var snapshots = emptyMap<UUID, SessionSnapshot<F>>()
+
+		@Synchronized
+		fun notify(allSnapshots: List<SessionSnapshot<F>>, isInitial: Boolean) {
+			val previous = snapshots
+			val current = allSnapshots.applyQuery(query).associateBy { it.id }
+			snapshots = current
+			val diff = SessionSnapshotsDiff(
+				added = current.values.filter { it.id !in previous },
+				removed = previous.values.filter { it.id !in current },
+				changed = current.values.filter { snapshot ->
+					val previousSnapshot = previous[snapshot.id]
+					previousSnapshot != null && previousSnapshot != snapshot
+				}
+			)
+			if (isInitial || diff.added.isNotEmpty() || diff.removed.isNotEmpty() || diff.changed.isNotEmpty()) {
+				listener.onSnapshotsChanged(diff)
+			}
+		}
+
+		override fun dispose() {
+			if (!isDisposed) {
+				listeners.remove(listener)
+				isDisposed = true
+			}
+		}
+	}
+}
+
+private fun Session.State<*>.toStateType() = when (this) {
+	Session.State.Pending -> SessionSnapshotQuery.StateType.PENDING
+	Session.State.Active -> SessionSnapshotQuery.StateType.ACTIVE
+	Session.State.Awaiting -> SessionSnapshotQuery.StateType.AWAITING
+	Session.State.Committed -> SessionSnapshotQuery.StateType.COMMITTED
+	Session.State.Cancelled -> SessionSnapshotQuery.StateType.CANCELLED
+	Session.State.Succeeded -> SessionSnapshotQuery.StateType.SUCCEEDED
+	is Session.State.Failed -> SessionSnapshotQuery.StateType.FAILED
+}
\ No newline at end of file
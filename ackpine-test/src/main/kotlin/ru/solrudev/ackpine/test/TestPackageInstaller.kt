@@ -17,10 +17,15 @@
 package ru.solrudev.ackpine.test
 
 import com.google.common.util.concurrent.ListenableFuture
+import ru.solrudev.ackpine.DisposableSubscription
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
 import ru.solrudev.ackpine.installer.InstallFailure
 import ru.solrudev.ackpine.installer.PackageInstaller
 import ru.solrudev.ackpine.installer.parameters.InstallParameters
 import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsListener
 import ru.solrudev.ackpine.test.futures.ImmediateFuture
 import java.util.UUID
 import java.util.concurrent.ConcurrentHashMap
@@ -61,6 +66,7 @@ public open class TestPackageInstaller @JvmOverloads public constructor(
 
 	private val sessionsMap = ConcurrentHashMap<UUID, TestInstallSession>()
 	private val sessionsValues = CopyOnWriteArrayList<TestInstallSession>()
+	private val snapshotsListeners = SessionSnapshotsListeners<InstallFailure>()
 	private val createdParametersMap = ConcurrentHashMap<UUID, InstallParameters>()
 
 	override fun createSession(parameters: InstallParameters): TestInstallSession {
@@ -72,6 +78,7 @@ public open class TestPackageInstaller @JvmOverloads public constructor(
 		sessionsMap[id] = session
 		sessionsValues += session
 		createdParametersMap[id] = parameters
+		notifySessionSnapshotsChanged()
 		return session
 	}
 
@@ -87,12 +94,48 @@ public open class TestPackageInstaller @JvmOverloads public constructor(
 		return ImmediateFuture.success(sessions.filter { it.isActive })
 	}
 
+	/**
+	 * Returns snapshots of sessions tracked by this repository matching the [query]. Launch and commit timestamps of
+	 * the snapshots are always `0`.
+	 */
+	override fun getSessionSnapshotsAsync(
+		query: SessionSnapshotQuery
+	): ListenableFuture<List<SessionSnapshot<InstallFailure>>> {
+		return ImmediateFuture.success(snapshots().applyQuery(query))
+	}
+
+	/**
+	 * Adds a listener of snapshots of sessions tracked by this repository matching the [query]. The listener is
+	 * invoked on the calling thread: immediately with current snapshots, and then with differences when sessions are
+	 * created, seeded or removed, or when [notifySessionSnapshotsChanged] is called.
+	 */
+	override fun addSessionSnapshotsListener(
+		subscriptionContainer: DisposableSubscriptionContainer,
+		query: SessionSnapshotQuery,
+		listener: SessionSnapshotsListener<InstallFailure>
+	): DisposableSubscription {
+		return snapshotsListeners.add(subscriptionContainer, query, listener, snapshots())
+	}
+
+	override fun removeSessionSnapshotsListener(listener: SessionSnapshotsListener<InstallFailure>) {
+		snapshotsListeners.remove(listener)
+	}
+
+	/**
+	 * Notifies session snapshots listeners with changes of tracked sessions, e.g. after their state was changed via
+	 * [controller][TestInstallSession.controller].
+	 */
+	public fun notifySessionSnapshotsChanged() {
+		snapshotsListeners.notifyChanged(snapshots())
+	}
+
 	/**
 	 * Adds an existing [session] to this repository if a session with the provided ID doesn't exist.
 	 */
 	public fun seedSession(session: TestInstallSession) {
 		if (sessionsMap.putIfAbsent(session.id, session) == null) {
 			sessionsValues += session
+			notifySessionSnapshotsChanged()
 		}
 	}
 
@@ -103,6 +146,7 @@ public open class TestPackageInstaller @JvmOverloads public constructor(
 		val session = sessionsMap.remove(sessionId)
 		sessionsValues -= session
 		createdParametersMap.remove(sessionId)
+		notifySessionSnapshotsChanged()
 	}
 
 	/**
@@ -112,5 +156,17 @@ public open class TestPackageInstaller @JvmOverloads public constructor(
 		sessionsMap.clear()
 		sessionsValues.clear()
 		createdParametersMap.clear()
+		notifySessionSnapshotsChanged()
+	}
+
+	private fun snapshots(): List<SessionSnapshot<InstallFailure>> = sessions.map { session ->
+		SessionSnapshot(
+			id = session.id,
+			name = createdParametersMap[session.id]?.name.orEmpty(),
+			state = session.state,
+			progress = session.progress,
+			lastLaunchTimestamp = 0,
+			lastCommitTimestamp = 0
+		)
 	}
 }
\ No newline at end of file
@@ -17,7 +17,13 @@
 package ru.solrudev.ackpine.test
 
 import com.google.common.util.concurrent.ListenableFuture
+import ru.solrudev.ackpine.DisposableSubscription
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
+import ru.solrudev.ackpine.session.Progress
 import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshot
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsListener
 import ru.solrudev.ackpine.test.futures.ImmediateFuture
 import ru.solrudev.ackpine.uninstaller.PackageUninstaller
 import ru.solrudev.ackpine.uninstaller.UninstallFailure
@@ -61,6 +67,7 @@ public open class TestPackageUninstaller @JvmOverloads public constructor(
 
 	private val sessionsMap = ConcurrentHashMap<UUID, TestUninstallSession>()
 	private val sessionsValues = CopyOnWriteArrayList<TestUninstallSession>()
+	private val snapshotsListeners = SessionSnapshotsListeners<UninstallFailure>()
 	private val createdParametersMap = ConcurrentHashMap<UUID, UninstallParameters>()
 
 	override fun createSession(parameters: UninstallParameters): TestUninstallSession {
@@ -72,6 +79,7 @@ public open class TestPackageUninstaller @JvmOverloads public constructor(
 		sessionsMap[id] = session
 		sessionsValues += session
 		createdParametersMap[id] = parameters
+		notifySessionSnapshotsChanged()
 		return session
 	}
 
@@ -87,12 +95,48 @@ public open class TestPackageUninstaller @JvmOverloads public constructor(
 		return ImmediateFuture.success(sessions.filter { it.isActive })
 	}
 
+	/**
+	 * Returns snapshots of sessions tracked by this repository matching the [query]. Launch and commit timestamps of
+	 * the snapshots are always `0`.
+	 */
+	override fun getSessionSnapshotsAsync(
+		query: SessionSnapshotQuery
+	): ListenableFuture<List<SessionSnapshot<UninstallFailure>>> {
+		return ImmediateFuture.success(snapshots().applyQuery(query))
+	}
+
+	/**
+	 * Adds a listener of snapshots of sessions tracked by this repository matching the [query]. The listener is
+	 * invoked on the calling thread: immediately with current snapshots, and then with differences when sessions are
+	 * created, seeded or removed, or when [notifySessionSnapshotsChanged] is called.
+	 */
+	override fun addSessionSnapshotsListener(
+		subscriptionContainer: DisposableSubscriptionContainer,
+		query: SessionSnapshotQuery,
+		listener: SessionSnapshotsListener<UninstallFailure>
+	): DisposableSubscription {
+		return snapshotsListeners.add(subscriptionContainer, query, listener, snapshots())
+	}
+
+	override fun removeSessionSnapshotsListener(listener: SessionSnapshotsListener<UninstallFailure>) {
+		snapshotsListeners.remove(listener)
+	}
+
+	/**
+	 * Notifies session snapshots listeners with changes of tracked sessions, e.g. after their state was changed via
+	 * [controller][TestUninstallSession.controller].
+	 */
+	public fun notifySessionSnapshotsChanged() {
+		snapshotsListeners.notifyChanged(snapshots())
+	}
+
 	/**
 	 * Adds an existing [session] to this repository if a session with the provided ID doesn't exist.
 	 */
 	public fun seedSession(session: TestUninstallSession) {
 		if (sessionsMap.putIfAbsent(session.id, session) == null) {
 			sessionsValues += session
+			notifySessionSnapshotsChanged()
 		}
 	}
 
@@ -103,6 +147,7 @@ public open class TestPackageUninstaller @JvmOverloads public constructor(
 		val session = sessionsMap.remove(sessionId)
 		sessionsValues -= session
 		createdParametersMap.remove(sessionId)
+		notifySessionSnapshotsChanged()
 	}
 
 	/**
@@ -112,5 +157,17 @@ public open class TestPackageUninstaller @JvmOverloads public constructor(
 		sessionsMap.clear()
 		sessionsValues.clear()
 		createdParametersMap.clear()
+		notifySessionSnapshotsChanged()
+	}
+
+	private fun snapshots(): List<SessionSnapshot<UninstallFailure>> = sessions.map { session ->
+		SessionSnapshot(
+			id = session.id,
+			name = createdParametersMap[session.id]?.packageName.orEmpty(),
+			state = session.state,
+			progress = Progress(),
+			lastLaunchTimestamp = 0,
+			lastCommitTimestamp = 0
+		)
 	}
 }
\ No newline at end of file
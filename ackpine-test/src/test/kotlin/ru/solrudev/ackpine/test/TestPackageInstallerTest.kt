@@ -17,11 +17,15 @@
 package ru.solrudev.ackpine.test
 
 import kotlinx.coroutines.test.runTest
+import ru.solrudev.ackpine.DisposableSubscriptionContainer
 import ru.solrudev.ackpine.installer.InstallFailure
 import ru.solrudev.ackpine.installer.getActiveSessions
 import ru.solrudev.ackpine.installer.getSession
+import ru.solrudev.ackpine.installer.getSessionSnapshots
 import ru.solrudev.ackpine.installer.getSessions
 import ru.solrudev.ackpine.session.Session
+import ru.solrudev.ackpine.session.SessionSnapshotQuery
+import ru.solrudev.ackpine.session.SessionSnapshotsDiff
 import ru.solrudev.ackpine.session.await
 import java.util.UUID
 import kotlin.test.Test
@@ -104,6 +108,45 @@ class TestPackageInstallerTest {
 		assertEquals(listOf(first), installer.getActiveSessions())
 	}
 
+	@Test
+	fun getSessionSnapshotsAppliesQueryToNewestSessionsFirst() = runTest {
+		val installer = TestPackageInstaller()
+		val first = installer.createSession(installParameters())
+		val second = installer.createSession(installParameters())
+		val third = installer.createSession(installParameters())
+		first.await()
+		third.await()
+		val query = SessionSnapshotQuery.Builder()
+			.setStateTypes(SessionSnapshotQuery.StateType.SUCCEEDED)
+			.setOffset(1)
+			.build()
+
+		val snapshots = installer.getSessionSnapshots(query)
+
+		assertEquals(listOf(first.id), snapshots.map { it.id })
+		assertEquals(Session.State.Succeeded, snapshots.single().state)
+		assertEquals(listOf(third.id, second.id, first.id), installer.getSessionSnapshots().map { it.id })
+	}
+
+	@Test
+	fun sessionSnapshotsListenerReceivesDiffsOfRepositoryChanges() {
+		val installer = TestPackageInstaller()
+		val existing = installer.createSession(installParameters())
+		val diffs = mutableListOf<SessionSnapshotsDiff<InstallFailure>>()
+		val subscriptionContainer = DisposableSubscriptionContainer()
+		installer.addSessionSnapshotsListener(subscriptionContainer, SessionSnapshotQuery.ALL, diffs::add)
+
+		val created = installer.createSession(installParameters())
+		installer.removeSession(existing.id)
+		subscriptionContainer.dispose()
+		installer.clearSessions()
+
+		assertEquals(3, diffs.size)
+		assertEquals(listOf(existing.id), diffs[0].added.map { it.id })
+		assertEquals(listOf(created.id), diffs[1].added.map { it.id })
+		assertEquals(listOf(existing.id), diffs[2].removed.map { it.id })
+	}
+
 	@Test
 	fun seedSessionIgnoresDuplicateId() {
 		val installer = TestPackageInstaller()